@@ -0,0 +1,54 @@
+package projects.benchmarks;
+
+import java.math.BigDecimal;
+
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/**
+ * Builds project graphs for the benchmarks.
+ */
+final class BenchmarkData {
+
+	static final String[] CATEGORY_NAMES = {"Doors and Windows", "Repairs", "Gardening", "Painting"};
+
+	private BenchmarkData() {
+	}
+
+	/*
+	 * A project with the given number of materials and steps. Categories refer to the fixed names
+	 * above by name only, so insertProjects resolves their IDs.
+	 */
+	static Project project(int number, int children) {
+
+		Project project = new Project();
+		project.setProjectName("Project " + number);
+		project.setEstimatedHours(4);
+		project.setActualHours(5);
+		project.setDifficulty(number % 10 + 1);
+		project.setNotes("Notes for project " + number);
+
+		for(int index = 1; index <= children; index++) {
+			Material material = new Material();
+			material.setMaterialName("Material " + index);
+			material.setNumRequired(index);
+			material.setCost(new BigDecimal("1.25"));
+			project.getMaterials().add(material);
+
+			Step step = new Step();
+			step.setStepText("Step " + index + " of project " + number);
+			step.setStepOrder(index);
+			project.getSteps().add(step);
+		}
+
+		for(int index = 0; index < Math.min(children, CATEGORY_NAMES.length); index++) {
+			Category category = new Category();
+			category.setCategoryName(CATEGORY_NAMES[index]);
+			project.getCategories().add(category);
+		}
+
+		return project;
+	}
+}
@@ -0,0 +1,29 @@
+package projects.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * The JMH command line, except that results are written as JSON to jmh-result.json unless -rf or
+ * -rff say otherwise, so runs can be compared over time.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+
+		List<String> options = new ArrayList<>(Arrays.asList(args));
+
+		if(!options.contains("-rf")) {
+			options.addAll(List.of("-rf", "json"));
+		}
+
+		if(!options.contains("-rff")) {
+			options.addAll(List.of("-rff", "jmh-result.json"));
+		}
+
+		Main.main(options.toArray(new String[0]));
+	}
+}
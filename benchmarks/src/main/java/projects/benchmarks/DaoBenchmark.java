@@ -0,0 +1,96 @@
+package projects.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.DbConnection;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+import projects.service.ProjectService;
+
+/**
+ * End-to-end DAO reads against a real database. The database comes from db.properties and the
+ * usual -Dprojects.db.* overrides (pass them with -jvmArgs), for example a local MySQL started with
+ *
+ * <pre>
+ * docker run -d -p 3306:3306 -e MYSQL_DATABASE=projects -e MYSQL_USER=projects \
+ *     -e MYSQL_PASSWORD=projects -e MYSQL_RANDOM_ROOT_PASSWORD=yes mysql:8
+ * </pre>
+ *
+ * Each trial drops and recreates the tables, then seeds the given number of projects with five
+ * materials, five steps and four categories each. Do not point it at a database you want to keep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+
+	@Param({"100", "1000", "10000"})
+	public int projects;
+
+	@Param({"SEPARATE_QUERIES", "JOINED", "MULTI_RESULT"})
+	public ProjectDao.FetchStrategy fetchStrategy;
+
+	private final ProjectDao projectDao = new ProjectDao();
+
+	@Setup(Level.Trial)
+	public void seed() {
+		new ProjectService().createAndPopulateTables();
+
+		List<String> categories = new ArrayList<>();
+
+		for(String name : BenchmarkData.CATEGORY_NAMES) {
+			categories.add("INSERT INTO category (category_name) VALUES ('" + name + "')");
+		}
+		projectDao.executeBatch(categories);
+
+		List<Project> batch = new ArrayList<>();
+
+		for(int number = 1; number <= projects; number++) {
+			batch.add(BenchmarkData.project(number, 5));
+
+			if(batch.size() == 1000 || number == projects) {
+				projectDao.insertProjects(batch);
+				batch = new ArrayList<>();
+			}
+		}
+
+		projectDao.setFetchStrategy(fetchStrategy);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown() {
+		DbConnection.shutdown();
+	}
+
+	@Benchmark
+	public Optional<Project> fecthProjectById() {
+		//IDs start at 1 on freshly created tables
+		return projectDao.fecthProjectById(ThreadLocalRandom.current().nextInt(projects) + 1);
+	}
+
+	@Benchmark
+	public List<Project> fetchAllProjects() {
+		return projectDao.fetchAllProjects();
+	}
+}
@@ -0,0 +1,103 @@
+package projects.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * A read-only, forward-only ResultSet over rows held in memory, so row mapping can be measured
+ * without a database. Only the methods the mappers call are implemented. Like the MySQL driver,
+ * looking up a column label that is not in the result set throws SQLException.
+ */
+public final class InMemoryResultSet {
+
+	private InMemoryResultSet() {
+	}
+
+	public static ResultSet of(String[] labels, Object[][] rows) {
+
+		ResultSetMetaData meta = (ResultSetMetaData)Proxy.newProxyInstance(
+				ResultSetMetaData.class.getClassLoader(), new Class<?>[] {ResultSetMetaData.class},
+				(proxy, method, args) -> {
+					switch(method.getName()) {
+					case "getColumnCount":
+						return labels.length;
+					case "getColumnLabel":
+					case "getColumnName":
+						return labels[(Integer)args[0] - 1];
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+
+		int[] row = {-1};
+		boolean[] wasNull = {false};
+
+		return (ResultSet)Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+				new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+					switch(method.getName()) {
+					case "next":
+						return ++row[0] < rows.length;
+					case "beforeFirst":
+						row[0] = -1;
+						return null;
+					case "getMetaData":
+						return meta;
+					case "wasNull":
+						return wasNull[0];
+					case "close":
+						return null;
+					case "isClosed":
+						return false;
+					case "getObject":
+					case "getString":
+					case "getBigDecimal":
+						Object value = rows[row[0]][columnIndex(labels, args[0]) - 1];
+						wasNull[0] = value == null;
+						return convert(method.getName(), value, args);
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	private static int columnIndex(String[] labels, Object column) throws SQLException {
+
+		if(column instanceof Integer) {
+			return (Integer)column;
+		}
+
+		String label = ((String)column).toLowerCase(Locale.ROOT);
+
+		for(int index = 0; index < labels.length; index++) {
+			if(labels[index].equals(label)) {
+				return index + 1;
+			}
+		}
+		throw new SQLException("Column '" + column + "' not found.");
+	}
+
+	private static Object convert(String method, Object value, Object[] args) {
+
+		if(value == null) {
+			return null;
+		}
+
+		if("getString".equals(method)) {
+			return value.toString();
+		}
+
+		if("getBigDecimal".equals(method)) {
+			return value instanceof BigDecimal ? value : new BigDecimal(value.toString());
+		}
+
+		//getObject(column, Class)
+		if(args.length == 2 && args[1] instanceof Class) {
+			return ((Class<?>)args[1]).cast(value);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,85 @@
+package projects.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.DbConnection;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+import projects.service.ProjectService;
+
+/**
+ * Inserting a batch of projects against a real database (set one up as for DaoBenchmark): a loop of
+ * insertProject, one transaction per project, against one insertProjects call for the whole batch.
+ * Both score batches per second, so their ratio is the speedup; insertProjects should be ten times
+ * faster or more from a batch of 100. The projects have no children, as insertProject writes only the
+ * project row.
+ *
+ * Each trial drops and recreates the tables, which then grow as it runs. Do not point it at a
+ * database you want to keep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+
+	@Param({"10", "100", "1000"})
+	public int batchSize;
+
+	private final ProjectDao projectDao = new ProjectDao();
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void createTables() {
+		new ProjectService().createAndPopulateTables();
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown() {
+		DbConnection.shutdown();
+	}
+
+	@Benchmark
+	public Project insertProjectOneAtATime() {
+		Project last = null;
+
+		for(Project project : batch()) {
+			last = projectDao.insertProject(project);
+		}
+		return last;
+	}
+
+	@Benchmark
+	public List<Project> insertProjects() {
+		return projectDao.insertProjects(batch());
+	}
+
+	//new entities each time, as inserting sets their IDs
+	private List<Project> batch() {
+		List<Project> projects = new ArrayList<>(batchSize);
+
+		for(int count = 0; count < batchSize; count++) {
+			projects.add(BenchmarkData.project(++next, 0));
+		}
+		return projects;
+	}
+}
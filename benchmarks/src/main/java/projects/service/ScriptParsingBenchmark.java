@@ -0,0 +1,68 @@
+package projects.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Splitting scripts into statements with ProjectService.convertContentToSqlStatements: the real
+ * schema script, and generated data scripts with comments and quoted semicolons. This lives in
+ * projects.service so it can reach the package-private method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScriptParsingBenchmark {
+
+	//"schema" is projects-schema.sql; a number is that many generated INSERT statements
+	@Param({"schema", "1000", "100000"})
+	public String script;
+
+	private final ProjectService projectService = new ProjectService();
+	private String content;
+
+	@Setup
+	public void setUp() throws IOException {
+		if("schema".equals(script)) {
+			try(InputStream in = getClass().getClassLoader().getResourceAsStream("projects-schema.sql")){
+				content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			}
+			return;
+		}
+
+		int statements = Integer.parseInt(script);
+		StringBuilder sb = new StringBuilder();
+
+		for(int index = 1; index <= statements; index++) {
+			if(index % 100 == 1) {
+				sb.append("-- projects ").append(index).append(" onward\n");
+			}
+			sb.append("INSERT INTO project (project_name, estimated_hours, actual_hours, difficulty, notes)\n")
+					.append("    VALUES ('Project ").append(index).append("', 4.00, 5.50, 3, ")
+					.append("'Cut the boards; sand, then -- stain. It''s done.');\n");
+		}
+		content = sb.toString();
+	}
+
+	@Benchmark
+	public List<String> convertContentToSqlStatements() {
+		return projectService.convertContentToSqlStatements(content);
+	}
+}
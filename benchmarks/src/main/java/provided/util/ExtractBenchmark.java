@@ -0,0 +1,84 @@
+package provided.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import projects.benchmarks.InMemoryResultSet;
+import projects.entity.Project;
+import projects.entity.ProjectRowMapper;
+
+/**
+ * Row mapping without a database: DaoBase.extract against the generated ProjectRowMapper over the
+ * same in-memory rows, plus the name conversion extract relies on. This lives in provided.util so
+ * it can reach the package-private camelCaseToSnakeCase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractBenchmark extends DaoBase {
+
+	private static final String[] COLUMNS = ProjectRowMapper.COLUMNS.split(", ");
+
+	@Param({"1", "100", "10000"})
+	public int rows;
+
+	private ResultSet rs;
+
+	@Setup
+	public void setUp() {
+		Object[][] data = new Object[rows][];
+
+		for(int row = 0; row < rows; row++) {
+			data[row] = new Object[] {row + 1, "Project " + row, 12, 14, row % 10 + 1,
+					"Notes for project " + row};
+		}
+		rs = InMemoryResultSet.of(COLUMNS, data);
+	}
+
+	@Benchmark
+	public void extract(Blackhole bh) throws SQLException {
+		rs.beforeFirst();
+
+		while(rs.next()) {
+			bh.consume(extract(rs, Project.class));
+		}
+	}
+
+	@Benchmark
+	public void generatedRowMapper(Blackhole bh) throws SQLException {
+		rs.beforeFirst();
+
+		while(rs.next()) {
+			bh.consume(ProjectRowMapper.INSTANCE.map(rs));
+		}
+	}
+
+	@Benchmark
+	public String camelCaseToSnakeCase(Identifier name) {
+		return DaoBase.camelCaseToSnakeCase(name.identifier);
+	}
+
+	//kept out of the outer state so the mapping benchmarks are not repeated per identifier
+	@State(Scope.Thread)
+	public static class Identifier {
+		@Param({"estimatedHours", "projectId", "name"})
+		public String identifier;
+	}
+}
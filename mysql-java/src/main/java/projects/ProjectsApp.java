@@ -7,8 +7,10 @@ import java.util.Scanner;
 
 import projects.dao.DbConnection;
 import projects.entity.Project;
+import projects.entity.ProjectSummary;
 import projects.exceptions.DbException;
 import projects.service.ProjectService;
+import projects.service.SearchIndex;
 
 public class ProjectsApp {
 	
@@ -17,12 +19,16 @@ public class ProjectsApp {
 	
 	private ProjectService projectService = new ProjectService();
 	
+	//matches shown per search
+	private static final int SEARCH_RESULTS = 20;
+	
 	// @formatter:off
 	private List<String> operations = List.of(
 			"1) Create and populate all tables.",
 			"2) Add a project.",
 			"3) List projects.",
-			"4) Select a project."
+			"4) Select a project.",
+			"5) Search projects."
 			);
 	private Object currentProject;
 	// @formatter:on
@@ -75,6 +81,10 @@ public class ProjectsApp {
 					setCurrentProject();
 					break;
 					
+				case 5:
+					searchProjects();
+					break;
+					
 				default:
 					System.out.println("\n" + operation + " is not vaild, try again.");
 					break;
@@ -90,14 +100,14 @@ public class ProjectsApp {
 	
 	private void setCurrentProject() {
 		
-		List<Project> projects = listProjects();
+		List<ProjectSummary> projects = listProjects();
 		
 		Integer projectId = getIntInput("Enter project ID");
 		
 		currentProject = null;
 		
-		for(Project project : projects) {
-			if(project.getProjectId().equals(projectId)) {
+		for(ProjectSummary project : projects) {
+			if(project.projectId().equals(projectId)) {
 				currentProject = projectService.fetchProjectById(projectId);
 				break;
 			}
@@ -110,17 +120,31 @@ public class ProjectsApp {
 
 	//------------- METHOD: List Projects -------------------------------------------
 	
-	private List<Project> listProjects() {
+	//summaries only: the list never shows notes or child rows
+	private List<ProjectSummary> listProjects() {
 		
-		List<Project> projects = projectService.fetchProjects();
+		List<ProjectSummary> projects = projectService.fetchProjectSummaries();
 		
 		System.out.println("\nProjects:");
 		
-		projects.forEach(project -> System.out.println("   " + project.getProjectId() + ": " + project.getProjectName()));
+		projects.forEach(project -> System.out.println("   " + project.projectId() + ": " + project.projectName()));
 		
 		return projects;
 	}
 
+	//------------- METHOD: Search Projects -------------------------------------------
+	
+	private void searchProjects() {
+		
+		String query = getStringInput("Enter search words (end a word with * to match its start)");
+		
+		List<SearchIndex.Hit> hits = projectService.searchProjects(query, SEARCH_RESULTS);
+		
+		System.out.println("\nMatches:");
+		
+		hits.forEach(hit -> System.out.println("   " + hit.projectId() + ": " + hit.projectName()));
+	}
+
 	//------------- METHOD: Add Project -------------------------------------------
 
 	private void addProject() {
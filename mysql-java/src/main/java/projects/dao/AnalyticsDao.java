@@ -0,0 +1,361 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import projects.dao.DaoMetrics.Operation;
+import projects.entity.CategoryRollup;
+import projects.entity.ProjectRollup;
+import projects.exceptions.DbException;
+import provided.util.DaoBase;
+import provided.util.RowMapper;
+
+/**
+ * Per-project and per-category totals computed in the database with GROUP BY, so no project graph
+ * is loaded to add things up.
+ *
+ * By default the totals are aggregated from the material and step tables on every call. With the
+ * summary table on (analytics.summaryTable in db.properties, or {@link #enableSummaryTable()}), each
+ * project's material and step totals are kept in project_summary: the DAO writes that change a
+ * project's children recompute its row in the same transaction, and reads join one summary row per
+ * project instead of aggregating the children. With analytics.summaryTable on, the table is rebuilt
+ * by the first rollup read, which is the first time it is known to exist and be current.
+ *
+ * Writes that bypass the DAO (SQL scripts, bulk imports, other clients) leave the summary table
+ * stale; call {@link #rebuildSummaries()} after them.
+ */
+public class AnalyticsDao extends DaoBase {
+
+	public static final String SUMMARY_TABLE = "project_summary";
+
+	//writes keep the summary table current; set before the rebuild so no write is missed
+	private static volatile boolean maintainSummaries = Boolean
+			.parseBoolean(DbConnection.getProperty("analytics.summaryTable", "false"));
+
+	//reads use the summary table; set only once it has been rebuilt
+	private static volatile boolean readSummaries;
+
+	//analytics.summaryTable was on at startup and the table has not been rebuilt since
+	private static volatile boolean rebuildOnFirstRead = maintainSummaries;
+
+	// @formatter:off
+	private static final String MATERIAL_TOTALS = ""
+			+ "(SELECT project_id, SUM(num_required * cost) AS material_cost, COUNT(*) AS material_count "
+			+ "FROM " + ProjectDao.MATERIAL_TABLE + " %s GROUP BY project_id)";
+
+	private static final String STEP_TOTALS = ""
+			+ "(SELECT project_id, COUNT(*) AS step_count "
+			+ "FROM " + ProjectDao.STEP_TABLE + " %s GROUP BY project_id)";
+
+	//the rollup columns, in the order ROLLUP_MAPPER reads them; m and s are the totals above
+	private static final String AGGREGATED_COLUMNS = ""
+			+ "p.project_id, p.project_name, "
+			+ "COALESCE(m.material_cost, 0), COALESCE(m.material_count, 0), COALESCE(s.step_count, 0), "
+			+ "p.estimated_hours, p.actual_hours, p.actual_hours - p.estimated_hours";
+
+	private static final String SUMMARY_COLUMNS = ""
+			+ "p.project_id, p.project_name, "
+			+ "COALESCE(ps.material_cost, 0), COALESCE(ps.material_count, 0), COALESCE(ps.step_count, 0), "
+			+ "p.estimated_hours, p.actual_hours, p.actual_hours - p.estimated_hours";
+
+	private static final String PROJECT_ROLLUPS_SQL = ""
+			+ "SELECT " + AGGREGATED_COLUMNS + " "
+			+ "FROM " + ProjectDao.PROJECT_TABLE + " p "
+			+ "LEFT JOIN " + String.format(MATERIAL_TOTALS, "") + " m ON m.project_id = p.project_id "
+			+ "LEFT JOIN " + String.format(STEP_TOTALS, "") + " s ON s.project_id = p.project_id "
+			+ "ORDER BY p.project_name, p.project_id";
+
+	//the project filter is repeated inside the derived tables so only that project's children are read
+	private static final String PROJECT_ROLLUP_SQL = ""
+			+ "SELECT " + AGGREGATED_COLUMNS + " "
+			+ "FROM " + ProjectDao.PROJECT_TABLE + " p "
+			+ "LEFT JOIN " + String.format(MATERIAL_TOTALS, "WHERE project_id = ?") + " m ON m.project_id = p.project_id "
+			+ "LEFT JOIN " + String.format(STEP_TOTALS, "WHERE project_id = ?") + " s ON s.project_id = p.project_id "
+			+ "WHERE p.project_id = ?";
+
+	private static final String SUMMARY_PROJECT_ROLLUPS_SQL = ""
+			+ "SELECT " + SUMMARY_COLUMNS + " "
+			+ "FROM " + ProjectDao.PROJECT_TABLE + " p "
+			+ "LEFT JOIN " + SUMMARY_TABLE + " ps ON ps.project_id = p.project_id "
+			+ "ORDER BY p.project_name, p.project_id";
+
+	private static final String SUMMARY_PROJECT_ROLLUP_SQL = ""
+			+ "SELECT " + SUMMARY_COLUMNS + " "
+			+ "FROM " + ProjectDao.PROJECT_TABLE + " p "
+			+ "LEFT JOIN " + SUMMARY_TABLE + " ps ON ps.project_id = p.project_id "
+			+ "WHERE p.project_id = ?";
+
+	private static final String CATEGORY_COLUMNS = ""
+			+ "c.category_id, c.category_name, COUNT(p.project_id), "
+			+ "COALESCE(SUM(%s), 0), COALESCE(SUM(%s), 0), "
+			+ "SUM(p.estimated_hours), SUM(p.actual_hours), SUM(p.actual_hours - p.estimated_hours)";
+
+	private static final String CATEGORY_FROM = ""
+			+ "FROM " + ProjectDao.CATEGORY_TABLE + " c "
+			+ "LEFT JOIN " + ProjectDao.PROJECT_CATEGORY_TABLE + " pc ON pc.category_id = c.category_id "
+			+ "LEFT JOIN " + ProjectDao.PROJECT_TABLE + " p ON p.project_id = pc.project_id ";
+
+	private static final String CATEGORY_GROUP = ""
+			+ "GROUP BY c.category_id, c.category_name "
+			+ "ORDER BY c.category_name, c.category_id";
+
+	private static final String CATEGORY_ROLLUPS_SQL = ""
+			+ "SELECT " + String.format(CATEGORY_COLUMNS, "m.material_cost", "s.step_count") + " "
+			+ CATEGORY_FROM
+			+ "LEFT JOIN " + String.format(MATERIAL_TOTALS, "") + " m ON m.project_id = p.project_id "
+			+ "LEFT JOIN " + String.format(STEP_TOTALS, "") + " s ON s.project_id = p.project_id "
+			+ CATEGORY_GROUP;
+
+	private static final String SUMMARY_CATEGORY_ROLLUPS_SQL = ""
+			+ "SELECT " + String.format(CATEGORY_COLUMNS, "ps.material_cost", "ps.step_count") + " "
+			+ CATEGORY_FROM
+			+ "LEFT JOIN " + SUMMARY_TABLE + " ps ON ps.project_id = p.project_id "
+			+ CATEGORY_GROUP;
+
+	//recomputes the summary rows of the projects matched by %s, inserting or replacing them
+	private static final String UPSERT_SUMMARIES_SQL = ""
+			+ "INSERT INTO " + SUMMARY_TABLE + " (project_id, material_cost, material_count, step_count) "
+			+ "SELECT * FROM ("
+			+ "SELECT p.project_id, COALESCE(m.material_cost, 0) AS material_cost, "
+			+ "COALESCE(m.material_count, 0) AS material_count, COALESCE(s.step_count, 0) AS step_count "
+			+ "FROM " + ProjectDao.PROJECT_TABLE + " p "
+			+ "LEFT JOIN " + String.format(MATERIAL_TOTALS, "%1$s") + " m ON m.project_id = p.project_id "
+			+ "LEFT JOIN " + String.format(STEP_TOTALS, "%1$s") + " s ON s.project_id = p.project_id "
+			+ "%2$s"
+			+ ") AS totals "
+			+ "ON DUPLICATE KEY UPDATE material_cost = totals.material_cost, "
+			+ "material_count = totals.material_count, step_count = totals.step_count";
+	// @formatter:on
+
+	private static final String REBUILD_SUMMARIES_SQL = String.format(UPSERT_SUMMARIES_SQL, "", "");
+
+	//--------- METHOD: Project Rollups ------------------------------------------
+
+	//every project's totals, ordered by name
+	public List<ProjectRollup> fetchProjectRollups() {
+
+		String sql = useSummaries() ? SUMMARY_PROJECT_ROLLUPS_SQL : PROJECT_ROLLUPS_SQL;
+
+		return DaoMetrics.timed(Operation.FETCH_PROJECT_ROLLUPS, () -> {
+			try(Connection conn = DbConnection.getReadConnection()){
+				try(PreparedStatement stmt = conn.prepareStatement(sql)){
+					try(ResultSet rs = stmt.executeQuery()){
+						List<ProjectRollup> rollups = new ArrayList<>();
+
+						while(rs.next()) {
+							rollups.add(DaoMetrics.map(ROLLUP_MAPPER, rs));
+						}
+						return rollups;
+					}
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+
+	public Optional<ProjectRollup> fetchProjectRollup(Integer projectId) {
+
+		boolean summaries = useSummaries();
+		String sql = summaries ? SUMMARY_PROJECT_ROLLUP_SQL : PROJECT_ROLLUP_SQL;
+
+		return DaoMetrics.timed(Operation.FETCH_PROJECT_ROLLUPS, () -> {
+			try(Connection conn = DbConnection.getReadConnection()){
+				try(PreparedStatement stmt = conn.prepareStatement(sql)){
+					int parameters = summaries ? 1 : 3;
+
+					for(int index = 1; index <= parameters; index++) {
+						setParameter(stmt, index, projectId, Integer.class);
+					}
+
+					try(ResultSet rs = stmt.executeQuery()){
+						return rs.next() ? Optional.of(DaoMetrics.map(ROLLUP_MAPPER, rs)) : Optional.empty();
+					}
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+
+	private static final RowMapper<ProjectRollup> ROLLUP_MAPPER = new RowMapper<>() {
+
+		@Override
+		public ProjectRollup map(ResultSet rs, int offset) throws SQLException {
+			// @formatter:off
+			return new ProjectRollup(
+					rs.getInt(offset),
+					rs.getString(offset + 1),
+					rs.getBigDecimal(offset + 2),
+					rs.getInt(offset + 3),
+					rs.getInt(offset + 4),
+					rs.getBigDecimal(offset + 5),
+					rs.getBigDecimal(offset + 6),
+					rs.getBigDecimal(offset + 7));
+			// @formatter:on
+		}
+
+		@Override
+		public int columnCount() {
+			return 8;
+		}
+	};
+
+	//--------- METHOD: Category Rollups -----------------------------------------
+
+	//every category's totals, ordered by name; categories with no projects have zero totals
+	public List<CategoryRollup> fetchCategoryRollups() {
+
+		String sql = useSummaries() ? SUMMARY_CATEGORY_ROLLUPS_SQL : CATEGORY_ROLLUPS_SQL;
+
+		return DaoMetrics.timed(Operation.FETCH_CATEGORY_ROLLUPS, () -> {
+			try(Connection conn = DbConnection.getReadConnection()){
+				try(PreparedStatement stmt = conn.prepareStatement(sql)){
+					try(ResultSet rs = stmt.executeQuery()){
+						List<CategoryRollup> rollups = new ArrayList<>();
+
+						while(rs.next()) {
+							rollups.add(DaoMetrics.map(CATEGORY_ROLLUP_MAPPER, rs));
+						}
+						return rollups;
+					}
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+
+	private static final RowMapper<CategoryRollup> CATEGORY_ROLLUP_MAPPER = new RowMapper<>() {
+
+		@Override
+		public CategoryRollup map(ResultSet rs, int offset) throws SQLException {
+			// @formatter:off
+			return new CategoryRollup(
+					rs.getInt(offset),
+					rs.getString(offset + 1),
+					rs.getInt(offset + 2),
+					rs.getBigDecimal(offset + 3),
+					rs.getLong(offset + 4),
+					rs.getBigDecimal(offset + 5),
+					rs.getBigDecimal(offset + 6),
+					rs.getBigDecimal(offset + 7));
+			// @formatter:on
+		}
+
+		@Override
+		public int columnCount() {
+			return 8;
+		}
+	};
+
+	//--------- METHOD: Summary Table --------------------------------------------
+
+	//true once reads come from the summary table, which is then current
+	public static boolean isSummaryTableEnabled() {
+		return readSummaries;
+	}
+
+	/**
+	 * Starts keeping the summary table current on every DAO write, rebuilds it, then reads from it.
+	 * Writes are maintained from before the rebuild starts, so none is missed.
+	 */
+	public void enableSummaryTable() {
+		synchronized(AnalyticsDao.class) {
+			maintainSummaries = true;
+			rebuildSummaries();
+			readSummaries = true;
+			rebuildOnFirstRead = false;
+		}
+	}
+
+	//rollups are aggregated from the child tables again and writes stop maintaining the table
+	public void disableSummaryTable() {
+		synchronized(AnalyticsDao.class) {
+			rebuildOnFirstRead = false;
+			readSummaries = false;
+			maintainSummaries = false;
+		}
+	}
+
+	/*
+	 * Whether this read can use the summary table. With analytics.summaryTable on, the first read
+	 * rebuilds the table before using it; until the rebuild succeeds (the table may not have been
+	 * migrated in yet) reads aggregate the child tables and the next read tries again.
+	 */
+	private boolean useSummaries() {
+		if(rebuildOnFirstRead) {
+			synchronized(AnalyticsDao.class) {
+				if(rebuildOnFirstRead) {
+					try {
+						enableSummaryTable();
+					} catch (DbException e) {
+						return false;
+					}
+				}
+			}
+		}
+		return readSummaries;
+	}
+
+	/**
+	 * Recomputes every project's summary row in one statement. Rows of deleted projects go with
+	 * them through the foreign key, so only inserts and updates are needed.
+	 */
+	public void rebuildSummaries() {
+
+		DaoMetrics.timed(Operation.REBUILD_SUMMARIES, () -> {
+			try(Connection conn = DbConnection.getConnection()){
+				try(Statement stmt = conn.createStatement()){
+					stmt.executeUpdate(REBUILD_SUMMARIES_SQL);
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+
+	/*
+	 * Called by the DAO writes inside their transaction, after they have changed these projects'
+	 * children, so the summary rows commit or roll back with the change. Does nothing while the
+	 * summary table is off.
+	 */
+	static void refreshSummaries(Connection conn, Collection<Integer> projectIds) throws SQLException {
+
+		if(!maintainSummaries || projectIds.isEmpty()) {
+			return;
+		}
+
+		List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(projectIds));
+		int chunkSize = DbConnection.getInt("dao.batchChunkSize", 500);
+
+		for(int from = 0; from < ids.size(); from += chunkSize) {
+			List<Integer> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+			String in = "IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+			String sql = String.format(UPSERT_SUMMARIES_SQL, "WHERE project_id " + in, "WHERE p.project_id " + in);
+
+			try(PreparedStatement stmt = conn.prepareStatement(sql)){
+				int index = 1;
+
+				//the IDs are bound three times: material totals, step totals, projects
+				for(int copy = 0; copy < 3; copy++) {
+					for(Integer id : chunk) {
+						stmt.setInt(index++, Objects.requireNonNull(id));
+					}
+				}
+				stmt.executeUpdate();
+			}
+		}
+	}
+}
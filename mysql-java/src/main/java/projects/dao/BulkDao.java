@@ -0,0 +1,248 @@
+package projects.dao;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+
+import projects.dao.DaoMetrics.Operation;
+import projects.exceptions.DbException;
+import provided.util.DaoBase;
+
+/**
+ * Moves whole tables to and from delimited text, for cloning an environment or taking a backup
+ * without going through one INSERT per row.
+ *
+ * The format is the LOAD DATA default: one line per row, columns separated by tabs, with tab,
+ * newline, carriage return, backslash and NUL escaped by a backslash and NULL written as \N. The
+ * first line names the columns, so a file loads correctly even if the table's column order has
+ * changed.
+ *
+ * Export streams the table row by row from the server and never holds it in memory. Import sends the
+ * caller's input stream straight to the server with LOAD DATA LOCAL INFILE, with no temporary copy.
+ * LOAD DATA LOCAL must be enabled on the server (local_infile=ON). On the client it is enabled only
+ * on the dedicated, unpooled connection each import opens, and that connection only ever sends the
+ * stream it was given.
+ */
+public class BulkDao extends DaoBase {
+
+	private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_]+");
+
+	private static final String LOCAL_INFILE_OPTIONS = "allowLoadLocalInfile=true&allowUrlInLocalInfile=false";
+
+	private static final int MAX_WARNINGS_REPORTED = 10;
+
+	//--------- METHOD: Export -------------------------------------------------
+
+	/**
+	 * Writes every row of the table to out, header line first. The stream is flushed but not closed.
+	 *
+	 * The rows come from one SELECT, so they are a consistent snapshot of the table, but each call is
+	 * its own snapshot. They are read through {@link DbConnection#getReadConnection()}, so with a
+	 * replica configured an export can be up to replica.maxLagSeconds behind the primary. That keeps
+	 * a full-table scan off the primary. Right after this thread wrote, and whenever the replica lags
+	 * further, the export reads the primary.
+	 *
+	 * @return The number of rows written.
+	 */
+	public long exportTable(String table, OutputStream out) {
+
+		String sql = "SELECT * FROM " + identifier(table);
+
+		return DaoMetrics.timed(Operation.EXPORT_TABLE, () -> {
+			try(Connection conn = DbConnection.getReadConnection()){
+				try(Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)){
+
+					//Integer.MIN_VALUE is the Connector/J signal to stream rows one at a time
+					stmt.setFetchSize(Integer.MIN_VALUE);
+
+					try(ResultSet rs = stmt.executeQuery(sql)){
+						Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+						ResultSetMetaData meta = rs.getMetaData();
+						int columns = meta.getColumnCount();
+
+						for(int column = 1; column <= columns; column++) {
+							if(column > 1) {
+								writer.write('\t');
+							}
+							writer.write(meta.getColumnLabel(column));
+						}
+						writer.write('\n');
+
+						long rows = 0;
+
+						while(rs.next()) {
+							for(int column = 1; column <= columns; column++) {
+								if(column > 1) {
+									writer.write('\t');
+								}
+								writeField(writer, rs.getString(column));
+							}
+							writer.write('\n');
+							rows++;
+						}
+
+						writer.flush();
+						return rows;
+					}
+				}
+			} catch (SQLException | IOException e) {
+				throw new DbException("Unable to export table " + table, e);
+			}
+		});
+	}
+
+	private void writeField(Writer writer, String value) throws IOException {
+
+		if(value == null) {
+			writer.write("\\N");
+			return;
+		}
+
+		for(int index = 0; index < value.length(); index++) {
+			char c = value.charAt(index);
+
+			switch(c) {
+			case '\\':
+				writer.write("\\\\");
+				break;
+			case '\t':
+				writer.write("\\t");
+				break;
+			case '\n':
+				writer.write("\\n");
+				break;
+			case '\r':
+				writer.write("\\r");
+				break;
+			case '\0':
+				writer.write("\\0");
+				break;
+			default:
+				writer.write(c);
+				break;
+			}
+		}
+	}
+
+	//--------- METHOD: Import -------------------------------------------------
+
+	/**
+	 * Loads a file written by {@link #exportTable(String, OutputStream)} into the table, appending to
+	 * what is there. The stream is read to the end but not closed. With relaxChecks, foreign key and
+	 * unique checks are off for the load; only use it for data known to be consistent.
+	 *
+	 * LOAD DATA LOCAL does not stop at bad rows: it truncates or converts values that do not fit and
+	 * skips duplicate keys, reporting each as a warning. The load runs in one transaction, and if it
+	 * raised any warning it is rolled back and a DbException lists them.
+	 *
+	 * @return The number of rows loaded.
+	 */
+	public long importTable(String table, InputStream in, boolean relaxChecks) {
+
+		return DaoMetrics.timed(Operation.IMPORT_TABLE, () -> {
+			try(Connection conn = DbConnection.openUnpooled(LOCAL_INFILE_OPTIONS)){
+
+				List<String> columns = readHeader(in);
+
+				for(String column : columns) {
+					identifier(column);
+				}
+
+				// @formatter:off
+				String sql = "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + identifier(table) + " "
+						+ "CHARACTER SET utf8mb4 "
+						+ "(" + String.join(", ", columns) + ")";
+				// @formatter:on
+
+				try(Statement stmt = conn.createStatement()){
+					if(relaxChecks) {
+						stmt.execute("SET foreign_key_checks = 0, unique_checks = 0");
+					}
+
+					//the driver sends this stream when the server asks for the file
+					stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(in);
+
+					startTransaction(conn);
+
+					try {
+						long rows = stmt.executeLargeUpdate(sql);
+						SQLWarning warnings = stmt.getWarnings();
+
+						if(Objects.nonNull(warnings)) {
+							throw new DbException("Import of table " + table + " rolled back: " + describe(warnings));
+						}
+
+						commitTransaction(conn);
+						return rows;
+
+					} catch (Exception e) {
+						rollbackTransaction(conn);
+						throw e;
+					}
+				}
+			} catch (SQLException | IOException e) {
+				throw new DbException("Unable to import table " + table, e);
+			}
+		});
+	}
+
+	//the first few warnings and how many there were in all
+	private String describe(SQLWarning warnings) {
+
+		List<String> messages = new ArrayList<>();
+		int count = 0;
+
+		for(SQLWarning warning = warnings; Objects.nonNull(warning); warning = warning.getNextWarning()) {
+			if(count++ < MAX_WARNINGS_REPORTED) {
+				messages.add(warning.getErrorCode() + " " + warning.getMessage());
+			}
+		}
+
+		String more = count > MAX_WARNINGS_REPORTED ? "; and " + (count - MAX_WARNINGS_REPORTED) + " more" : "";
+		return count + " warning(s): " + String.join("; ", messages) + more;
+	}
+
+	//reads exactly the header line, leaving the stream at the first row for the driver
+	private List<String> readHeader(InputStream in) throws IOException {
+
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int b;
+
+		while((b = in.read()) != -1 && b != '\n') {
+			line.write(b);
+		}
+
+		String header = line.toString(StandardCharsets.UTF_8).strip();
+
+		if(header.isEmpty()) {
+			throw new DbException("Import file has no header line.");
+		}
+		return Arrays.asList(header.split("\t"));
+	}
+
+	//table and column names are spliced into SQL, so only plain identifiers are accepted
+	private String identifier(String name) {
+		if(!IDENTIFIER.matcher(name).matches()) {
+			throw new DbException("Not a valid table or column name: '" + name + "'");
+		}
+		return name;
+	}
+}
@@ -0,0 +1,158 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import projects.entity.Category;
+import projects.entity.CategoryRowMapper;
+import projects.exceptions.DbException;
+
+/**
+ * The whole category table held in memory. The table is small and rarely changes, so project
+ * fetches read only category IDs from project_category and resolve them here instead of joining
+ * and sorting on every fetch.
+ *
+ * The dictionary loads on first use and reloads when asked to, when it is marked stale, or when it
+ * is asked for an ID it does not have (a category added since the last load). Each load replaces an
+ * unmodifiable snapshot of immutable entries, so readers never lock. Category itself is a mutable
+ * entity, so every lookup hands out new ones.
+ *
+ * Categories come back in the order the table was loaded, ORDER BY category_name, so they sort by
+ * the column's collation exactly as the joined query did rather than by a Java approximation of it.
+ */
+public class CategoryDictionary {
+
+	// @formatter:off
+	private static final String ALL_CATEGORIES_SQL = ""
+			+ "SELECT " + CategoryRowMapper.COLUMNS + " FROM " + ProjectDao.CATEGORY_TABLE + " "
+			+ "ORDER BY category_name, category_id";
+	// @formatter:on
+
+	private volatile Snapshot snapshot;
+
+	//--------- METHOD: Resolve ------------------------------------------------
+
+	/**
+	 * Returns the categories with the given IDs, sorted by name as the database sorts them. IDs not in
+	 * the table are skipped.
+	 */
+	public List<Category> resolve(Connection conn, Collection<Integer> categoryIds) throws SQLException {
+
+		Snapshot current = current(conn);
+
+		if(!current.byId.keySet().containsAll(categoryIds)) {
+			current = reload(conn);
+		}
+
+		Map<Integer, Entry> byId = current.byId;
+
+		return categoryIds.stream().map(byId::get).filter(Objects::nonNull)
+				.sorted(Comparator.comparingInt(Entry::rank)).map(Entry::toCategory).collect(Collectors.toList());
+	}
+
+	/**
+	 * Maps category names (case-insensitively) to their IDs in one pass. Names with no category are
+	 * left out of the result.
+	 */
+	public Map<String, Integer> resolveIds(Connection conn, Collection<String> names) throws SQLException {
+
+		Snapshot current = current(conn);
+
+		if(!names.stream().map(this::key).allMatch(current.idByName::containsKey)) {
+			current = reload(conn);
+		}
+
+		Map<String, Integer> ids = new LinkedHashMap<>();
+
+		for(String name : names) {
+			Integer id = current.idByName.get(key(name));
+
+			if(Objects.nonNull(id)) {
+				ids.put(name, id);
+			}
+		}
+		return ids;
+	}
+
+	//--------- METHOD: Refresh ------------------------------------------------
+
+	public void refresh() {
+		try(Connection conn = DbConnection.getConnection()){
+			reload(conn);
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	//the next lookup reloads; cheaper than refresh() when nothing may need the table soon
+	public void markStale() {
+		snapshot = null;
+	}
+
+	//--------- METHOD: Load ---------------------------------------------------
+
+	private Snapshot current(Connection conn) throws SQLException {
+		Snapshot current = snapshot;
+		return Objects.nonNull(current) ? current : reload(conn);
+	}
+
+	private Snapshot reload(Connection conn) throws SQLException {
+
+		Map<Integer, Entry> byId = new HashMap<>();
+		Map<String, Integer> idByName = new HashMap<>();
+
+		try(PreparedStatement stmt = conn.prepareStatement(ALL_CATEGORIES_SQL)){
+			try(ResultSet rs = stmt.executeQuery()){
+				while(rs.next()) {
+					Category category = DaoMetrics.map(CategoryRowMapper.INSTANCE, rs);
+					byId.put(category.getCategoryId(),
+							new Entry(byId.size(), category.getCategoryId(), category.getCategoryName()));
+					idByName.putIfAbsent(key(category.getCategoryName()), category.getCategoryId());
+				}
+			}
+		}
+
+		Snapshot loaded = new Snapshot(byId, idByName);
+		snapshot = loaded;
+		return loaded;
+	}
+
+	private String key(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	//--------- CLASS: Snapshot ------------------------------------------------
+
+	//rank is the category's place in the ORDER BY category_name load
+	private record Entry(int rank, Integer categoryId, String categoryName) {
+
+		Category toCategory() {
+			Category category = new Category();
+			category.setCategoryId(categoryId);
+			category.setCategoryName(categoryName);
+			return category;
+		}
+	}
+
+	private static class Snapshot {
+		private final Map<Integer, Entry> byId;
+		private final Map<String, Integer> idByName;
+
+		Snapshot(Map<Integer, Entry> byId, Map<String, Integer> idByName) {
+			this.byId = Collections.unmodifiableMap(byId);
+			this.idByName = Collections.unmodifiableMap(idByName);
+		}
+	}
+}
@@ -0,0 +1,323 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import projects.exceptions.DbException;
+
+/**
+ * A small bounded JDBC connection pool. Physical connections are opened through
+ * {@link DriverManager} and handed out wrapped in a proxy whose {@code close()} returns the
+ * connection to the pool instead of closing it, so callers keep using try-with-resources.
+ */
+public class ConnectionPool implements AutoCloseable {
+	
+	private final String url;
+	private final String user;
+	private final String password;
+	private final int minSize;
+	private final int maxSize;
+	private final long acquireTimeoutMillis;
+	private final long idleTimeoutMillis;
+	private final long validationIntervalMillis;
+	private final int validationTimeoutSeconds;
+	
+	//idle connections, most recently returned at the head so hot connections are reused first
+	private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+	
+	//one permit per borrowed connection; caps how many callers hold a connection at once
+	private final Semaphore permits;
+	private final AtomicInteger openCount = new AtomicInteger();
+	private final ScheduledExecutorService evictor;
+	
+	private volatile boolean closed;
+	
+	public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+			long acquireTimeoutMillis, long idleTimeoutMillis, long validationIntervalMillis,
+			int validationTimeoutSeconds) {
+		
+		if(minSize < 0 || maxSize < 1 || minSize > maxSize) {
+			throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+		}
+		
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.acquireTimeoutMillis = acquireTimeoutMillis;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.validationIntervalMillis = validationIntervalMillis;
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+		this.permits = new Semaphore(maxSize, true);
+		
+		this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-pool-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		long period = Math.max(1000, idleTimeoutMillis / 2);
+		evictor.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+	}
+	
+	//--------- METHOD: Get Connection ----------------------------------------
+	
+	/**
+	 * Borrows a connection, waiting up to the acquire timeout for one to become free.
+	 */
+	public Connection getConnection() {
+		
+		if(closed) {
+			throw new DbException("Connection pool is closed.");
+		}
+		
+		try {
+			if(!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new DbException("Timed out after " + acquireTimeoutMillis
+						+ "ms waiting for a connection (max pool size " + maxSize + ").");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrupted while waiting for a connection.", e);
+		}
+		
+		try {
+			PooledEntry entry;
+			
+			//reuse an idle connection if one passes validation, otherwise open a new one
+			while((entry = idle.pollFirst()) != null) {
+				if(isUsable(entry)) {
+					return entry.lend();
+				}
+				closePhysical(entry);
+			}
+			
+			return openPhysical().lend();
+			
+		} catch (RuntimeException | SQLException e) {
+			permits.release();
+			throw e instanceof DbException ? (DbException)e : new DbException(e);
+		}
+	}
+	
+	//--------- METHOD: Stats -------------------------------------------------
+	
+	public int getOpenCount() {
+		return openCount.get();
+	}
+	
+	public int getIdleCount() {
+		return idle.size();
+	}
+	
+	public int getMaxSize() {
+		return maxSize;
+	}
+	
+	//--------- METHOD: Close -------------------------------------------------
+	
+	@Override
+	public void close() {
+		closed = true;
+		evictor.shutdownNow();
+		
+		PooledEntry entry;
+		
+		while((entry = idle.pollFirst()) != null) {
+			closePhysical(entry);
+		}
+	}
+	
+	//--------- METHOD: Validation --------------------------------------------
+	
+	private boolean isUsable(PooledEntry entry) {
+		
+		//skip the ping for connections that were in use a moment ago
+		if(System.currentTimeMillis() - entry.lastUsed < validationIntervalMillis) {
+			return true;
+		}
+		
+		try {
+			return entry.physical.isValid(validationTimeoutSeconds);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+	
+	//--------- METHOD: Open / Close Physical ---------------------------------
+	
+	private PooledEntry openPhysical() throws SQLException {
+		Connection physical = DriverManager.getConnection(url, user, password);
+		openCount.incrementAndGet();
+		return new PooledEntry(physical);
+	}
+	
+	private void closePhysical(PooledEntry entry) {
+		openCount.decrementAndGet();
+		
+		try {
+			entry.physical.close();
+		} catch (SQLException e) {
+			//the connection is being discarded anyway
+		}
+	}
+	
+	//--------- METHOD: Release -----------------------------------------------
+	
+	private void release(PooledEntry entry) {
+		
+		try {
+			boolean reusable = !closed && !entry.physical.isClosed() && reset(entry.physical);
+			
+			if(reusable) {
+				entry.lastUsed = System.currentTimeMillis();
+				idle.offerFirst(entry);
+			} else {
+				closePhysical(entry);
+			}
+		} catch (SQLException e) {
+			closePhysical(entry);
+		} finally {
+			permits.release();
+		}
+	}
+	
+	/*
+	 * Undo anything the borrower left behind so the next borrower starts clean. An uncommitted
+	 * transaction is rolled back rather than committed. Session variables are not reset; a borrower
+	 * that changed one and cannot put it back aborts the connection, and release discards it.
+	 */
+	private boolean reset(Connection physical) {
+		
+		try {
+			if(!physical.getAutoCommit()) {
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+			
+			if(physical.isReadOnly()) {
+				physical.setReadOnly(false);
+			}
+			
+			physical.clearWarnings();
+			return true;
+			
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+	
+	//--------- METHOD: Maintain ----------------------------------------------
+	
+	/*
+	 * Runs on the evictor thread: closes connections idle past the timeout while keeping at least
+	 * minSize open, then tops the pool back up to minSize.
+	 */
+	private void maintain() {
+		
+		long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+		
+		for(Iterator<PooledEntry> it = idle.descendingIterator(); it.hasNext();) {
+			PooledEntry entry = it.next();
+			
+			if(openCount.get() > minSize && entry.lastUsed < cutoff && idle.remove(entry)) {
+				closePhysical(entry);
+			}
+		}
+		
+		while(!closed && openCount.get() < minSize && permits.tryAcquire()) {
+			try {
+				PooledEntry entry = openPhysical();
+				idle.offerLast(entry);
+			} catch (SQLException e) {
+				//the database may be down; try again on the next run
+				break;
+			} finally {
+				permits.release();
+			}
+		}
+	}
+	
+	//--------- CLASS: Pooled Entry -------------------------------------------
+	
+	private class PooledEntry {
+		private final Connection physical;
+		private volatile long lastUsed = System.currentTimeMillis();
+		
+		PooledEntry(Connection physical) {
+			this.physical = physical;
+		}
+		
+		Connection lend() {
+			return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] {Connection.class}, new LeaseHandler(this));
+		}
+	}
+	
+	//--------- CLASS: Lease Handler ------------------------------------------
+	
+	/*
+	 * Forwards calls to the physical connection until the borrower closes it. Closing hands the
+	 * connection back to the pool exactly once; later calls behave like a closed connection.
+	 */
+	private class LeaseHandler implements InvocationHandler {
+		private final PooledEntry entry;
+		private boolean returned;
+		
+		LeaseHandler(PooledEntry entry) {
+			this.entry = entry;
+		}
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			
+			switch(method.getName()) {
+			case "close":
+				if(!returned) {
+					returned = true;
+					release(entry);
+				}
+				return null;
+				
+			case "isClosed":
+				return returned || entry.physical.isClosed();
+				
+			case "equals":
+				return proxy == args[0];
+				
+			case "hashCode":
+				return System.identityHashCode(proxy);
+				
+			case "toString":
+				return "Pooled" + entry.physical;
+				
+			default:
+				break;
+			}
+			
+			if(returned) {
+				throw new SQLException("Connection has been returned to the pool.");
+			}
+			
+			try {
+				return method.invoke(entry.physical, args);
+			} catch (InvocationTargetException e) {
+				throw Objects.requireNonNullElse(e.getCause(), e);
+			}
+		}
+	}
+}
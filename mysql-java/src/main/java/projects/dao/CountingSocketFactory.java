@@ -0,0 +1,72 @@
+package projects.dao;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+
+import com.mysql.cj.conf.PropertySet;
+import com.mysql.cj.protocol.StandardSocketFactory;
+
+/**
+ * The driver's standard socket factory with every byte read from the server reported to
+ * {@link DaoMetrics}. Connector/J reads on the thread that runs the statement, so the bytes are
+ * charged to the DAO operation running on that thread.
+ *
+ * Installed through the socketFactory URL option by {@link DbConnection} when metrics are on.
+ */
+public class CountingSocketFactory extends StandardSocketFactory {
+
+	@Override
+	protected Socket createSocket(PropertySet props) {
+		return new CountingSocket();
+	}
+
+	//--------- CLASS: Counting Socket -----------------------------------------
+
+	private static class CountingSocket extends Socket {
+		private InputStream in;
+
+		@Override
+		public synchronized InputStream getInputStream() throws IOException {
+			if(in == null) {
+				in = new CountingInputStream(super.getInputStream());
+			}
+			return in;
+		}
+	}
+
+	private static class CountingInputStream extends FilterInputStream {
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int value = super.read();
+
+			if(value >= 0) {
+				DaoMetrics.bytesRead(1);
+			}
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int count = super.read(buffer, offset, length);
+
+			if(count > 0) {
+				DaoMetrics.bytesRead(count);
+			}
+			return count;
+		}
+
+		@Override
+		public long skip(long count) throws IOException {
+			long skipped = super.skip(count);
+			DaoMetrics.bytesRead(skipped);
+			return skipped;
+		}
+	}
+}
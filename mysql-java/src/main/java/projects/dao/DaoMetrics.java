@@ -0,0 +1,483 @@
+package projects.dao;
+
+import java.lang.management.ManagementFactory;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import projects.exceptions.DbException;
+import provided.util.RowMapper;
+
+/**
+ * Latency histograms and counters for the DAO layer: how long connection acquires, each DAO
+ * operation, commits and row mapping take, how many rows were extracted and how many bytes were read
+ * from the server.
+ *
+ * Metrics are off unless metrics.enabled is set in db.properties or {@link #setEnabled(boolean)} is
+ * called. While off, timing an operation is one volatile read and returns a shared no-op sample, so
+ * the instrumented code costs effectively nothing. Bytes read are counted by
+ * {@link CountingSocketFactory}, which is only installed when metrics are on as the pool is created.
+ *
+ * Everything is readable through {@link #snapshot()} and over JMX under projects.dao:type=DaoMetrics.
+ */
+public final class DaoMetrics {
+
+	/**
+	 * What is being timed. The DAO operations include the time to acquire their connection, which is
+	 * also recorded on its own as CONNECTION_ACQUIRE.
+	 */
+	public enum Operation {
+		CONNECTION_ACQUIRE,
+		COMMIT,
+		ROW_MAPPING,
+		FETCH_PROJECT_BY_ID,
+		FETCH_PROJECTS_BY_IDS,
+		FETCH_ALL_PROJECTS,
+		FETCH_PROJECT_SUMMARIES,
+		STREAM_ALL_PROJECTS,
+		FETCH_PROJECT_PAGE,
+		INSERT_PROJECT,
+		INSERT_PROJECTS,
+		UPDATE_PROJECT,
+		SAVE_PROJECT,
+		EXECUTE_BATCH,
+		EXPORT_TABLE,
+		IMPORT_TABLE,
+		FETCH_PROJECT_ROLLUPS,
+		FETCH_CATEGORY_ROLLUPS,
+		REBUILD_SUMMARIES
+	}
+
+	private static final String JMX_DOMAIN = "projects.dao";
+
+	private static final Map<Operation, OperationMetrics> OPERATIONS = new EnumMap<>(Operation.class);
+
+	static {
+		for(Operation operation : Operation.values()) {
+			OPERATIONS.put(operation, new OperationMetrics());
+		}
+	}
+
+	private static final OperationMetrics ROW_MAPPING = OPERATIONS.get(Operation.ROW_MAPPING);
+
+	private static final LongAdder ROWS_EXTRACTED = new LongAdder();
+	private static final LongAdder BYTES_READ = new LongAdder();
+
+	//rows and bytes seen by the current thread so far; a sample reports the difference
+	private static final ThreadLocal<long[]> THREAD_TOTALS = ThreadLocal.withInitial(() -> new long[2]);
+	private static final int ROWS = 0;
+	private static final int BYTES = 1;
+
+	private static volatile boolean enabled = Boolean.parseBoolean(DbConnection.getProperty("metrics.enabled", "false"));
+	private static boolean registered;
+
+	static {
+		if(enabled) {
+			registerMBeans();
+		}
+	}
+
+	private DaoMetrics() {
+	}
+
+	//--------- METHOD: Enable -------------------------------------------------
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		if(enabled) {
+			registerMBeans();
+		}
+		DaoMetrics.enabled = enabled;
+	}
+
+	public static void reset() {
+		OPERATIONS.values().forEach(OperationMetrics::reset);
+		ROWS_EXTRACTED.reset();
+		BYTES_READ.reset();
+	}
+
+	//--------- METHOD: Record -------------------------------------------------
+
+	/**
+	 * Starts timing an operation. Close the sample (try-with-resources) when the operation ends; the
+	 * time, rows and bytes in between are recorded against it.
+	 */
+	public static Sample start(Operation operation) {
+		return enabled ? new Sample(OPERATIONS.get(operation), THREAD_TOTALS.get()) : Sample.NONE;
+	}
+
+	/**
+	 * Runs work as one timed operation and returns its result; whatever it throws is rethrown. Use it
+	 * instead of a Sample in try-with-resources where the body never refers to the sample, which the
+	 * try lint reports.
+	 */
+	@SuppressWarnings("try")
+	public static <T, E extends Exception> T timed(Operation operation, TimedWork<T, E> work) throws E {
+		try(Sample sample = start(operation)){
+			return work.call();
+		}
+	}
+
+	//the same for work with no result
+	public static <E extends Exception> void timed(Operation operation, TimedAction<E> work) throws E {
+		timed(operation, () -> {
+			work.run();
+			return null;
+		});
+	}
+
+	@FunctionalInterface
+	public interface TimedWork<T, E extends Exception> {
+		T call() throws E;
+	}
+
+	@FunctionalInterface
+	public interface TimedAction<E extends Exception> {
+		void run() throws E;
+	}
+
+	//maps one row, timing it and counting it as extracted
+	public static <T> T map(RowMapper<T> mapper, ResultSet rs) throws SQLException {
+		return map(mapper, rs, 1);
+	}
+
+	public static <T> T map(RowMapper<T> mapper, ResultSet rs, int offset) throws SQLException {
+
+		if(!enabled) {
+			return mapper.map(rs, offset);
+		}
+
+		long start = System.nanoTime();
+		T row = mapper.map(rs, offset);
+
+		ROW_MAPPING.latency.record(System.nanoTime() - start);
+		ROW_MAPPING.rows.increment();
+		ROWS_EXTRACTED.increment();
+		THREAD_TOTALS.get()[ROWS]++;
+
+		return row;
+	}
+
+	//called by CountingSocketFactory for every read from the server
+	static void bytesRead(long bytes) {
+		if(enabled) {
+			BYTES_READ.add(bytes);
+			THREAD_TOTALS.get()[BYTES] += bytes;
+		}
+	}
+
+	//--------- METHOD: Snapshot -----------------------------------------------
+
+	public static Snapshot snapshot() {
+
+		Map<Operation, OperationSnapshot> operations = new EnumMap<>(Operation.class);
+
+		for(Map.Entry<Operation, OperationMetrics> entry : OPERATIONS.entrySet()) {
+			operations.put(entry.getKey(), entry.getValue().snapshot());
+		}
+		return new Snapshot(operations, ROWS_EXTRACTED.sum(), BYTES_READ.sum());
+	}
+
+	//--------- METHOD: JMX ----------------------------------------------------
+
+	private static synchronized void registerMBeans() {
+
+		if(registered) {
+			return;
+		}
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		try {
+			register(server, new ObjectName(JMX_DOMAIN + ":type=DaoMetrics"), new MetricsBean());
+
+			for(Operation operation : Operation.values()) {
+				ObjectName name = new ObjectName(JMX_DOMAIN + ":type=DaoMetrics,operation=" + operation.name());
+				register(server, name, new OperationBean(operation));
+			}
+		} catch (JMException e) {
+			throw new DbException("Unable to register DAO metrics with JMX.", e);
+		}
+		registered = true;
+	}
+
+	private static void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+		if(!server.isRegistered(name)) {
+			server.registerMBean(bean, name);
+		}
+	}
+
+	//--------- CLASS: Sample --------------------------------------------------
+
+	public static final class Sample implements AutoCloseable {
+		private static final Sample NONE = new Sample(null, null);
+
+		private final OperationMetrics metrics;
+		private final long[] threadTotals;
+		private final long startNanos;
+		private final long startRows;
+		private final long startBytes;
+		private boolean closed;
+
+		private Sample(OperationMetrics metrics, long[] threadTotals) {
+			this.metrics = metrics;
+			this.threadTotals = threadTotals;
+
+			if(metrics == null) {
+				this.startNanos = 0;
+				this.startRows = 0;
+				this.startBytes = 0;
+			} else {
+				this.startNanos = System.nanoTime();
+				this.startRows = threadTotals[ROWS];
+				this.startBytes = threadTotals[BYTES];
+			}
+		}
+
+		/*
+		 * Records the sample once; later calls do nothing. Rows and bytes are per thread, so a sample
+		 * closed on another thread than it started on (a stream) only records its time.
+		 */
+		@Override
+		public void close() {
+			if(metrics == null || closed) {
+				return;
+			}
+			closed = true;
+
+			long[] totals = THREAD_TOTALS.get();
+
+			metrics.latency.record(System.nanoTime() - startNanos);
+
+			if(totals == threadTotals) {
+				metrics.rows.add(totals[ROWS] - startRows);
+				metrics.bytes.add(totals[BYTES] - startBytes);
+			}
+		}
+	}
+
+	//--------- CLASS: Operation Metrics ---------------------------------------
+
+	private static class OperationMetrics {
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LongAdder rows = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+
+		OperationSnapshot snapshot() {
+			return new OperationSnapshot(latency.snapshot(), rows.sum(), bytes.sum());
+		}
+
+		void reset() {
+			latency.reset();
+			rows.reset();
+			bytes.reset();
+		}
+	}
+
+	//--------- CLASS: Snapshots -----------------------------------------------
+
+	public static final class Snapshot {
+		private final Map<Operation, OperationSnapshot> operations;
+		private final long rowsExtracted;
+		private final long bytesRead;
+
+		private Snapshot(Map<Operation, OperationSnapshot> operations, long rowsExtracted, long bytesRead) {
+			this.operations = Collections.unmodifiableMap(operations);
+			this.rowsExtracted = rowsExtracted;
+			this.bytesRead = bytesRead;
+		}
+
+		public Map<Operation, OperationSnapshot> getOperations() {
+			return operations;
+		}
+
+		public OperationSnapshot get(Operation operation) {
+			return operations.get(operation);
+		}
+
+		public long getRowsExtracted() {
+			return rowsExtracted;
+		}
+
+		public long getBytesRead() {
+			return bytesRead;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder("DaoMetrics[rows=" + rowsExtracted + ", bytes=" + bytesRead + "]");
+
+			operations.forEach((operation, stats) -> {
+				if(stats.getCount() > 0) {
+					text.append("\n  ").append(operation).append(": ").append(stats);
+				}
+			});
+			return text.toString();
+		}
+	}
+
+	public static final class OperationSnapshot {
+		private final LatencyHistogram.Snapshot latency;
+		private final long rows;
+		private final long bytesRead;
+
+		private OperationSnapshot(LatencyHistogram.Snapshot latency, long rows, long bytesRead) {
+			this.latency = latency;
+			this.rows = rows;
+			this.bytesRead = bytesRead;
+		}
+
+		public long getCount() {
+			return latency.getCount();
+		}
+
+		public LatencyHistogram.Snapshot getLatency() {
+			return latency;
+		}
+
+		//rows extracted while the operation ran
+		public long getRows() {
+			return rows;
+		}
+
+		public long getBytesRead() {
+			return bytesRead;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count=%d, mean=%.3fms, p50=%.3fms, p99=%.3fms, max=%.3fms, rows=%d, bytes=%d",
+					getCount(), latency.getMeanNanos() / 1e6, latency.getValueAtPercentile(50) / 1e6,
+					latency.getValueAtPercentile(99) / 1e6, latency.getMaxNanos() / 1e6, rows, bytesRead);
+		}
+	}
+
+	//--------- CLASS: JMX Beans -----------------------------------------------
+
+	public interface DaoMetricsMXBean {
+		boolean isEnabled();
+
+		void setEnabled(boolean enabled);
+
+		long getRowsExtracted();
+
+		long getBytesRead();
+
+		void reset();
+	}
+
+	public interface OperationMetricsMXBean {
+		long getCount();
+
+		double getMeanMillis();
+
+		double getP50Millis();
+
+		double getP90Millis();
+
+		double getP99Millis();
+
+		double getP999Millis();
+
+		double getMaxMillis();
+
+		long getRows();
+
+		long getBytesRead();
+	}
+
+	private static class MetricsBean implements DaoMetricsMXBean {
+
+		@Override
+		public boolean isEnabled() {
+			return DaoMetrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			DaoMetrics.setEnabled(enabled);
+		}
+
+		@Override
+		public long getRowsExtracted() {
+			return ROWS_EXTRACTED.sum();
+		}
+
+		@Override
+		public long getBytesRead() {
+			return BYTES_READ.sum();
+		}
+
+		@Override
+		public void reset() {
+			DaoMetrics.reset();
+		}
+	}
+
+	private static class OperationBean implements OperationMetricsMXBean {
+		private final OperationMetrics metrics;
+
+		OperationBean(Operation operation) {
+			this.metrics = OPERATIONS.get(operation);
+		}
+
+		@Override
+		public long getCount() {
+			return metrics.latency.snapshot().getCount();
+		}
+
+		@Override
+		public double getMeanMillis() {
+			return metrics.latency.snapshot().getMeanNanos() / 1e6;
+		}
+
+		@Override
+		public double getP50Millis() {
+			return percentileMillis(50);
+		}
+
+		@Override
+		public double getP90Millis() {
+			return percentileMillis(90);
+		}
+
+		@Override
+		public double getP99Millis() {
+			return percentileMillis(99);
+		}
+
+		@Override
+		public double getP999Millis() {
+			return percentileMillis(99.9);
+		}
+
+		@Override
+		public double getMaxMillis() {
+			return metrics.latency.snapshot().getMaxNanos() / 1e6;
+		}
+
+		@Override
+		public long getRows() {
+			return metrics.rows.sum();
+		}
+
+		@Override
+		public long getBytesRead() {
+			return metrics.bytes.sum();
+		}
+
+		private double percentileMillis(double percentile) {
+			return metrics.latency.snapshot().getValueAtPercentile(percentile) / 1e6;
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package projects.dao;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import projects.exceptions.DbException;
+
+public class DbConnection {
+	
+	private static final String CONFIG_FILE = "db.properties";
+	private static final String OVERRIDE_PREFIX = "projects.db.";
+	
+	private static final Properties CONFIG = loadConfig();
+	
+	private static final String HOST = CONFIG.getProperty("host", "localhost");
+	private static final String PASSWORD = CONFIG.getProperty("password", "projects");
+	private static final int PORT = getInt("port", 3306);
+	private static final String SCHEMA = CONFIG.getProperty("schema", "projects");
+	private static final String USER = CONFIG.getProperty("user", "projects");
+	private static final String URL_OPTIONS = CONFIG.getProperty("urlOptions", "useSSL=false");
+	
+	private static final String REPLICA_HOST = CONFIG.getProperty("replica.host", "").trim();
+	private static final int REPLICA_PORT = getInt("replica.port", PORT);
+	
+	private static volatile ConnectionPool pool;
+	private static volatile ConnectionPool replicaPool;
+	private static volatile ReplicaMonitor replicaMonitor;
+	
+	private static final long READ_YOUR_WRITES_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(getLong("replica.readYourWritesMillis", 5000));
+	
+	//until when (System.nanoTime) the current thread's reads stay on the primary after a write
+	private static final ThreadLocal<long[]> PRIMARY_READS_UNTIL = ThreadLocal
+			.withInitial(() -> new long[] {System.nanoTime()});
+	
+	
+	//a connection to the primary; use it for writes and for reads that must see the latest data
+	public static Connection getConnection() {
+		markWrite();
+		return lease(getPool());
+	}
+	
+	/**
+	 * Keeps the current thread's reads on the primary for replica.readYourWritesMillis, as borrowing a
+	 * write connection does. For a thread whose write was done by another thread on its behalf.
+	 */
+	public static void markWrite() {
+		PRIMARY_READS_UNTIL.get()[0] = System.nanoTime() + READ_YOUR_WRITES_NANOS;
+	}
+	
+	/**
+	 * The current thread's read-your-writes window: until when (System.nanoTime) its reads stay on
+	 * the primary. The window is per thread, so work handed to another thread does not carry it; pass
+	 * this value along and apply it there with {@link #keepReadsOnPrimaryUntil(long)}.
+	 */
+	public static long getPrimaryReadsUntil() {
+		return PRIMARY_READS_UNTIL.get()[0];
+	}
+	
+	//extends the current thread's window to the given one from another thread; never shortens it
+	public static void keepReadsOnPrimaryUntil(long primaryReadsUntil) {
+		long[] until = PRIMARY_READS_UNTIL.get();
+		
+		if(primaryReadsUntil - until[0] > 0) {
+			until[0] = primaryReadsUntil;
+		}
+	}
+	
+	//--------- METHOD: Get Read Connection -----------------------------------
+	
+	/**
+	 * A connection for reads. It comes from the replica pool when a replica is configured, its lag is
+	 * within replica.maxLagSeconds, and this thread has not borrowed a write connection in the last
+	 * replica.readYourWritesMillis (so a thread reads back what it just wrote). Otherwise, or if the
+	 * replica pool cannot hand out a connection, it comes from the primary.
+	 */
+	public static Connection getReadConnection() {
+		
+		ConnectionPool replica = getReplicaPool();
+		ReplicaMonitor monitor = replicaMonitor;
+		
+		if(Objects.nonNull(replica) && Objects.nonNull(monitor) && monitor.isUsable()
+				&& System.nanoTime() - PRIMARY_READS_UNTIL.get()[0] >= 0) {
+			try {
+				return lease(replica);
+			} catch (DbException e) {
+				//replica pool exhausted or unreachable: the primary can serve the read
+			}
+		}
+		return lease(getPool());
+	}
+	
+	private static Connection lease(ConnectionPool from) {
+		Connection conn = DaoMetrics.timed(DaoMetrics.Operation.CONNECTION_ACQUIRE, from::getConnection);
+		return SlowQueryLog.isEnabled() ? SlowQueryLog.wrap(conn) : conn;
+	}
+	
+	//--------- METHOD: Open Unpooled -----------------------------------------
+	
+	//a physical connection outside the pool, for diagnostics that must not compete with the DAOs
+	static Connection openUnpooled() throws SQLException {
+		return DriverManager.getConnection(buildUrl(HOST, PORT), USER, PASSWORD);
+	}
+
+	//the same, with extra URL options that pooled connections must not carry
+	static Connection openUnpooled(String options) throws SQLException {
+		return DriverManager.getConnection(buildUrl(HOST, PORT) + "&" + options, USER, PASSWORD);
+	}
+	
+	//--------- METHOD: Get Pool ----------------------------------------------
+	
+	//the pool is created on first use so nothing connects until a DAO needs it
+	public static ConnectionPool getPool() {
+		
+		ConnectionPool result = pool;
+		
+		if(Objects.isNull(result)) {
+			synchronized(DbConnection.class) {
+				result = pool;
+				
+				if(Objects.isNull(result)) {
+					result = createPool(HOST, PORT);
+					pool = result;
+				}
+			}
+		}
+		return result;
+	}
+	
+	//null when no replica.host is configured
+	public static ConnectionPool getReplicaPool() {
+		
+		if(REPLICA_HOST.isEmpty()) {
+			return null;
+		}
+		
+		ConnectionPool result = replicaPool;
+		
+		if(Objects.isNull(result)) {
+			synchronized(DbConnection.class) {
+				result = replicaPool;
+				
+				if(Objects.isNull(result)) {
+					result = createPool(REPLICA_HOST, REPLICA_PORT);
+					
+					replicaMonitor = new ReplicaMonitor(result, getLong("replica.maxLagSeconds", 5),
+							getLong("replica.lagCheckIntervalMillis", 1000));
+					replicaPool = result;
+				}
+			}
+		}
+		return result;
+	}
+	
+	//null when no replica.host is configured
+	public static ReplicaMonitor getReplicaMonitor() {
+		return Objects.isNull(getReplicaPool()) ? null : replicaMonitor;
+	}
+	
+	private static ConnectionPool createPool(String host, int port) {
+		// @formatter:off
+		return new ConnectionPool(buildUrl(host, port), USER, PASSWORD,
+				getInt("pool.minSize", 2),
+				getInt("pool.maxSize", 10),
+				getLong("pool.acquireTimeoutMillis", 5000),
+				getLong("pool.idleTimeoutMillis", 300000),
+				getLong("pool.validationIntervalMillis", 500),
+				getInt("pool.validationTimeoutSeconds", 2));
+		// @formatter:on
+	}
+	
+	private static String buildUrl(String host, int port) {
+		String url = String.format("jdbc:mysql://%s:%d/%s?%s", host, port, SCHEMA, URL_OPTIONS);
+		
+		//counting bytes read needs the driver to use our sockets
+		if(DaoMetrics.isEnabled()) {
+			url += "&socketFactory=" + CountingSocketFactory.class.getName();
+		}
+		return url;
+	}
+	
+	//--------- METHOD: Shutdown ----------------------------------------------
+	
+	public static synchronized void shutdown() {
+		if(Objects.nonNull(replicaMonitor)) {
+			replicaMonitor.close();
+			replicaMonitor = null;
+		}
+		
+		if(Objects.nonNull(replicaPool)) {
+			replicaPool.close();
+			replicaPool = null;
+		}
+		
+		if(Objects.nonNull(pool)) {
+			pool.close();
+			pool = null;
+		}
+	}
+	
+	//--------- METHOD: Config ------------------------------------------------
+	
+	//db.properties with system property overrides; the service layer reads its settings here too
+	public static String getProperty(String key, String defaultValue) {
+		return CONFIG.getProperty(key, defaultValue);
+	}
+	
+	public static int getInt(String key, int defaultValue) {
+		return Integer.parseInt(CONFIG.getProperty(key, String.valueOf(defaultValue)).trim());
+	}
+	
+	public static long getLong(String key, long defaultValue) {
+		return Long.parseLong(CONFIG.getProperty(key, String.valueOf(defaultValue)).trim());
+	}
+	
+	//classpath file first, then system properties on top
+	private static Properties loadConfig() {
+		
+		Properties props = new Properties();
+		
+		try(InputStream in = DbConnection.class.getClassLoader().getResourceAsStream(CONFIG_FILE)){
+			if(Objects.nonNull(in)) {
+				props.load(in);
+			}
+		} catch (Exception e) {
+			throw new DbException(e);
+		}
+		
+		System.getProperties().stringPropertyNames().stream()
+			.filter(name -> name.startsWith(OVERRIDE_PREFIX))
+			.forEach(name -> props.setProperty(name.substring(OVERRIDE_PREFIX.length()),
+					System.getProperty(name)));
+		
+		return props;
+	}
+
+}
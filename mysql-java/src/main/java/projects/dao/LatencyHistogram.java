@@ -0,0 +1,148 @@
+package projects.dao;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size, lock-free latency histogram in the style of HdrHistogram. Values (nanoseconds) below
+ * 64 get a bucket each; above that every power of two is split into 32 linear sub-buckets, so any
+ * recorded value is off by at most about 3%. Values above roughly 18 minutes land in the top bucket.
+ *
+ * Recording is a few adds with no allocation and no locks, so it is cheap enough for every DAO call.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+	static final long MAX_VALUE = (1L << 40) - 1;
+	static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	//--------- METHOD: Record -------------------------------------------------
+
+	public void record(long nanos) {
+		long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+
+		buckets.incrementAndGet(indexOf(value));
+		count.increment();
+		total.add(value);
+		max.accumulate(value);
+	}
+
+	public void reset() {
+		for(int index = 0; index < BUCKET_COUNT; index++) {
+			buckets.set(index, 0);
+		}
+		count.reset();
+		total.reset();
+		max.reset();
+	}
+
+	//--------- METHOD: Snapshot -----------------------------------------------
+
+	/**
+	 * Copies the current counts. Recording carries on while the copy is made, so the figures in a
+	 * snapshot can be a few samples apart from each other, never more.
+	 */
+	public Snapshot snapshot() {
+
+		long[] counts = new long[BUCKET_COUNT];
+
+		for(int index = 0; index < BUCKET_COUNT; index++) {
+			counts[index] = buckets.get(index);
+		}
+		return new Snapshot(counts, count.sum(), total.sum(), max.get());
+	}
+
+	//--------- METHOD: Buckets ------------------------------------------------
+
+	static int indexOf(long value) {
+
+		if(value < LINEAR_LIMIT) {
+			return (int)value;
+		}
+
+		//shift so the top SUB_BUCKET_BITS + 1 bits remain: a value in [32, 64)
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int)(value >>> shift);
+	}
+
+	//the largest value that falls in the bucket
+	static long highestValueIn(int index) {
+
+		if(index < LINEAR_LIMIT) {
+			return index;
+		}
+
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	//--------- CLASS: Snapshot ------------------------------------------------
+
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long totalNanos;
+		private final long maxNanos;
+
+		private Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+			this.counts = counts;
+			this.count = count;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		public double getMeanNanos() {
+			return count == 0 ? 0 : (double)totalNanos / count;
+		}
+
+		/**
+		 * The value at the given percentile (0 to 100), reported as the top of its bucket and never
+		 * above the largest value recorded.
+		 */
+		public long getValueAtPercentile(double percentile) {
+
+			long recorded = 0;
+
+			for(long bucket : counts) {
+				recorded += bucket;
+			}
+
+			if(recorded == 0) {
+				return 0;
+			}
+
+			long rank = Math.max(1, (long)Math.ceil(percentile / 100.0 * recorded));
+			long seen = 0;
+
+			for(int index = 0; index < counts.length; index++) {
+				seen += counts[index];
+
+				if(seen >= rank) {
+					return Math.min(highestValueIn(index), maxNanos);
+				}
+			}
+			return maxNanos;
+		}
+	}
+}
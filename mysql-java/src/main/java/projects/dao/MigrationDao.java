@@ -0,0 +1,218 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import projects.exceptions.DbException;
+import provided.util.DaoBase;
+
+/**
+ * Applies schema migrations and records them in the schema_version table, one row per applied
+ * version with a checksum of its statements.
+ *
+ * A run takes a named server lock first, so when several instances start at once one migrates and
+ * the others wait and then find nothing left to do. Applied migrations are checked against their
+ * checksums, and a migration whose statements changed after it was applied stops the run: fix it
+ * with a new migration instead.
+ *
+ * MySQL commits DDL statements implicitly, so a migration cannot be rolled back. If one fails
+ * partway, its version is not recorded and the statements that did run must be undone by hand
+ * before running again.
+ */
+public class MigrationDao extends DaoBase {
+
+	public static final String VERSION_TABLE = "schema_version";
+
+	private static final String LOCK_NAME = "projects.schema_migration";
+	private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+	// @formatter:off
+	private static final String CREATE_VERSION_TABLE_SQL = ""
+			+ "CREATE TABLE IF NOT EXISTS " + VERSION_TABLE + "("
+			+ "version INT NOT NULL, "
+			+ "description VARCHAR(200) NOT NULL, "
+			+ "checksum BIGINT NOT NULL, "
+			+ "installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+			+ "execution_millis BIGINT NOT NULL, "
+			+ "PRIMARY KEY (version))";
+
+	private static final String APPLIED_SQL = ""
+			+ "SELECT version, checksum FROM " + VERSION_TABLE + " ORDER BY version";
+
+	private static final String RECORD_SQL = ""
+			+ "INSERT INTO " + VERSION_TABLE + " (version, description, checksum, execution_millis) "
+			+ "VALUES (?, ?, ?, ?)";
+	// @formatter:on
+
+	/**
+	 * One migration: its version, what it does, and its statements in order.
+	 */
+	public record Migration(int version, String description, long checksum, List<String> statements) {
+	}
+
+	//--------- METHOD: Migrate ------------------------------------------------
+
+	/**
+	 * Applies every migration newer than the database's current version, in version order.
+	 *
+	 * @return The versions applied; empty if the schema was already current.
+	 */
+	public List<Integer> migrate(List<Migration> migrations) {
+
+		try(Connection conn = DbConnection.getConnection()){
+			acquireLock(conn);
+
+			try {
+				try(Statement stmt = conn.createStatement()){
+					stmt.execute(CREATE_VERSION_TABLE_SQL);
+				}
+
+				Map<Integer, Long> applied = fetchApplied(conn);
+				Map<Integer, Migration> known = new HashMap<>();
+
+				for(Migration migration : migrations) {
+					known.put(migration.version(), migration);
+				}
+
+				for(Map.Entry<Integer, Long> entry : applied.entrySet()) {
+					Migration migration = known.get(entry.getKey());
+
+					if(Objects.isNull(migration)) {
+						throw new DbException("The database has schema version " + entry.getKey()
+								+ ", which this build does not know about.");
+					}
+
+					if(migration.checksum() != entry.getValue()) {
+						throw new DbException("Migration " + migration.version() + " (" + migration.description()
+								+ ") was changed after it was applied.");
+					}
+				}
+
+				List<Integer> versions = new ArrayList<>();
+
+				for(Migration migration : migrations) {
+					if(!applied.containsKey(migration.version())) {
+						apply(conn, migration);
+						versions.add(migration.version());
+					}
+				}
+				return versions;
+
+			} finally {
+				releaseLock(conn);
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	private void apply(Connection conn, Migration migration) throws SQLException {
+
+		long start = System.nanoTime();
+
+		try(Statement stmt = conn.createStatement()){
+			for(String sql : migration.statements()) {
+				try {
+					stmt.execute(sql);
+				} catch (SQLException e) {
+					throw new DbException("Migration " + migration.version() + " (" + migration.description()
+							+ ") failed at: " + sql, e);
+				}
+			}
+		}
+
+		try(PreparedStatement stmt = conn.prepareStatement(RECORD_SQL)){
+			setParameter(stmt, 1, migration.version(), Integer.class);
+			setParameter(stmt, 2, migration.description(), String.class);
+			stmt.setLong(3, migration.checksum());
+			stmt.setLong(4, (System.nanoTime() - start) / 1_000_000);
+			stmt.executeUpdate();
+		}
+	}
+
+	private Map<Integer, Long> fetchApplied(Connection conn) throws SQLException {
+
+		Map<Integer, Long> applied = new HashMap<>();
+
+		try(Statement stmt = conn.createStatement()){
+			try(ResultSet rs = stmt.executeQuery(APPLIED_SQL)){
+				while(rs.next()) {
+					applied.put(rs.getInt("version"), rs.getLong("checksum"));
+				}
+			}
+		}
+		return applied;
+	}
+
+	//--------- METHOD: Lock ---------------------------------------------------
+
+	private void acquireLock(Connection conn) throws SQLException {
+		try(PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")){
+			stmt.setString(1, LOCK_NAME);
+			stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+
+			try(ResultSet rs = stmt.executeQuery()){
+				if(!rs.next() || rs.getInt(1) != 1) {
+					throw new DbException("Another migration has held the schema lock for over "
+							+ LOCK_TIMEOUT_SECONDS + " seconds.");
+				}
+			}
+		}
+	}
+
+	private void releaseLock(Connection conn) throws SQLException {
+		try(PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")){
+			stmt.setString(1, LOCK_NAME);
+			stmt.executeQuery().close();
+		}
+	}
+
+	//--------- METHOD: Check Index Use ----------------------------------------
+
+	/**
+	 * Runs EXPLAIN on a query and checks that the given table is read through the given index
+	 * without a filesort. The plan depends on table statistics, so this is only meaningful once the
+	 * tables hold representative data.
+	 *
+	 * @return What is wrong with the plan, or empty if the index is used as expected.
+	 */
+	public Optional<String> checkIndexUse(String sql, String table, String index) {
+
+		try(Connection conn = DbConnection.getConnection()){
+			try(Statement stmt = conn.createStatement()){
+				try(ResultSet rs = stmt.executeQuery("EXPLAIN " + sql)){
+					while(rs.next()) {
+						if(!table.equals(rs.getString("table"))) {
+							continue;
+						}
+
+						String key = rs.getString("key");
+						String extra = Objects.toString(rs.getString("Extra"), "");
+
+						if(!index.equals(key)) {
+							return Optional.of(table + " is read with " + (Objects.isNull(key) ? "no index" : key)
+									+ " instead of " + index + ": " + sql);
+						}
+
+						if(extra.contains("Using filesort")) {
+							return Optional.of(table + " uses " + index + " but still sorts: " + sql);
+						}
+						return Optional.empty();
+					}
+				}
+			}
+		} catch (SQLException e) {
+			throw new DbException(e);
+		}
+		return Optional.of(table + " does not appear in the plan: " + sql);
+	}
+}
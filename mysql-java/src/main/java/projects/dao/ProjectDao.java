@@ -0,0 +1,1536 @@
+package projects.dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import projects.dao.DaoMetrics.Operation;
+import projects.dao.DaoMetrics.Sample;
+import projects.entity.Category;
+import projects.entity.CategoryRowMapper;
+import projects.entity.Material;
+import projects.entity.MaterialInsertBinder;
+import projects.entity.MaterialRowMapper;
+import projects.entity.Project;
+import projects.entity.ProjectInsertBinder;
+import projects.entity.ProjectRowMapper;
+import projects.entity.ProjectSummary;
+import projects.entity.Step;
+import projects.entity.StepInsertBinder;
+import projects.entity.StepRowMapper;
+import projects.entity.TrackedEntity;
+import projects.exceptions.DbException;
+import provided.util.DaoBase;
+import provided.util.InsertBinder;
+import provided.util.RowMapper;
+
+public class ProjectDao extends DaoBase {
+	
+	public static final String PROJECT_TABLE = "project";
+	public static final String MATERIAL_TABLE = "material";
+	public static final String STEP_TABLE = "step";
+	public static final String CATEGORY_TABLE = "category";
+	public static final String PROJECT_CATEGORY_TABLE = "project_category";
+	
+	//row kinds of the joined graph query, in the order its rows come back
+	private static final int GRAPH_PROJECT_ROW = 0;
+	private static final int GRAPH_MATERIAL_ROW = 1;
+	private static final int GRAPH_STEP_ROW = 2;
+	private static final int GRAPH_CATEGORY_ROW = 3;
+	
+	//row kind and three sort columns come before the project, material, step and category columns
+	private static final int GRAPH_LEADING_COLUMNS = 4;
+	
+	//the four tables' columns in row kind order: the given kind's own, NULL in place of the others
+	private static String graphColumns(int rowKind, String columns) {
+	
+		int[] widths = {ProjectRowMapper.INSTANCE.columnCount(), MaterialRowMapper.INSTANCE.columnCount(),
+				StepRowMapper.INSTANCE.columnCount(), CategoryRowMapper.INSTANCE.columnCount()};
+	
+		List<String> blocks = new ArrayList<>();
+	
+		for(int kind = 0; kind < widths.length; kind++) {
+			blocks.add(kind == rowKind ? columns : String.join(", ", Collections.nCopies(widths[kind], "NULL")));
+		}
+		return String.join(", ", blocks);
+	}
+	
+	// @formatter:off
+	private static final String PROJECT_BY_ID_SQL = ""
+			+ "SELECT " + ProjectRowMapper.COLUMNS + " FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+	
+	private static final String MATERIALS_BY_PROJECT_SQL = ""
+			+ "SELECT " + MaterialRowMapper.columns("m") + " FROM " + MATERIAL_TABLE + " m WHERE m.project_id = ? "
+			+ "ORDER BY m.material_order, m.material_id";
+	
+	private static final String STEPS_BY_PROJECT_SQL = ""
+			+ "SELECT " + StepRowMapper.columns("s") + " FROM " + STEP_TABLE + " s WHERE s.project_id = ? "
+			+ "ORDER BY s.step_order, s.step_id";
+	
+	private static final String CATEGORIES_BY_PROJECT_SQL = ""
+			+ "SELECT " + CategoryRowMapper.columns("c") + " "
+			+ "FROM " + PROJECT_CATEGORY_TABLE + " pc "
+			+ "JOIN " + CATEGORY_TABLE + " c USING (category_id) "
+			+ "WHERE project_id = ? "
+			+ "ORDER BY c.category_name";
+	
+	private static final String CATEGORY_IDS_BY_PROJECT_SQL = ""
+			+ "SELECT category_id FROM " + PROJECT_CATEGORY_TABLE + " WHERE project_id = ?";
+	
+	//all four queries sent as one statement; needs allowMultiQueries=true on the connection URL
+	private static final String PROJECT_GRAPH_MULTI_SQL = ""
+			+ PROJECT_BY_ID_SQL + "; "
+			+ MATERIALS_BY_PROJECT_SQL + "; "
+			+ STEPS_BY_PROJECT_SQL + "; "
+			+ CATEGORIES_BY_PROJECT_SQL;
+	
+	/*
+	 * The four queries as one UNION ALL: a row for the project, then one per material, step and
+	 * category, each tagged with its row kind. Every row has all four tables' columns, NULL except its
+	 * own, so each kind is read by its usual mapper at a fixed offset. The sort columns put each child
+	 * list in the same order as the separate queries.
+	 */
+	private static final String PROJECT_GRAPH_JOINED_SQL = ""
+			+ "SELECT " + GRAPH_PROJECT_ROW + " AS row_kind, 0 AS child_order, '' AS child_name, 0 AS child_id, "
+			+ graphColumns(GRAPH_PROJECT_ROW, ProjectRowMapper.columns("p")) + " "
+			+ "FROM " + PROJECT_TABLE + " p WHERE p.project_id = ? "
+			+ "UNION ALL "
+			+ "SELECT " + GRAPH_MATERIAL_ROW + ", m.material_order, NULL, m.material_id, "
+			+ graphColumns(GRAPH_MATERIAL_ROW, MaterialRowMapper.columns("m")) + " "
+			+ "FROM " + MATERIAL_TABLE + " m WHERE m.project_id = ? "
+			+ "UNION ALL "
+			+ "SELECT " + GRAPH_STEP_ROW + ", s.step_order, NULL, s.step_id, "
+			+ graphColumns(GRAPH_STEP_ROW, StepRowMapper.columns("s")) + " "
+			+ "FROM " + STEP_TABLE + " s WHERE s.project_id = ? "
+			+ "UNION ALL "
+			+ "SELECT " + GRAPH_CATEGORY_ROW + ", 0, c.category_name, c.category_id, "
+			+ graphColumns(GRAPH_CATEGORY_ROW, CategoryRowMapper.columns("c")) + " "
+			+ "FROM " + PROJECT_CATEGORY_TABLE + " pc "
+			+ "JOIN " + CATEGORY_TABLE + " c USING (category_id) "
+			+ "WHERE pc.project_id = ? "
+			+ "ORDER BY row_kind, child_order, child_name, child_id";
+	
+	private static final String ALL_PROJECTS_SQL = ""
+			+ "SELECT " + ProjectRowMapper.COLUMNS + " FROM " + PROJECT_TABLE + " ORDER BY project_name";
+	
+	private static final String PROJECT_SUMMARIES_SQL = ""
+			+ "SELECT project_id, project_name FROM " + PROJECT_TABLE + " ORDER BY project_name";
+	
+	private static final String ALL_PROJECTS_STREAM_SQL = ""
+			+ "SELECT " + ProjectRowMapper.COLUMNS + " FROM " + PROJECT_TABLE + " "
+			+ "ORDER BY project_name, project_id";
+	
+	private static final String FIRST_PAGE_SQL = ""
+			+ "SELECT " + ProjectRowMapper.COLUMNS + " FROM " + PROJECT_TABLE + " "
+			+ "ORDER BY project_name, project_id "
+			+ "LIMIT ?";
+	
+	private static final String NEXT_PAGE_SQL = ""
+			+ "SELECT " + ProjectRowMapper.COLUMNS + " FROM " + PROJECT_TABLE + " "
+			+ "WHERE project_name > ? OR (project_name = ? AND project_id > ?) "
+			+ "ORDER BY project_name, project_id "
+			+ "LIMIT ?";
+	
+	private static final String INSERT_PROJECT_SQL = ""
+			+ "INSERT INTO " + PROJECT_TABLE + " "
+			+ "(" + ProjectInsertBinder.INSERT_COLUMNS + ") "
+			+ "VALUES "
+			+ "(" + ProjectInsertBinder.PLACEHOLDERS + ")";
+	// @formatter:on
+	
+	//the generated mappers fill entities through their setters; what was just read is not a change
+	private static final RowMapper<Project> PROJECT_MAPPER = unchanged(ProjectRowMapper.INSTANCE);
+	private static final RowMapper<Material> MATERIAL_MAPPER = unchanged(MaterialRowMapper.INSTANCE);
+	private static final RowMapper<Step> STEP_MAPPER = unchanged(StepRowMapper.INSTANCE);
+	
+	private static <T extends TrackedEntity> RowMapper<T> unchanged(RowMapper<T> mapper) {
+		return new RowMapper<>() {
+			
+			@Override
+			public T map(ResultSet rs, int offset) throws SQLException {
+				T entity = mapper.map(rs, offset);
+				entity.clearChanges();
+				return entity;
+			}
+			
+			@Override
+			public int columnCount() {
+				return mapper.columnCount();
+			}
+		};
+	}
+	
+	/**
+	 * How {@link #fecthProjectById(Integer)} loads a project's materials, steps and categories.
+	 */
+	public enum FetchStrategy {
+		//one query for the project and one per child table: four round trips
+		SEPARATE_QUERIES,
+		
+		/*
+		 * One UNION ALL query with a row per project, material, step and category, folded into the graph:
+		 * one round trip, 1 + materials + steps + categories rows. It never multiplies the child lists,
+		 * but every row carries all four tables' columns, mostly NULL, so it sends more bytes per row than
+		 * MULTI_RESULT does.
+		 */
+		JOINED,
+		
+		//the four queries sent together, read as four result sets: one round trip
+		MULTI_RESULT
+	}
+	
+	private volatile FetchStrategy fetchStrategy = FetchStrategy.valueOf(
+			DbConnection.getProperty("dao.fetchStrategy", FetchStrategy.SEPARATE_QUERIES.name()));
+	
+	public FetchStrategy getFetchStrategy() {
+		return fetchStrategy;
+	}
+	
+	public void setFetchStrategy(FetchStrategy fetchStrategy) {
+		this.fetchStrategy = Objects.requireNonNull(fetchStrategy);
+	}
+	
+	private final CategoryDictionary categoryDictionary = new CategoryDictionary();
+	
+	public CategoryDictionary getCategoryDictionary() {
+		return categoryDictionary;
+	}
+	
+	public Optional <Project> fecthProjectById(Integer projectId){
+		
+		return DaoMetrics.timed(Operation.FETCH_PROJECT_BY_ID, () -> {
+			try(Connection conn = DbConnection.getReadConnection()){
+				
+				//the project and its children are read from one snapshot
+				startReadOnlyTransaction(conn);
+				
+				try {
+					Project project;
+					
+					switch(fetchStrategy) {
+					case JOINED:
+						project = fetchProjectGraphJoined(conn, projectId);
+						break;
+						
+					case MULTI_RESULT:
+						project = fetchProjectGraphMultiResult(conn, projectId);
+						break;
+						
+					default:
+						project = fetchProjectGraphSeparately(conn, projectId);
+						break;
+					}
+					
+					commitTransaction(conn);
+					return Optional.ofNullable(project);
+					
+				} catch(Exception e) {
+					rollbackTransaction(conn);
+					throw new DbException(e);
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+	
+	/*
+	 * A read-only transaction: every query in it sees the same InnoDB snapshot, and the server skips
+	 * the bookkeeping a read-write transaction needs. End it with commitTransaction (which only
+	 * releases the snapshot); the pool puts the connection back to read-write when it is returned.
+	 */
+	private void startReadOnlyTransaction(Connection conn) throws SQLException {
+		conn.setReadOnly(true);
+		startTransaction(conn);
+	}
+	
+	//timed so commit latency shows up in the DAO metrics
+	@Override
+	protected void commitTransaction(Connection conn) throws SQLException {
+		DaoMetrics.timed(Operation.COMMIT, () -> super.commitTransaction(conn));
+	}
+	
+	//--------- METHOD: Fetch Graph (Separate Queries) --------------------------
+	
+	private Project fetchProjectGraphSeparately(Connection conn, Integer projectId) throws SQLException {
+		
+		Project project = null;
+		
+		try(PreparedStatement stmt = conn.prepareStatement(PROJECT_BY_ID_SQL)){
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				if(rs.next()) {
+					project = DaoMetrics.map(PROJECT_MAPPER, rs);
+				}
+			}
+		}
+		
+		if(Objects.nonNull(project)) {
+			
+			//All methods done in the same transaction and same connection
+			project.getMaterials()
+			.addAll(fetchMaterials(conn, projectId));
+			
+			project.getSteps()
+			.addAll(fetchSteps(conn, projectId));
+			
+			project.getCategories()
+			.addAll(fetchCategories(conn, projectId));
+			
+		}
+		
+		return project;
+	}
+	
+	//--------- METHOD: Fetch Graph (Joined) ------------------------------------
+	
+	private Project fetchProjectGraphJoined(Connection conn, Integer projectId) throws SQLException {
+		
+		int projectOffset = 1 + GRAPH_LEADING_COLUMNS;
+		int materialOffset = projectOffset + ProjectRowMapper.INSTANCE.columnCount();
+		int stepOffset = materialOffset + MaterialRowMapper.INSTANCE.columnCount();
+		int categoryOffset = stepOffset + StepRowMapper.INSTANCE.columnCount();
+		
+		try(PreparedStatement stmt = conn.prepareStatement(PROJECT_GRAPH_JOINED_SQL)){
+			for(int index = 1; index <= 4; index++) {
+				setParameter(stmt, index, projectId, Integer.class);
+			}
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				Project project = null;
+				
+				//the project row sorts first; without it there are no children either
+				while(rs.next()) {
+					switch(rs.getInt(1)) {
+					case GRAPH_PROJECT_ROW:
+						project = DaoMetrics.map(PROJECT_MAPPER, rs, projectOffset);
+						break;
+						
+					case GRAPH_MATERIAL_ROW:
+						project.getMaterials().add(DaoMetrics.map(MATERIAL_MAPPER, rs, materialOffset));
+						break;
+						
+					case GRAPH_STEP_ROW:
+						project.getSteps().add(DaoMetrics.map(STEP_MAPPER, rs, stepOffset));
+						break;
+						
+					default:
+						project.getCategories().add(DaoMetrics.map(CategoryRowMapper.INSTANCE, rs, categoryOffset));
+						break;
+					}
+				}
+				
+				return project;
+			}
+		}
+	}
+	
+	//--------- METHOD: Fetch Graph (Multiple Result Sets) ----------------------
+	
+	private Project fetchProjectGraphMultiResult(Connection conn, Integer projectId) throws SQLException {
+		
+		try(PreparedStatement stmt = conn.prepareStatement(PROJECT_GRAPH_MULTI_SQL)){
+			for(int index = 1; index <= 4; index++) {
+				setParameter(stmt, index, projectId, Integer.class);
+			}
+			
+			stmt.execute();
+			
+			Project project = null;
+			
+			try(ResultSet rs = stmt.getResultSet()){
+				if(rs.next()) {
+					project = DaoMetrics.map(PROJECT_MAPPER, rs);
+				}
+			}
+			
+			if(Objects.isNull(project)) {
+				return null;
+			}
+			
+			readNextResult(stmt, project.getMaterials(), MATERIAL_MAPPER);
+			readNextResult(stmt, project.getSteps(), STEP_MAPPER);
+			readNextResult(stmt, project.getCategories(), CategoryRowMapper.INSTANCE);
+			
+			return project;
+		}
+	}
+	
+	private <T> void readNextResult(PreparedStatement stmt, List<T> target, RowMapper<T> mapper)
+			throws SQLException {
+		
+		if(!stmt.getMoreResults()) {
+			throw new SQLException("Expected another result set. Is allowMultiQueries enabled?");
+		}
+		
+		try(ResultSet rs = stmt.getResultSet()){
+			while(rs.next()) {
+				target.add(DaoMetrics.map(mapper, rs));
+			}
+		}
+	}
+	
+	//--------- METHOD: Fetch Categories ----------------------------------------
+	
+	//only the IDs come from the database; names and ordering come from the category dictionary
+	private List<Category> fetchCategories(Connection conn, Integer projectId) throws SQLException{
+		
+		try(PreparedStatement stmt = conn.prepareStatement(CATEGORY_IDS_BY_PROJECT_SQL)){
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				List<Integer> categoryIds = new ArrayList<>();
+				
+				while(rs.next()) {
+					categoryIds.add(rs.getInt(1));
+				}
+				
+				return categoryDictionary.resolve(conn, categoryIds);
+			}
+		}
+	}
+	
+	//--------- METHOD: Fetch Steps ----------------------------------------
+
+	private List<Step> fetchSteps(Connection conn, Integer projectId) throws SQLException{
+		
+		try(PreparedStatement stmt = conn.prepareStatement(STEPS_BY_PROJECT_SQL)){
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				List<Step> steps = new LinkedList<Step>();
+				
+				while(rs.next()) {
+					steps.add(DaoMetrics.map(STEP_MAPPER, rs));
+				}
+				
+				return steps;
+			}
+		}
+	}
+	
+	//--------- METHOD: Fetch Materials ----------------------------------------
+
+	private List<Material> fetchMaterials(Connection conn, Integer projectId) throws SQLException {
+		
+		try(PreparedStatement stmt = conn.prepareStatement(MATERIALS_BY_PROJECT_SQL)){
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				List<Material> materials = new LinkedList<Material>();
+				
+				while(rs.next()) {
+					materials.add(DaoMetrics.map(MATERIAL_MAPPER, rs));
+				}
+				
+				return materials;
+			}
+		}
+		
+		
+	}
+
+	//--------- METHOD: Fetch Projects By IDs -----------------------------------
+	
+	private volatile int batchChunkSize = DbConnection.getInt("dao.batchChunkSize", 500);
+	
+	public int getBatchChunkSize() {
+		return batchChunkSize;
+	}
+	
+	//caps the number of IDs bound into one IN (...) list, keeping statements under max_allowed_packet
+	public void setBatchChunkSize(int batchChunkSize) {
+		if(batchChunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + batchChunkSize);
+		}
+		this.batchChunkSize = batchChunkSize;
+	}
+	
+	/**
+	 * Loads the full graphs of the given projects with four IN (...) queries per chunk of IDs on one
+	 * connection, instead of four queries and a connection per project. Projects come back in the
+	 * order their IDs were given; duplicate and unknown IDs are skipped.
+	 */
+	public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+		
+		List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(projectIds));
+		
+		if(ids.isEmpty()) {
+			return new LinkedList<>();
+		}
+		
+		return DaoMetrics.timed(Operation.FETCH_PROJECTS_BY_IDS, () -> {
+			try(Connection conn = DbConnection.getReadConnection()){
+				
+				//every chunk is read from one snapshot
+				startReadOnlyTransaction(conn);
+				
+				try {
+					Map<Integer, Project> projects = new HashMap<>();
+					int chunkSize = batchChunkSize;
+					
+					for(int from = 0; from < ids.size(); from += chunkSize) {
+						List<Integer> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+						fetchProjectChunk(conn, chunk, projects);
+					}
+					
+					List<Project> result = new LinkedList<>();
+					
+					for(Integer id : ids) {
+						Project project = projects.get(id);
+						
+						if(Objects.nonNull(project)) {
+							result.add(project);
+						}
+					}
+					
+					commitTransaction(conn);
+					return result;
+					
+				} catch(Exception e) {
+					rollbackTransaction(conn);
+					throw new DbException(e);
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+	
+	private void fetchProjectChunk(Connection conn, List<Integer> ids, Map<Integer, Project> projects)
+			throws SQLException {
+		
+		int slots = paddedSize(ids.size());
+		ChunkQueries queries = chunkQueries(slots);
+		
+		String projectSql = queries.projectSql;
+		String materialSql = queries.materialSql;
+		String stepSql = queries.stepSql;
+		String categorySql = queries.categorySql;
+		
+		try(PreparedStatement stmt = prepareWithIds(conn, projectSql, ids, slots)){
+			try(ResultSet rs = stmt.executeQuery()){
+				while(rs.next()) {
+					Project project = DaoMetrics.map(PROJECT_MAPPER, rs);
+					projects.put(project.getProjectId(), project);
+				}
+			}
+		}
+		
+		try(PreparedStatement stmt = prepareWithIds(conn, materialSql, ids, slots)){
+			try(ResultSet rs = stmt.executeQuery()){
+				while(rs.next()) {
+					Material material = DaoMetrics.map(MATERIAL_MAPPER, rs);
+					projects.get(material.getProjectId()).getMaterials().add(material);
+				}
+			}
+		}
+		
+		try(PreparedStatement stmt = prepareWithIds(conn, stepSql, ids, slots)){
+			try(ResultSet rs = stmt.executeQuery()){
+				while(rs.next()) {
+					Step step = DaoMetrics.map(STEP_MAPPER, rs);
+					projects.get(step.getProjectId()).getSteps().add(step);
+				}
+			}
+		}
+		
+		Map<Integer, List<Integer>> categoryIds = new HashMap<>();
+		
+		try(PreparedStatement stmt = prepareWithIds(conn, categorySql, ids, slots)){
+			try(ResultSet rs = stmt.executeQuery()){
+				while(rs.next()) {
+					categoryIds.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(rs.getInt(2));
+				}
+			}
+		}
+		
+		for(Map.Entry<Integer, List<Integer>> entry : categoryIds.entrySet()) {
+			projects.get(entry.getKey()).getCategories().addAll(categoryDictionary.resolve(conn, entry.getValue()));
+		}
+	}
+	
+	/*
+	 * Binds the IDs into an IN list of the given number of slots, repeating the last ID in the spare
+	 * ones (see paddedSize). A repeated ID does not change the result, and it keeps the number of
+	 * statement shapes small enough for every one of them to stay in the per-connection statement
+	 * cache.
+	 */
+	private PreparedStatement prepareWithIds(Connection conn, String sql, List<Integer> ids, int slots)
+			throws SQLException {
+		
+		PreparedStatement stmt = conn.prepareStatement(sql);
+		
+		try {
+			Integer last = ids.get(ids.size() - 1);
+			
+			for(int index = 1; index <= slots; index++) {
+				Integer id = index <= ids.size() ? ids.get(index - 1) : last;
+				setParameter(stmt, index, id, Integer.class);
+			}
+			return stmt;
+			
+		} catch (SQLException e) {
+			stmt.close();
+			throw e;
+		}
+	}
+	
+	//the next power of two, capped at the chunk size: at most a dozen IN list sizes ever get prepared
+	private int paddedSize(int count) {
+		int padded = Integer.highestOneBit(count);
+		
+		if(padded < count) {
+			padded <<= 1;
+		}
+		return Math.max(count, Math.min(padded, batchChunkSize));
+	}
+	
+	private ChunkQueries chunkQueries(int size) {
+		return CHUNK_QUERIES.computeIfAbsent(size, ChunkQueries::new);
+	}
+	
+	//built once per IN list size and reused by every later fetch of that size
+	private static final Map<Integer, ChunkQueries> CHUNK_QUERIES = new ConcurrentHashMap<>();
+	
+	private static class ChunkQueries {
+		private final String projectSql;
+		private final String materialSql;
+		private final String stepSql;
+		private final String categorySql;
+		
+		ChunkQueries(int size) {
+			String in = "IN (" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+			
+			// @formatter:off
+			projectSql = "SELECT " + ProjectRowMapper.COLUMNS + " FROM " + PROJECT_TABLE + " "
+					+ "WHERE project_id " + in;
+			
+			materialSql = "SELECT " + MaterialRowMapper.columns("m") + " FROM " + MATERIAL_TABLE + " m "
+					+ "WHERE m.project_id " + in + " "
+					+ "ORDER BY m.project_id, m.material_order, m.material_id";
+			
+			stepSql = "SELECT " + StepRowMapper.columns("s") + " FROM " + STEP_TABLE + " s "
+					+ "WHERE s.project_id " + in + " "
+					+ "ORDER BY s.project_id, s.step_order, s.step_id";
+			
+			categorySql = "SELECT project_id, category_id FROM " + PROJECT_CATEGORY_TABLE + " "
+					+ "WHERE project_id " + in;
+			// @formatter:on
+		}
+	}
+	
+	//--------- METHOD: Fetch All Projects ----------------------------------------
+
+		public List<Project> fetchAllProjects() {
+		
+			String sql = ALL_PROJECTS_SQL;
+			
+			//a single query needs no transaction; auto-commit gives it its own snapshot
+			return DaoMetrics.timed(Operation.FETCH_ALL_PROJECTS, () -> {
+				try(Connection conn = DbConnection.getReadConnection()){
+					
+					try(PreparedStatement stmt = conn.prepareStatement(sql)){
+						try(ResultSet rs = stmt.executeQuery()){
+							List<Project> projects = new LinkedList<>();
+							
+							while (rs.next()) {
+								projects.add(DaoMetrics.map(PROJECT_MAPPER, rs));
+							}
+							return projects;
+						}
+					}
+					
+				} catch (SQLException e) {
+			
+					throw new DbException(e);
+				}
+			});
+		}
+	
+	//--------- METHOD: Fetch Project Summaries ----------------------------------
+	
+	/**
+	 * Lists every project's ID and name, ordered by name. Selects only those two columns, so it is
+	 * the query to use for list views rather than {@link #fetchAllProjects()}.
+	 */
+	public List<ProjectSummary> fetchProjectSummaries() {
+		
+		return DaoMetrics.timed(Operation.FETCH_PROJECT_SUMMARIES, () -> {
+			try(Connection conn = DbConnection.getReadConnection()){
+				try(PreparedStatement stmt = conn.prepareStatement(PROJECT_SUMMARIES_SQL)){
+					try(ResultSet rs = stmt.executeQuery()){
+						List<ProjectSummary> summaries = new ArrayList<>();
+						
+						while(rs.next()) {
+							summaries.add(DaoMetrics.map(SUMMARY_MAPPER, rs));
+						}
+						return summaries;
+					}
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+	
+	private static final RowMapper<ProjectSummary> SUMMARY_MAPPER = new RowMapper<>() {
+		
+		@Override
+		public ProjectSummary map(ResultSet rs, int offset) throws SQLException {
+			return new ProjectSummary(rs.getInt(offset), rs.getString(offset + 1));
+		}
+		
+		@Override
+		public int columnCount() {
+			return 2;
+		}
+	};
+	
+	//--------- METHOD: Stream All Projects --------------------------------------
+	
+	/**
+	 * Streams every project ordered by name (then ID) without holding them all in memory. Rows are
+	 * pulled from the server as the stream is consumed using MySQL's row-streaming mode, so the
+	 * stream holds a pooled connection until it is exhausted or closed. Use try-with-resources.
+	 */
+	public Stream<Project> streamAllProjects() {
+		
+		String sql = ALL_PROJECTS_STREAM_SQL;
+		
+		//timed from the query until the stream is exhausted or closed
+		Sample sample = DaoMetrics.start(Operation.STREAM_ALL_PROJECTS);
+		Connection conn = DbConnection.getReadConnection();
+		PreparedStatement stmt = null;
+		
+		try {
+			stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			
+			//Integer.MIN_VALUE is the Connector/J signal to stream rows one at a time
+			stmt.setFetchSize(Integer.MIN_VALUE);
+			
+			return streamRows(sample, conn, stmt, stmt.executeQuery(), PROJECT_MAPPER);
+			
+		} catch (SQLException e) {
+			if(Objects.nonNull(stmt)) {
+				closeQuietly(stmt);
+			}
+			closeQuietly(conn);
+			sample.close();
+			throw new DbException(e);
+		}
+	}
+	
+	private <T> Stream<T> streamRows(Sample sample, Connection conn, Statement stmt, ResultSet rs,
+			RowMapper<T> mapper) {
+		
+		Runnable close = () -> {
+			closeQuietly(rs);
+			closeQuietly(stmt);
+			closeQuietly(conn);
+			closeQuietly(sample);
+		};
+		
+		Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+			
+			private boolean done;
+			
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				if(done) {
+					return false;
+				}
+				
+				try {
+					if(!rs.next()) {
+						//hand the connection back as soon as the last row is read
+						done = true;
+						close.run();
+						return false;
+					}
+					action.accept(DaoMetrics.map(mapper, rs));
+					return true;
+					
+				} catch (SQLException e) {
+					done = true;
+					close.run();
+					throw new DbException(e);
+				}
+			}
+		};
+		
+		return StreamSupport.stream(rows, false).onClose(close);
+	}
+	
+	//closing twice is harmless, so this is safe to call from both exhaustion and onClose
+	private void closeQuietly(AutoCloseable resource) {
+		try {
+			resource.close();
+		} catch (Exception e) {
+			//nothing useful to do; the resource is being discarded
+		}
+	}
+	
+	//--------- METHOD: Fetch Project Page ---------------------------------------
+	
+	//most projects fetchProjectPage returns at once
+	public static final int MAX_PAGE_SIZE = 1000;
+	
+	/**
+	 * Returns up to pageSize projects that sort after the given project, ordered by name then ID. Pass
+	 * null for the first page and the last project of a page for the next one. The keyset condition
+	 * means each page costs the same no matter how deep it is, unlike OFFSET.
+	 *
+	 * @throws IllegalArgumentException If pageSize is not between 1 and {@link #MAX_PAGE_SIZE}.
+	 */
+	public List<Project> fetchProjectPage(Project after, int pageSize) {
+		
+		//the page is held in memory and the list is presized to it, so the size is bounded
+		if(pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+		}
+		
+		String sql = Objects.isNull(after) ? FIRST_PAGE_SQL : NEXT_PAGE_SQL;
+		
+		return DaoMetrics.timed(Operation.FETCH_PROJECT_PAGE, () -> {
+			try(Connection conn = DbConnection.getReadConnection()){
+				try(PreparedStatement stmt = conn.prepareStatement(sql)){
+					int index = 1;
+					
+					if(Objects.nonNull(after)) {
+						setParameter(stmt, index++, after.getProjectName(), String.class);
+						setParameter(stmt, index++, after.getProjectName(), String.class);
+						setParameter(stmt, index++, after.getProjectId(), Integer.class);
+					}
+					setParameter(stmt, index, pageSize, Integer.class);
+					
+					try(ResultSet rs = stmt.executeQuery()){
+						List<Project> projects = new ArrayList<>(pageSize);
+						
+						while(rs.next()) {
+							projects.add(DaoMetrics.map(PROJECT_MAPPER, rs));
+						}
+						return projects;
+					}
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+	
+	//--------- METHOD: Insert Project ----------------------------------------
+
+		public Project insertProject(Project project) {
+			
+			String sql = INSERT_PROJECT_SQL;
+			
+			return DaoMetrics.timed(Operation.INSERT_PROJECT, () -> {
+				try(Connection conn = DbConnection.getConnection()){
+					startTransaction(conn);
+					
+					try(PreparedStatement stmt = conn.prepareStatement(sql)){
+						ProjectInsertBinder.INSTANCE.bind(stmt, 1, project);
+						
+						stmt.executeUpdate();
+						Integer projectId = getLastInsertId(conn, PROJECT_TABLE);
+						AnalyticsDao.refreshSummaries(conn, List.of(projectId));
+						
+						commitTransaction(conn);
+						
+						//only the project row was written, so only its own fields are saved
+						project.setProjectId(projectId);
+						project.clearChanges();
+						return project;
+					} catch (Exception e) {
+						rollbackTransaction(conn);
+						throw new DbException(e);
+					}
+				} catch (SQLException e) {
+					throw new DbException(e);		
+					}
+			});
+		}
+		// formatter:on
+		
+	//--------- METHOD: Insert Projects (Bulk) -----------------------------------
+	
+	//MySQL allows at most 65,535 placeholders in one prepared statement
+	private static final int MAX_PLACEHOLDERS = 65535;
+	
+	private volatile int bulkRowsPerStatement = DbConnection.getInt("dao.bulkRowsPerStatement", 1000);
+	
+	public void setBulkRowsPerStatement(int bulkRowsPerStatement) {
+		if(bulkRowsPerStatement < 1) {
+			throw new IllegalArgumentException("Rows per statement must be positive: " + bulkRowsPerStatement);
+		}
+		this.bulkRowsPerStatement = bulkRowsPerStatement;
+	}
+	
+	/**
+	 * Inserts many projects with their materials, steps and category links in one transaction.
+	 * Each table is written with multi-row INSERT statements, and the generated IDs are read back
+	 * with getGeneratedKeys and set on the entities (materials and steps also get their project ID).
+	 * Materials and steps without an order are numbered in list order. Categories must already exist; a
+	 * category with no ID is looked up by name. Either everything is inserted or nothing is.
+	 *
+	 * If the transaction rolls back, the IDs, project IDs, orders and category IDs it set are put back
+	 * as they were given, so the same entities can be inserted again, alone or in another batch.
+	 */
+	public List<Project> insertProjects(List<Project> projects) {
+		
+		if(projects.isEmpty()) {
+			return projects;
+		}
+		
+		Runnable restore = insertState(projects);
+		
+		return DaoMetrics.timed(Operation.INSERT_PROJECTS, () -> {
+			try(Connection conn = DbConnection.getConnection()){
+				startTransaction(conn);
+				
+				try {
+					insertRows(conn, PROJECT_TABLE, ProjectInsertBinder.INSERT_COLUMNS, ProjectInsertBinder.INSTANCE,
+							projects, Project::setProjectId);
+					
+					List<Material> materials = new ArrayList<>();
+					List<Step> steps = new ArrayList<>();
+					List<Integer[]> links = new ArrayList<>();
+					Map<String, Integer> categoryIds = resolveCategoryIds(conn, projects);
+					
+					for(Project project : projects) {
+						Integer projectId = project.getProjectId();
+						int materialOrder = 1;
+						int stepOrder = 1;
+						
+						for(Material material : project.getMaterials()) {
+							material.setProjectId(projectId);
+							
+							if(Objects.isNull(material.getMaterialOrder())) {
+								material.setMaterialOrder(materialOrder);
+							}
+							materialOrder++;
+							materials.add(material);
+						}
+						
+						for(Step step : project.getSteps()) {
+							step.setProjectId(projectId);
+							
+							if(Objects.isNull(step.getStepOrder())) {
+								step.setStepOrder(stepOrder);
+							}
+							stepOrder++;
+							steps.add(step);
+						}
+						
+						for(Category category : project.getCategories()) {
+							if(Objects.isNull(category.getCategoryId())) {
+								Integer categoryId = categoryIds.get(category.getCategoryName());
+								
+								if(Objects.isNull(categoryId)) {
+									throw new DbException("Unknown category '" + category.getCategoryName() + "'.");
+								}
+								category.setCategoryId(categoryId);
+							}
+							links.add(new Integer[] {projectId, category.getCategoryId()});
+						}
+					}
+					
+					insertRows(conn, MATERIAL_TABLE, MaterialInsertBinder.INSERT_COLUMNS, MaterialInsertBinder.INSTANCE,
+							materials, Material::setMaterialId);
+					
+					insertRows(conn, STEP_TABLE, StepInsertBinder.INSERT_COLUMNS, StepInsertBinder.INSTANCE,
+							steps, Step::setStepId);
+					
+					insertRows(conn, PROJECT_CATEGORY_TABLE, "project_id, category_id", PROJECT_CATEGORY_BINDER,
+							links, null);
+					
+					AnalyticsDao.refreshSummaries(conn, projects.stream().map(Project::getProjectId).toList());
+					
+					commitTransaction(conn);
+					projects.forEach(Project::clearAllChanges);
+					return projects;
+					
+				} catch (Exception e) {
+					restore.run();
+					rollbackTransaction(conn);
+					throw new DbException(e);
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+	
+	//puts back the fields insertProjects sets, with the values they have now
+	static Runnable insertState(List<Project> projects) {
+		
+		List<Runnable> restores = new ArrayList<>();
+		
+		for(Project project : projects) {
+			Integer projectId = project.getProjectId();
+			restores.add(() -> project.setProjectId(projectId));
+			
+			for(Material material : project.getMaterials()) {
+				Integer materialId = material.getMaterialId();
+				Integer materialProjectId = material.getProjectId();
+				Integer materialOrder = material.getMaterialOrder();
+				
+				restores.add(() -> {
+					material.setMaterialId(materialId);
+					material.setProjectId(materialProjectId);
+					material.setMaterialOrder(materialOrder);
+				});
+			}
+			
+			for(Step step : project.getSteps()) {
+				Integer stepId = step.getStepId();
+				Integer stepProjectId = step.getProjectId();
+				Integer stepOrder = step.getStepOrder();
+				
+				restores.add(() -> {
+					step.setStepId(stepId);
+					step.setProjectId(stepProjectId);
+					step.setStepOrder(stepOrder);
+				});
+			}
+			
+			for(Category category : project.getCategories()) {
+				Integer categoryId = category.getCategoryId();
+				restores.add(() -> category.setCategoryId(categoryId));
+			}
+		}
+		return () -> restores.forEach(Runnable::run);
+	}
+	
+	//one dictionary pass for every category that was given by name only
+	private Map<String, Integer> resolveCategoryIds(Connection conn, List<Project> projects) throws SQLException {
+		
+		Set<String> names = new LinkedHashSet<>();
+		
+		for(Project project : projects) {
+			for(Category category : project.getCategories()) {
+				if(Objects.isNull(category.getCategoryId()) && Objects.nonNull(category.getCategoryName())) {
+					names.add(category.getCategoryName());
+				}
+			}
+		}
+		
+		return names.isEmpty() ? Map.of() : categoryDictionary.resolveIds(conn, names);
+	}
+	
+	private static final InsertBinder<Integer[]> PROJECT_CATEGORY_BINDER = new InsertBinder<>() {
+		
+		@Override
+		public int bind(PreparedStatement stmt, int offset, Integer[] link) throws SQLException {
+			stmt.setInt(offset, link[0]);
+			stmt.setInt(offset + 1, link[1]);
+			return offset + 2;
+		}
+		
+		@Override
+		public int parameterCount() {
+			return 2;
+		}
+	};
+	
+	/*
+	 * Writes rows with INSERT ... VALUES (...), (...), ... statements of up to bulkRowsPerStatement
+	 * rows. When idSetter is given, the generated keys come back in row order and are set on the rows.
+	 */
+	private <T> void insertRows(Connection conn, String table, String columns, InsertBinder<T> binder,
+			List<T> rows, BiConsumer<T, Integer> idSetter) throws SQLException {
+		
+		int rowsPerStatement = Math.min(bulkRowsPerStatement, MAX_PLACEHOLDERS / binder.parameterCount());
+		String rowPlaceholders = "(" + String.join(", ", Collections.nCopies(binder.parameterCount(), "?")) + ")";
+		
+		String fullSql = null;
+		int fullSize = 0;
+		
+		for(int from = 0; from < rows.size(); from += rowsPerStatement) {
+			List<T> chunk = rows.subList(from, Math.min(from + rowsPerStatement, rows.size()));
+			
+			//every chunk but the last has the same size, so build that SQL once
+			String sql = chunk.size() == fullSize ? fullSql
+					: "INSERT INTO " + table + " (" + columns + ") VALUES "
+							+ String.join(", ", Collections.nCopies(chunk.size(), rowPlaceholders));
+			
+			if(Objects.isNull(fullSql)) {
+				fullSql = sql;
+				fullSize = chunk.size();
+			}
+			
+			int keys = Objects.isNull(idSetter) ? Statement.NO_GENERATED_KEYS : Statement.RETURN_GENERATED_KEYS;
+			
+			try(PreparedStatement stmt = conn.prepareStatement(sql, keys)){
+				int index = 1;
+				
+				for(T row : chunk) {
+					index = binder.bind(stmt, index, row);
+				}
+				
+				stmt.executeUpdate();
+				
+				if(Objects.nonNull(idSetter)) {
+					try(ResultSet rs = stmt.getGeneratedKeys()){
+						for(T row : chunk) {
+							if(!rs.next()) {
+								throw new SQLException("Fewer generated keys than rows inserted into " + table);
+							}
+							idSetter.accept(row, rs.getInt(1));
+						}
+					}
+				}
+			}
+		}
+	}
+	
+
+	//--------- METHOD: Update Project -------------------------------------------
+	
+	//a column an update can write, named for the entity field it comes from as in the generated mappers
+	private record Column<T>(String name, Class<?> type, Function<T, Object> getter) {
+	}
+	
+	//keyed by the field names the entities report as changed
+	// @formatter:off
+	private static final Map<String, Column<Project>> PROJECT_COLUMNS = Map.of(
+			"projectName", new Column<>("project_name", String.class, Project::getProjectName),
+			"estimatedHours", new Column<>("estimated_hours", Integer.class, Project::getEstimatedHours),
+			"actualHours", new Column<>("actual_hours", Integer.class, Project::getActualHours),
+			"difficulty", new Column<>("difficulty", Integer.class, Project::getDifficulty),
+			"notes", new Column<>("notes", String.class, Project::getNotes));
+	
+	private static final Map<String, Column<Material>> MATERIAL_COLUMNS = Map.of(
+			"materialName", new Column<>("material_name", String.class, Material::getMaterialName),
+			"numRequired", new Column<>("num_required", Integer.class, Material::getNumRequired),
+			"cost", new Column<>("cost", BigDecimal.class, Material::getCost),
+			"materialOrder", new Column<>("material_order", Integer.class, Material::getMaterialOrder));
+	
+	private static final Map<String, Column<Step>> STEP_COLUMNS = Map.of(
+			"stepText", new Column<>("step_text", String.class, Step::getStepText),
+			"stepOrder", new Column<>("step_order", Integer.class, Step::getStepOrder));
+	
+	private static final String LOCK_PROJECT_SQL = ""
+			+ "SELECT project_id FROM " + PROJECT_TABLE + " WHERE project_id = ? FOR UPDATE";
+	
+	//every child ID of a project in one round trip, tagged with the table it came from
+	private static final String CHILD_IDS_SQL = ""
+			+ "SELECT 1, material_id FROM " + MATERIAL_TABLE + " WHERE project_id = ? "
+			+ "UNION ALL SELECT 2, step_id FROM " + STEP_TABLE + " WHERE project_id = ? "
+			+ "UNION ALL SELECT 3, category_id FROM " + PROJECT_CATEGORY_TABLE + " WHERE project_id = ?";
+	// @formatter:on
+	
+	/**
+	 * Writes the project's changed fields, and no others, with one UPDATE of its row. Materials, steps
+	 * and categories are left alone; {@link #saveProject(Project)} saves those. Returns false, without
+	 * going to the database, when nothing has changed.
+	 */
+	public boolean updateProject(Project project) {
+		
+		Integer projectId = requireProjectId(project);
+		
+		if(!project.hasChanges()) {
+			return false;
+		}
+		
+		return DaoMetrics.timed(Operation.UPDATE_PROJECT, () -> {
+			try(Connection conn = DbConnection.getConnection()){
+				startTransaction(conn);
+				
+				try(UpdateBatch updates = new UpdateBatch(conn)){
+					updates.add(PROJECT_TABLE, "project_id", projectId, project, PROJECT_COLUMNS);
+					
+					if(updates.execute() == 0) {
+						throw new DbException("Project ID: " + projectId + " does not exist.");
+					}
+					
+					commitTransaction(conn);
+					project.clearChanges();
+					return true;
+					
+				} catch (Exception e) {
+					rollbackTransaction(conn);
+					throw new DbException(e);
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+	
+	//--------- METHOD: Save Project (Graph) -------------------------------------
+	
+	/**
+	 * Saves a project with its materials, steps and categories, writing only what differs from the
+	 * database: the changed columns of the project and of each child that has an ID, inserts for
+	 * children without one, deletes for children no longer in the lists, and category links added or
+	 * removed. The lists are saved in their order, so moving a child rewrites only the order of the
+	 * children whose position changed. Updates of the same columns go as one JDBC batch, and the
+	 * whole save is one transaction.
+	 *
+	 * The child IDs already in the database are read first; a child whose ID belongs to another
+	 * project is an error. Categories must exist; one with no ID is looked up by name.
+	 */
+	public Project saveProject(Project project) {
+		
+		Integer projectId = requireProjectId(project);
+		
+		return DaoMetrics.timed(Operation.SAVE_PROJECT, () -> {
+			try(Connection conn = DbConnection.getConnection()){
+				startTransaction(conn);
+				
+				try(UpdateBatch updates = new UpdateBatch(conn)){
+					//concurrent saves of this project wait here, so the child IDs read next stay current
+					lockProject(conn, projectId);
+					
+					Map<Integer, Set<Integer>> existing = fetchChildIds(conn, projectId);
+					
+					if(project.hasChanges()) {
+						updates.add(PROJECT_TABLE, "project_id", projectId, project, PROJECT_COLUMNS);
+					}
+					
+					ChildDiff<Material> materials = diffChildren(projectId, project.getMaterials(), existing.get(1),
+							MATERIAL_TABLE, Material::getMaterialId, Material::setProjectId, Material::setMaterialOrder);
+					
+					ChildDiff<Step> steps = diffChildren(projectId, project.getSteps(), existing.get(2), STEP_TABLE,
+							Step::getStepId, Step::setProjectId, Step::setStepOrder);
+					
+					for(Material material : materials.updates()) {
+						updates.add(MATERIAL_TABLE, "material_id", material.getMaterialId(), material, MATERIAL_COLUMNS);
+					}
+					
+					for(Step step : steps.updates()) {
+						updates.add(STEP_TABLE, "step_id", step.getStepId(), step, STEP_COLUMNS);
+					}
+					
+					boolean childrenChanged = materials.hasChanges() || steps.hasChanges();
+					
+					deleteRows(conn, MATERIAL_TABLE, "material_id", projectId, materials.deletes());
+					deleteRows(conn, STEP_TABLE, "step_id", projectId, steps.deletes());
+					
+					updates.execute();
+					
+					insertRows(conn, MATERIAL_TABLE, MaterialInsertBinder.INSERT_COLUMNS, MaterialInsertBinder.INSTANCE,
+							materials.inserts(), Material::setMaterialId);
+					
+					insertRows(conn, STEP_TABLE, StepInsertBinder.INSERT_COLUMNS, StepInsertBinder.INSTANCE,
+							steps.inserts(), Step::setStepId);
+					
+					saveCategoryLinks(conn, project, existing.get(3));
+					
+					//the summaries only total materials and steps
+					if(childrenChanged) {
+						AnalyticsDao.refreshSummaries(conn, List.of(projectId));
+					}
+					
+					commitTransaction(conn);
+					project.clearAllChanges();
+					return project;
+					
+				} catch (Exception e) {
+					rollbackTransaction(conn);
+					throw new DbException(e);
+				}
+			} catch (SQLException e) {
+				throw new DbException(e);
+			}
+		});
+	}
+	
+	private Integer requireProjectId(Project project) {
+		if(Objects.isNull(project.getProjectId())) {
+			throw new DbException("Only a project that has been inserted can be updated.");
+		}
+		return project.getProjectId();
+	}
+	
+	private void lockProject(Connection conn, Integer projectId) throws SQLException {
+		
+		try(PreparedStatement stmt = conn.prepareStatement(LOCK_PROJECT_SQL)){
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				if(!rs.next()) {
+					throw new DbException("Project ID: " + projectId + " does not exist.");
+				}
+			}
+		}
+	}
+	
+	//material IDs under 1, step IDs under 2, category IDs under 3
+	private Map<Integer, Set<Integer>> fetchChildIds(Connection conn, Integer projectId) throws SQLException {
+		
+		Map<Integer, Set<Integer>> ids = new HashMap<>();
+		
+		for(int table = 1; table <= 3; table++) {
+			ids.put(table, new HashSet<>());
+		}
+		
+		try(PreparedStatement stmt = conn.prepareStatement(CHILD_IDS_SQL)){
+			for(int index = 1; index <= 3; index++) {
+				setParameter(stmt, index, projectId, Integer.class);
+			}
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				while(rs.next()) {
+					ids.get(rs.getInt(1)).add(rs.getInt(2));
+				}
+			}
+		}
+		return ids;
+	}
+	
+	//what saving one child list writes; children with an ID and no changes are in none of the three
+	record ChildDiff<T>(List<T> inserts, List<T> updates, Set<Integer> deletes) {
+		
+		boolean hasChanges() {
+			return !inserts.isEmpty() || !updates.isEmpty() || !deletes.isEmpty();
+		}
+	}
+	
+	/*
+	 * Numbers the children in list order, then sorts them by what the save must do: insert those
+	 * without an ID, update those with an ID that have changed (renumbering counts), and delete the
+	 * existing IDs no longer listed. Touches no database.
+	 */
+	static <T extends TrackedEntity> ChildDiff<T> diffChildren(Integer projectId, List<T> children,
+			Set<Integer> existingIds, String table, Function<T, Integer> id, BiConsumer<T, Integer> setProjectId,
+			BiConsumer<T, Integer> setOrder) {
+		
+		List<T> inserts = new ArrayList<>();
+		List<T> updates = new ArrayList<>();
+		Set<Integer> deletes = new HashSet<>(existingIds);
+		int order = 1;
+		
+		for(T child : children) {
+			Integer childId = id.apply(child);
+			
+			if(Objects.nonNull(childId) && !deletes.remove(childId)) {
+				throw new DbException(table + " ID " + childId + " is not part of project " + projectId
+						+ " (or is listed twice).");
+			}
+			
+			setProjectId.accept(child, projectId);
+			setOrder.accept(child, order++);
+			
+			if(Objects.isNull(childId)) {
+				inserts.add(child);
+			} else if(child.hasChanges()) {
+				updates.add(child);
+			}
+		}
+		return new ChildDiff<>(inserts, updates, deletes);
+	}
+	
+	private void deleteRows(Connection conn, String table, String idColumn, Integer projectId, Set<Integer> ids)
+			throws SQLException {
+		
+		List<Integer> remaining = new ArrayList<>(ids);
+		int chunkSize = batchChunkSize;
+		
+		for(int from = 0; from < remaining.size(); from += chunkSize) {
+			List<Integer> chunk = remaining.subList(from, Math.min(from + chunkSize, remaining.size()));
+			
+			String sql = "DELETE FROM " + table + " WHERE project_id = ? AND " + idColumn + " IN ("
+					+ String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+			
+			try(PreparedStatement stmt = conn.prepareStatement(sql)){
+				int index = 1;
+				setParameter(stmt, index++, projectId, Integer.class);
+				
+				for(Integer id : chunk) {
+					setParameter(stmt, index++, id, Integer.class);
+				}
+				stmt.executeUpdate();
+			}
+		}
+	}
+	
+	//links the categories in the list that are not linked yet and unlinks the rest
+	private void saveCategoryLinks(Connection conn, Project project, Set<Integer> linkedIds) throws SQLException {
+		
+		Integer projectId = project.getProjectId();
+		Map<String, Integer> categoryIds = resolveCategoryIds(conn, List.of(project));
+		List<Integer[]> links = new ArrayList<>();
+		Set<Integer> wanted = new HashSet<>();
+		
+		for(Category category : project.getCategories()) {
+			if(Objects.isNull(category.getCategoryId())) {
+				Integer categoryId = categoryIds.get(category.getCategoryName());
+				
+				if(Objects.isNull(categoryId)) {
+					throw new DbException("Unknown category '" + category.getCategoryName() + "'.");
+				}
+				category.setCategoryId(categoryId);
+			}
+			
+			if(wanted.add(category.getCategoryId()) && !linkedIds.contains(category.getCategoryId())) {
+				links.add(new Integer[] {projectId, category.getCategoryId()});
+			}
+		}
+		
+		linkedIds.removeAll(wanted);
+		deleteRows(conn, PROJECT_CATEGORY_TABLE, "category_id", projectId, linkedIds);
+		
+		insertRows(conn, PROJECT_CATEGORY_TABLE, "project_id, category_id", PROJECT_CATEGORY_BINDER, links, null);
+	}
+	
+	/*
+	 * Partial UPDATEs grouped by statement: entities with the same changed columns share one prepared
+	 * statement and go to the server as one JDBC batch.
+	 */
+	private class UpdateBatch implements AutoCloseable {
+		private final Connection conn;
+		private final Map<String, PreparedStatement> statements = new LinkedHashMap<>();
+		
+		UpdateBatch(Connection conn) {
+			this.conn = conn;
+		}
+		
+		<T extends TrackedEntity> void add(String table, String idColumn, Integer id, T entity,
+				Map<String, Column<T>> columns) throws SQLException {
+			
+			List<Column<T>> changed = entity.getChangedFields().stream().map(columns::get).toList();
+			
+			String sql = "UPDATE " + table + " SET "
+					+ String.join(", ", changed.stream().map(column -> column.name() + " = ?").toList())
+					+ " WHERE " + idColumn + " = ?";
+			
+			PreparedStatement stmt = statements.get(sql);
+			
+			if(Objects.isNull(stmt)) {
+				stmt = conn.prepareStatement(sql);
+				statements.put(sql, stmt);
+			}
+			
+			int index = 1;
+			
+			for(Column<T> column : changed) {
+				setParameter(stmt, index++, column.getter().apply(entity), column.type());
+			}
+			setParameter(stmt, index, id, Integer.class);
+			stmt.addBatch();
+		}
+		
+		//the number of rows the updates matched
+		int execute() throws SQLException {
+			int rows = 0;
+			
+			for(PreparedStatement stmt : statements.values()) {
+				for(int count : stmt.executeBatch()) {
+					rows += Math.max(count, 0);
+				}
+			}
+			return rows;
+		}
+		
+		@Override
+		public void close() throws SQLException {
+			for(PreparedStatement stmt : statements.values()) {
+				stmt.close();
+			}
+		}
+	}
+	
+		
+	public void executeBatch (List <String> sqlBatch) {
+			executeBatch(sqlBatch, false);
+		}
+		
+	/**
+	 * Runs the statements as one batch in one transaction. With relaxChecks, foreign key and unique
+	 * checks are turned off for this session while the batch runs and restored before the
+	 * connection goes back to the pool. Only use it for data known to be consistent.
+	 */
+	public void executeBatch (List <String> sqlBatch, boolean relaxChecks) {
+			
+			DaoMetrics.timed(Operation.EXECUTE_BATCH, () -> {
+				try(Connection conn = DbConnection.getConnection()){
+					
+					try {
+						//inside the try, so the checks are restored even if only one of them was turned off
+						if(relaxChecks) {
+							setSessionChecks(conn, 0);
+						}
+						
+						startTransaction(conn); //Method within DaoBase
+						
+						try(Statement stmt = conn.createStatement()){
+							
+							for(String sql : sqlBatch) { //adding each sql statement as a batch to the sql statement
+								stmt.addBatch(sql);
+							}
+							
+							stmt.executeBatch();
+							commitTransaction(conn); //Method within DaoBase
+							
+							//scripts may have changed the category table
+							categoryDictionary.markStale();
+							
+						} catch (Exception e) {
+							rollbackTransaction(conn);
+							throw new DbException(e);
+						}
+					} finally {
+						if(relaxChecks) {
+							restoreSessionChecks(conn);
+						}
+					}
+				} catch (SQLException e) {
+					throw new DbException(e);
+				}
+			});
+		}
+	
+	/*
+	 * Turns the checks back on before the connection goes back to the pool. If that fails, the
+	 * connection is aborted, so the pool discards it instead of lending it out with the checks off.
+	 */
+	private void restoreSessionChecks(Connection conn) throws SQLException {
+		try {
+			setSessionChecks(conn, 1);
+		} catch (SQLException e) {
+			try {
+				conn.abort(Runnable::run);
+			} catch (SQLException abortFailure) {
+				e.addSuppressed(abortFailure);
+			}
+			throw e;
+		}
+	}
+	
+	private void setSessionChecks(Connection conn, int value) throws SQLException {
+		try(Statement stmt = conn.createStatement()){
+			stmt.execute("SET foreign_key_checks = " + value + ", unique_checks = " + value);
+		}
+	}
+
+
+}
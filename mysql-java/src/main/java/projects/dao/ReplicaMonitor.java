@@ -0,0 +1,102 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches how far a read replica is behind its source. Every check interval it runs SHOW REPLICA
+ * STATUS (SHOW SLAVE STATUS on servers before 8.0.22) on the replica and reads the lag in seconds.
+ *
+ * The replica counts as usable only while the last check succeeded, replication is running and the
+ * lag is within maxLagSeconds. Anything else (the replica is down, replication stopped, the user
+ * lacks the REPLICATION CLIENT privilege, or the server is not a replica at all) makes it unusable,
+ * and {@link DbConnection#getReadConnection()} sends reads to the primary until a later check passes.
+ */
+public class ReplicaMonitor implements AutoCloseable {
+
+	private static final long UNKNOWN = -1;
+
+	private final ConnectionPool replica;
+	private final long maxLagSeconds;
+	private final ScheduledExecutorService checker;
+
+	private volatile long lagSeconds = UNKNOWN;
+	private volatile boolean usable;
+
+	public ReplicaMonitor(ConnectionPool replica, long maxLagSeconds, long checkIntervalMillis) {
+		this.replica = replica;
+		this.maxLagSeconds = maxLagSeconds;
+
+		this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replica-lag-monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		//the first check runs at once; until it passes, reads go to the primary
+		checker.scheduleWithFixedDelay(this::check, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	//--------- METHOD: Status -------------------------------------------------
+
+	public boolean isUsable() {
+		return usable;
+	}
+
+	//seconds behind the source at the last check, or -1 if unknown
+	public long getLagSeconds() {
+		return lagSeconds;
+	}
+
+	//--------- METHOD: Check --------------------------------------------------
+
+	private void check() {
+
+		long lag;
+
+		try(Connection conn = replica.getConnection()){
+			lag = readLag(conn);
+		} catch (RuntimeException | SQLException e) {
+			lag = UNKNOWN;
+		}
+
+		lagSeconds = lag;
+		usable = lag != UNKNOWN && lag <= maxLagSeconds;
+	}
+
+	private long readLag(Connection conn) throws SQLException {
+		try {
+			return readLag(conn, "SHOW REPLICA STATUS", "Seconds_Behind_Source");
+		} catch (SQLException e) {
+			//servers before 8.0.22 only know the old names
+			return readLag(conn, "SHOW SLAVE STATUS", "Seconds_Behind_Master");
+		}
+	}
+
+	//no row means the server is not a replica; a null lag means replication is not running
+	private long readLag(Connection conn, String sql, String column) throws SQLException {
+		try(Statement stmt = conn.createStatement()){
+			try(ResultSet rs = stmt.executeQuery(sql)){
+				if(!rs.next()) {
+					return UNKNOWN;
+				}
+
+				long lag = rs.getLong(column);
+				return rs.wasNull() ? UNKNOWN : lag;
+			}
+		}
+	}
+
+	//--------- METHOD: Close --------------------------------------------------
+
+	@Override
+	public void close() {
+		checker.shutdownNow();
+		usable = false;
+	}
+}
@@ -0,0 +1,405 @@
+package projects.dao;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * An opt-in slow-query log. When it is on, {@link DbConnection} hands out connections wrapped so that
+ * every statement run through them is timed, including the ones issued by DaoBase helpers such as
+ * getNextSequenceNumber and getLastInsertId. A statement that takes longer than the threshold is
+ * logged at WARNING on the projects.dao.SlowQueryLog logger with its normalized SQL, its bound
+ * parameters and, for SELECT/INSERT/UPDATE/DELETE/REPLACE, the EXPLAIN plan. Plans that scan a
+ * whole table are flagged.
+ *
+ * EXPLAIN runs on a background thread over a dedicated side connection, so the caller's connection
+ * and transaction are untouched and the slow statement is not made slower. If the background queue
+ * is full, the statement is logged without a plan.
+ *
+ * Settings come from slowQuery.* in db.properties. While the log is off, connections are not wrapped
+ * at all.
+ */
+public final class SlowQueryLog {
+
+	private static final Logger LOG = Logger.getLogger(SlowQueryLog.class.getName());
+
+	private static volatile boolean enabled = Boolean.parseBoolean(DbConnection.getProperty("slowQuery.enabled", "false"));
+	private static volatile long thresholdNanos = TimeUnit.MILLISECONDS
+			.toNanos(DbConnection.getLong("slowQuery.thresholdMillis", 200));
+	private static volatile boolean explain = Boolean.parseBoolean(DbConnection.getProperty("slowQuery.explain", "true"));
+
+	private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*(SELECT|INSERT|UPDATE|DELETE|REPLACE)\\b",
+			Pattern.CASE_INSENSITIVE);
+
+	// @formatter:off
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+	private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+	private static final Pattern TUPLE_LIST = Pattern.compile("\\(\\?, \\.\\.\\.\\)(?:\\s*,\\s*\\(\\?, \\.\\.\\.\\))+");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+	// @formatter:on
+
+	//one thread and a short queue: EXPLAIN is diagnostics and must never pile up behind real work
+	private static final ThreadPoolExecutor EXPLAINER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(100), runnable -> {
+				Thread thread = new Thread(runnable, "slow-query-explain");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	//only touched on the explain thread
+	private static Connection sideConnection;
+
+	private SlowQueryLog() {
+	}
+
+	//--------- METHOD: Settings -----------------------------------------------
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	//applies to connections borrowed from now on
+	public static void setEnabled(boolean enabled) {
+		SlowQueryLog.enabled = enabled;
+	}
+
+	public static long getThresholdMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+	}
+
+	public static void setThresholdMillis(long thresholdMillis) {
+		if(thresholdMillis < 0) {
+			throw new IllegalArgumentException("Threshold must not be negative: " + thresholdMillis);
+		}
+		thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+	}
+
+	public static void setExplain(boolean explain) {
+		SlowQueryLog.explain = explain;
+	}
+
+	//--------- METHOD: Wrap ---------------------------------------------------
+
+	static Connection wrap(Connection conn) {
+		return proxy(Connection.class, new ConnectionHandler(conn));
+	}
+
+	//--------- METHOD: Normalize ----------------------------------------------
+
+	/**
+	 * SQL with literals replaced by ?, runs of placeholders and multi-row VALUES lists folded, and
+	 * whitespace collapsed, so the same statement shape always logs the same way.
+	 */
+	static String normalize(String sql) {
+		String text = STRING_LITERAL.matcher(sql).replaceAll("?");
+		text = NUMBER_LITERAL.matcher(text).replaceAll("?");
+		text = WHITESPACE.matcher(text).replaceAll(" ").trim();
+		text = PLACEHOLDER_LIST.matcher(text).replaceAll("(?, ...)");
+		return TUPLE_LIST.matcher(text).replaceAll("(?, ...), ...");
+	}
+
+	//--------- METHOD: Report -------------------------------------------------
+
+	private static void report(String sql, Map<Integer, Object> parameters, int batchSize, long elapsedNanos) {
+
+		Runnable log = () -> warn(describe(sql, parameters, batchSize, elapsedNanos, explainPlan(sql, parameters)));
+		Runnable logWithoutPlan = () -> warn(describe(sql, parameters, batchSize, elapsedNanos, null));
+
+		if(!explain || batchSize > 1 || !EXPLAINABLE.matcher(sql).find() || !rebindable(parameters)) {
+			logWithoutPlan.run();
+			return;
+		}
+
+		try {
+			EXPLAINER.execute(log);
+		} catch (RejectedExecutionException e) {
+			logWithoutPlan.run();
+		}
+	}
+
+	//explicit source so log lines do not name the lambda that wrote them
+	private static void warn(String message) {
+		LOG.logp(Level.WARNING, SlowQueryLog.class.getName(), "report", message);
+	}
+
+	private static String describe(String sql, Map<Integer, Object> parameters, int batchSize, long elapsedNanos,
+			List<String> plan) {
+
+		StringBuilder text = new StringBuilder();
+
+		text.append(String.format("Slow query (%.1f ms", elapsedNanos / 1e6));
+
+		if(batchSize > 1) {
+			text.append(", batch of ").append(batchSize);
+		}
+		text.append("): ").append(normalize(sql));
+
+		if(!parameters.isEmpty()) {
+			text.append("\n  parameters: ").append(parameters);
+		}
+
+		if(Objects.nonNull(plan)) {
+			for(String row : plan) {
+				text.append("\n  plan: ").append(row);
+			}
+		}
+		return text.toString();
+	}
+
+	//--------- METHOD: Explain ------------------------------------------------
+
+	//runs on the explain thread; a failure is reported in place of the plan
+	private static List<String> explainPlan(String sql, Map<Integer, Object> parameters) {
+
+		List<String> plan = new ArrayList<>();
+
+		try {
+			if(Objects.isNull(sideConnection) || !sideConnection.isValid(2)) {
+				closeSideConnection();
+				sideConnection = DbConnection.openUnpooled();
+			}
+
+			try(PreparedStatement stmt = sideConnection.prepareStatement("EXPLAIN " + sql)){
+				for(Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+					Object value = parameter.getValue();
+
+					if(value instanceof SqlNull) {
+						stmt.setNull(parameter.getKey(), ((SqlNull)value).sqlType);
+					} else {
+						stmt.setObject(parameter.getKey(), value);
+					}
+				}
+
+				try(ResultSet rs = stmt.executeQuery()){
+					ResultSetMetaData meta = rs.getMetaData();
+
+					while(rs.next()) {
+						StringJoiner row = new StringJoiner(", ");
+
+						for(int column = 1; column <= meta.getColumnCount(); column++) {
+							Object value = rs.getObject(column);
+
+							if(Objects.nonNull(value)) {
+								row.add(meta.getColumnLabel(column) + "=" + value);
+							}
+						}
+
+						//an INSERT always shows type=ALL for its target table; that is not a scan
+						String selectType = rs.getString("select_type");
+						boolean scan = "ALL".equals(rs.getString("type")) && !"INSERT".equals(selectType)
+								&& !"REPLACE".equals(selectType);
+
+						plan.add(row + (scan ? "  <-- full table scan" : ""));
+					}
+				}
+			}
+		} catch (Exception e) {
+			LOG.log(Level.FINE, "EXPLAIN failed", e);
+			plan.add("unavailable (" + e.getMessage() + ")");
+			closeSideConnection();
+		}
+		return plan;
+	}
+
+	private static void closeSideConnection() {
+		if(Objects.nonNull(sideConnection)) {
+			try {
+				sideConnection.close();
+			} catch (SQLException e) {
+				//being replaced anyway
+			}
+			sideConnection = null;
+		}
+	}
+
+	//EXPLAIN re-binds the parameters, which streams and LOBs do not allow
+	private static boolean rebindable(Map<Integer, Object> parameters) {
+		return parameters.values().stream().noneMatch(value -> value instanceof InputStream
+				|| value instanceof Reader || value instanceof Blob || value instanceof Clob);
+	}
+
+	//--------- METHOD: Proxies ------------------------------------------------
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return (T)Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+	}
+
+	private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw Objects.requireNonNullElse(e.getCause(), e);
+		}
+	}
+
+	//--------- CLASS: Connection Handler --------------------------------------
+
+	//wraps every statement the connection creates; everything else goes straight through
+	private static class ConnectionHandler implements InvocationHandler {
+		private final Connection conn;
+
+		ConnectionHandler(Connection conn) {
+			this.conn = conn;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+			switch(method.getName()) {
+			case "prepareStatement":
+				PreparedStatement prepared = (PreparedStatement)forward(conn, method, args);
+				return proxy(PreparedStatement.class, new StatementHandler(prepared, (String)args[0]));
+
+			case "createStatement":
+				Statement stmt = (Statement)forward(conn, method, args);
+				return proxy(Statement.class, new StatementHandler(stmt, null));
+
+			case "equals":
+				return proxy == args[0];
+
+			case "hashCode":
+				return System.identityHashCode(proxy);
+
+			case "toString":
+				return "SlowQueryLogged" + conn;
+
+			default:
+				return forward(conn, method, args);
+			}
+		}
+	}
+
+	//--------- CLASS: Statement Handler ---------------------------------------
+
+	/*
+	 * Times execute* calls. For prepared statements the SQL is known up front and the parameters are
+	 * recorded as they are set; for plain statements the SQL comes with each call.
+	 */
+	private static class StatementHandler implements InvocationHandler {
+		private final Statement stmt;
+		private final String preparedSql;
+		private final Map<Integer, Object> parameters = new TreeMap<>();
+		private final List<String> batch = new ArrayList<>();
+		private int preparedBatchSize;
+
+		StatementHandler(Statement stmt, String preparedSql) {
+			this.stmt = stmt;
+			this.preparedSql = preparedSql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+			String name = method.getName();
+
+			if(name.startsWith("execute")) {
+				return timed(method, args);
+			}
+
+			if(name.startsWith("set") && Objects.nonNull(args) && args.length >= 2 && args[0] instanceof Integer) {
+				recordParameter(name, args);
+
+			} else if("clearParameters".equals(name)) {
+				parameters.clear();
+
+			} else if("addBatch".equals(name)) {
+				if(Objects.isNull(args)) {
+					preparedBatchSize++;
+				} else {
+					batch.add((String)args[0]);
+				}
+
+			} else if("clearBatch".equals(name)) {
+				batch.clear();
+				preparedBatchSize = 0;
+			}
+
+			return forward(stmt, method, args);
+		}
+
+		private Object timed(Method method, Object[] args) throws Throwable {
+
+			long start = System.nanoTime();
+
+			try {
+				return forward(stmt, method, args);
+			} finally {
+				long elapsed = System.nanoTime() - start;
+				boolean isBatch = method.getName().contains("Batch");
+
+				if(elapsed >= thresholdNanos) {
+					String sql;
+					int batchSize;
+
+					if(Objects.nonNull(preparedSql)) {
+						sql = preparedSql;
+						batchSize = isBatch ? preparedBatchSize : 1;
+					} else if(isBatch) {
+						sql = batch.isEmpty() ? "" : batch.get(0);
+						batchSize = batch.size();
+					} else {
+						sql = (String)args[0];
+						batchSize = 1;
+					}
+					report(sql, new TreeMap<>(parameters), batchSize, elapsed);
+				}
+
+				//executeBatch empties the batch
+				if(isBatch) {
+					batch.clear();
+					preparedBatchSize = 0;
+				}
+			}
+		}
+
+		private void recordParameter(String setter, Object[] args) {
+			Integer index = (Integer)args[0];
+
+			if("setNull".equals(setter)) {
+				parameters.put(index, new SqlNull((Integer)args[1]));
+			} else {
+				parameters.put(index, args[1]);
+			}
+		}
+	}
+
+	//a setNull parameter: prints as null and keeps its type for re-binding
+	private static class SqlNull {
+		private final int sqlType;
+
+		SqlNull(int sqlType) {
+			this.sqlType = sqlType;
+		}
+
+		@Override
+		public String toString() {
+			return "null";
+		}
+	}
+}
@@ -0,0 +1,28 @@
+/**
+ * 
+ */
+package projects.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * The totals of every project in a category, summed the same way as {@link ProjectRollup}. The
+ * hours sums skip projects with no hours recorded, and hoursVariance only counts projects with both
+ * an estimate and actual hours.
+ * 
+ * @author Promineo
+ *
+ */
+public record CategoryRollup(Integer categoryId, String categoryName, int projectCount,
+    BigDecimal materialCost, long stepCount, BigDecimal estimatedHours, BigDecimal actualHours,
+    BigDecimal hoursVariance) {
+
+//----------------- MEHTOD: Set to a String ---------------------
+
+  @Override
+  public String toString() {
+    return categoryId + ": " + categoryName + ", projects=" + projectCount + ", materialCost="
+        + materialCost + ", steps=" + stepCount + ", estimatedHours=" + estimatedHours
+        + ", actualHours=" + actualHours + ", variance=" + hoursVariance;
+  }
+}
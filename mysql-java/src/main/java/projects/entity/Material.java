@@ -4,17 +4,27 @@
 package projects.entity;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * @author Promineo
  *
  */
-public class Material {
+public class Material extends TrackedEntity {
   private Integer materialId;
   private Integer projectId;
   private String materialName;
   private Integer numRequired;
   private BigDecimal cost;
+  private Integer materialOrder;
+
+  private static final int MATERIAL_NAME = 0;
+  private static final int NUM_REQUIRED = 1;
+  private static final int COST = 2;
+  private static final int MATERIAL_ORDER = 3;
+
+  private static final List<String> TRACKED_FIELDS =
+      List.of("materialName", "numRequired", "cost", "materialOrder");
 
   
   //----------------- GETTERS & SETTERS --------------------------
@@ -40,6 +50,7 @@ public class Material {
   }
 
   public void setMaterialName(String materialName) {
+    track(MATERIAL_NAME, this.materialName, materialName);
     this.materialName = materialName;
   }
 
@@ -48,6 +59,7 @@ public class Material {
   }
 
   public void setNumRequired(Integer numRequired) {
+    track(NUM_REQUIRED, this.numRequired, numRequired);
     this.numRequired = numRequired;
   }
 
@@ -56,14 +68,29 @@ public class Material {
   }
 
   public void setCost(BigDecimal cost) {
+    track(COST, this.cost, cost);
     this.cost = cost;
   }
+
+  public Integer getMaterialOrder() {
+    return materialOrder;
+  }
+
+  public void setMaterialOrder(Integer materialOrder) {
+    track(MATERIAL_ORDER, this.materialOrder, materialOrder);
+    this.materialOrder = materialOrder;
+  }
+  
+  @Override
+  protected List<String> trackedFields() {
+    return TRACKED_FIELDS;
+  }
   
 //----------------- METHOD: Set to a String --------------------------
 
   @Override
   public String toString() {
     return "ID=" + materialId + ", materialName=" + materialName + ", numRequired=" + numRequired
-        + ", cost=" + cost;
+        + ", cost=" + cost + ", materialOrder=" + materialOrder;
   }
 }
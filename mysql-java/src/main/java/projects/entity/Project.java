@@ -11,7 +11,7 @@ import java.util.List;
  * @author Promineo
  *
  */
-public class Project {
+public class Project extends TrackedEntity {
   private Integer projectId;
   private String projectName;
   private Integer estimatedHours;
@@ -23,6 +23,16 @@ public class Project {
   private List<Step> steps = new LinkedList<>();
   private List<Category> categories = new LinkedList<>();
 
+  /* Bit numbers of the columns an update can write, indexes into TRACKED_FIELDS. */
+  private static final int PROJECT_NAME = 0;
+  private static final int ESTIMATED_HOURS = 1;
+  private static final int ACTUAL_HOURS = 2;
+  private static final int DIFFICULTY = 3;
+  private static final int NOTES = 4;
+
+  private static final List<String> TRACKED_FIELDS =
+      List.of("projectName", "estimatedHours", "actualHours", "difficulty", "notes");
+
   public Integer getProjectId() {
     return projectId;
   }
@@ -36,6 +46,7 @@ public class Project {
   }
 
   public void setProjectName(String projectName) {
+    track(PROJECT_NAME, this.projectName, projectName);
     this.projectName = projectName;
   }
 
@@ -44,6 +55,7 @@ public class Project {
   }
 
   public void setEstimatedHours(Integer estimatedHours2) {
+    track(ESTIMATED_HOURS, this.estimatedHours, estimatedHours2);
     this.estimatedHours = estimatedHours2;
   }
 
@@ -52,6 +64,7 @@ public class Project {
   }
 
   public void setActualHours(Integer actualHours2) {
+    track(ACTUAL_HOURS, this.actualHours, actualHours2);
     this.actualHours = actualHours2;
   }
 
@@ -60,6 +73,7 @@ public class Project {
   }
 
   public void setDifficulty(Integer difficulty) {
+    track(DIFFICULTY, this.difficulty, difficulty);
     this.difficulty = difficulty;
   }
 
@@ -68,6 +82,7 @@ public class Project {
   }
 
   public void setNotes(String notes) {
+    track(NOTES, this.notes, notes);
     this.notes = notes;
   }
 
@@ -83,6 +98,20 @@ public class Project {
     return categories;
   }
 
+  @Override
+  protected List<String> trackedFields() {
+    return TRACKED_FIELDS;
+  }
+
+  /**
+   * Forgets the changes to the project and to its materials and steps.
+   */
+  public void clearAllChanges() {
+    clearChanges();
+    materials.forEach(Material::clearChanges);
+    steps.forEach(Step::clearChanges);
+  }
+
   @Override
   public String toString() {
     String result = "";
@@ -0,0 +1,28 @@
+/**
+ * 
+ */
+package projects.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * One project's totals: what its materials cost (num_required x cost, materials without a cost
+ * count as free), how many materials and steps it has, and how its actual hours compare to the
+ * estimate. hoursVariance is actual minus estimated, or null if either is missing.
+ * 
+ * @author Promineo
+ *
+ */
+public record ProjectRollup(Integer projectId, String projectName, BigDecimal materialCost,
+    int materialCount, int stepCount, BigDecimal estimatedHours, BigDecimal actualHours,
+    BigDecimal hoursVariance) {
+
+//----------------- MEHTOD: Set to a String ---------------------
+
+  @Override
+  public String toString() {
+    return projectId + ": " + projectName + ", materialCost=" + materialCost + ", materials="
+        + materialCount + ", steps=" + stepCount + ", estimatedHours=" + estimatedHours
+        + ", actualHours=" + actualHours + ", variance=" + hoursVariance;
+  }
+}
@@ -0,0 +1,21 @@
+/**
+ * 
+ */
+package projects.entity;
+
+/**
+ * The two columns a project list shows. Read by its own query instead of loading full
+ * {@link Project} rows, so lists skip the notes text and the empty child lists of every project.
+ * 
+ * @author Promineo
+ *
+ */
+public record ProjectSummary(Integer projectId, String projectName) {
+
+//----------------- MEHTOD: Set to a String ---------------------
+
+  @Override
+  public String toString() {
+    return projectId + ": " + projectName;
+  }
+}
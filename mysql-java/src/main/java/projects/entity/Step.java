@@ -3,16 +3,23 @@
  */
 package projects.entity;
 
+import java.util.List;
+
 /**
  * @author Promineo
  *
  */
-public class Step {
+public class Step extends TrackedEntity {
   private Integer stepId;
   private Integer projectId;
   private String stepText;
   private Integer stepOrder;
 
+  private static final int STEP_TEXT = 0;
+  private static final int STEP_ORDER = 1;
+
+  private static final List<String> TRACKED_FIELDS = List.of("stepText", "stepOrder");
+
   
   //----------------- GETTERS & SETTERS ----------------------
   
@@ -37,6 +44,7 @@ public class Step {
   }
 
   public void setStepText(String stepText) {
+    track(STEP_TEXT, this.stepText, stepText);
     this.stepText = stepText;
   }
 
@@ -45,9 +53,15 @@ public class Step {
   }
 
   public void setStepOrder(Integer stepOrder) {
+    track(STEP_ORDER, this.stepOrder, stepOrder);
     this.stepOrder = stepOrder;
   }
   
+  @Override
+  protected List<String> trackedFields() {
+    return TRACKED_FIELDS;
+  }
+  
   //----------------- MEHTOD: Set to a String ---------------------
 
   @Override
@@ -0,0 +1,67 @@
+/**
+ *
+ */
+package projects.entity;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Records which of an entity's updatable fields have been given a new value since it was read or
+ * last saved, so an update can write those columns and no others. Setters report changes with
+ * {@link #track(int, Object, Object)}; the DAO clears them on the entities it reads and saves. An
+ * entity that was never saved reports every field it has been given.
+ *
+ * The changes are one int per entity, so tracking adds nothing to allocate.
+ *
+ * @author Promineo
+ *
+ */
+public abstract class TrackedEntity {
+  private int changedFields;
+
+  /**
+   * @return The names of the tracked fields, in the order of their bit numbers.
+   */
+  protected abstract List<String> trackedFields();
+
+  /**
+   * Marks the field as changed unless the new value equals the old one.
+   *
+   * @param field The field's bit number (its index in {@link #trackedFields()}).
+   */
+  protected void track(int field, Object oldValue, Object newValue) {
+    if(!Objects.equals(oldValue, newValue)) {
+      changedFields |= 1 << field;
+    }
+  }
+
+  public boolean hasChanges() {
+    return changedFields != 0;
+  }
+
+  /**
+   * @return The names of the changed fields, in declaration order.
+   */
+  public Set<String> getChangedFields() {
+    Set<String> changed = new LinkedHashSet<>();
+    List<String> fields = trackedFields();
+
+    for(int field = 0; field < fields.size(); field++) {
+      if((changedFields & (1 << field)) != 0) {
+        changed.add(fields.get(field));
+      }
+    }
+
+    return changed;
+  }
+
+  /**
+   * Forgets the changes; called once they are saved or when the entity is read.
+   */
+  public void clearChanges() {
+    changedFields = 0;
+  }
+}
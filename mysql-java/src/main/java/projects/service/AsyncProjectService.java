@@ -0,0 +1,139 @@
+package projects.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import projects.dao.DbConnection;
+import projects.entity.Project;
+
+/**
+ * A non-blocking facade over {@link ProjectService}. Every call runs the blocking JDBC work on its
+ * own virtual thread and returns a CompletableFuture, so thousands of requests can be in flight
+ * without a platform thread each.
+ *
+ * At most maxConcurrency calls touch the database at once; the rest wait (cheaply, on their virtual
+ * threads) for a slot. The default is the connection pool size, so waiting happens here rather than
+ * in the pool's acquire timeout.
+ *
+ * Cancelling a returned future, or letting a timeout expire, interrupts the virtual thread doing
+ * the work. A call still waiting for a slot gives up at once; one already running a query stops when
+ * the driver notices the interrupt.
+ *
+ * The read-your-writes window of DbConnection is per thread, and every call here runs on a new one.
+ * So each call takes the calling thread's window with it, and a write submitted here opens the
+ * window on the calling thread. Later calls from that thread then read from the primary and see
+ * the write.
+ */
+public class AsyncProjectService implements AutoCloseable {
+
+	private final ProjectService projectService;
+	private final Semaphore permits;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	public AsyncProjectService(ProjectService projectService) {
+		this(projectService, DbConnection.getPool().getMaxSize());
+	}
+
+	public AsyncProjectService(ProjectService projectService, int maxConcurrency) {
+		if(maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+		}
+		this.projectService = projectService;
+		this.permits = new Semaphore(maxConcurrency, true);
+	}
+
+	//--------- METHOD: Reads --------------------------------------------------
+
+	public CompletableFuture<Project> fetchProjectById(Integer projectId) {
+		return submit(() -> projectService.fetchProjectById(projectId));
+	}
+
+	public CompletableFuture<List<Project>> fetchProjects() {
+		return submit(projectService::fetchProjects);
+	}
+
+	public CompletableFuture<List<Project>> fetchProjectsByIds(Collection<Integer> projectIds) {
+		return submit(() -> projectService.fetchProjectsByIds(projectIds));
+	}
+
+	//--------- METHOD: Writes -------------------------------------------------
+
+	//with group commit on, the insert waits in the writer's queue rather than holding a slot
+	public CompletableFuture<Project> addProject(Project project) {
+		if(Objects.nonNull(projectService.getGroupCommitWriter())) {
+			return projectService.submitProject(project);
+		}
+		DbConnection.markWrite();
+		return submit(() -> projectService.addProject(project));
+	}
+
+	public CompletableFuture<List<Project>> addProjects(List<Project> projects) {
+		DbConnection.markWrite();
+		return submit(() -> projectService.addProjects(projects));
+	}
+
+	//--------- METHOD: Timeout ------------------------------------------------
+
+	/**
+	 * Fails the future with a TimeoutException if it has not completed in time, which also cancels
+	 * the work behind it. Returns the same future for chaining.
+	 */
+	public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, Duration timeout) {
+		return future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	//--------- METHOD: Close --------------------------------------------------
+
+	//stops accepting calls; calls already submitted still finish
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	//--------- METHOD: Submit -------------------------------------------------
+
+	private <T> CompletableFuture<T> submit(Callable<T> work) {
+
+		CompletableFuture<T> result = new CompletableFuture<>();
+		long primaryReadsUntil = DbConnection.getPrimaryReadsUntil();
+
+		Future<?> task = executor.submit(() -> {
+			DbConnection.keepReadsOnPrimaryUntil(primaryReadsUntil);
+
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				//cancelled or timed out while waiting for a slot; result is already complete
+				return;
+			}
+
+			try {
+				result.complete(work.call());
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			} finally {
+				permits.release();
+			}
+		});
+
+		//once the caller stops waiting (cancel or timeout), stop the work too
+		result.whenComplete((value, error) -> {
+			if(error instanceof CancellationException || error instanceof TimeoutException) {
+				task.cancel(true);
+			}
+		});
+
+		return result;
+	}
+}
@@ -0,0 +1,548 @@
+package projects.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.ProjectSummary;
+import projects.entity.Step;
+import projects.exceptions.DbException;
+
+/**
+ * The whole catalog (every project with its materials, steps and categories) in one binary file
+ * that is memory-mapped and read in place. A read node can open a snapshot and answer
+ * fetchProjectById and fetchProjects without a database round trip; the operating system pages the
+ * file in as records are touched, and a record is decoded only when it is asked for.
+ *
+ * File layout (big-endian):
+ * <pre>
+ * header   int magic "PRJS", int version, long createdAtMillis
+ * records  one per project, in project name order:
+ *          int projectId, str name, int estimatedHours, int actualHours, int difficulty, str notes,
+ *          int materials, then (int materialId, str name, int numRequired, str cost, int materialOrder) each,
+ *          int steps, then (int stepId, str text, int stepOrder) each,
+ *          int categories, then (int categoryId, str name) each
+ * index    (int projectId, int recordOffset) per project, sorted by project ID
+ * footer   int projectCount, int indexOffset, int magic
+ * </pre>
+ * A str is an int byte length (-1 for null) followed by UTF-8 bytes; a null int is Integer.MIN_VALUE.
+ * A mapped buffer is limited to 2 GB, which bounds the file size.
+ *
+ * The file is never rewritten in place. Changes made after the export are layered on top: a
+ * refresh loads changed projects from the database into an in-memory overlay and records deleted
+ * ones, and lookups consult the overlay first.
+ */
+public class CatalogSnapshot {
+
+	private static final int MAGIC = 0x50524A53;
+	private static final int VERSION = 2;
+	private static final int HEADER_BYTES = 16;
+	private static final int FOOTER_BYTES = 12;
+	private static final int NULL_INT = Integer.MIN_VALUE;
+
+	//projects fetched from the database per fetchProjectsByIds call while exporting or refreshing
+	private static final int EXPORT_CHUNK = 500;
+
+	private final Path file;
+	private final ByteBuffer buffer;
+	private final long createdAtMillis;
+	private final int projectCount;
+	private final int indexOffset;
+
+	//projects loaded since the export, and IDs deleted since then
+	private final Map<Integer, Project> overlay = new ConcurrentHashMap<>();
+	private final Set<Integer> deleted = ConcurrentHashMap.newKeySet();
+
+	//each project's place in the database's name order as of the last refresh that loaded any
+	private volatile Map<Integer, Integer> nameRank = Map.of();
+
+	private CatalogSnapshot(Path file, ByteBuffer buffer) {
+		this.file = file;
+		this.buffer = buffer;
+
+		if(buffer.limit() < HEADER_BYTES + FOOTER_BYTES || buffer.getInt(0) != MAGIC
+				|| buffer.getInt(buffer.limit() - 4) != MAGIC) {
+			throw new DbException(file + " is not a catalog snapshot.");
+		}
+
+		int version = buffer.getInt(4);
+
+		if(version != VERSION) {
+			throw new DbException(file + " is a version " + version + " snapshot; version " + VERSION + " is supported.");
+		}
+
+		this.createdAtMillis = buffer.getLong(8);
+		this.projectCount = buffer.getInt(buffer.limit() - FOOTER_BYTES);
+		this.indexOffset = buffer.getInt(buffer.limit() - FOOTER_BYTES + 4);
+	}
+
+	//--------- METHOD: Export -------------------------------------------------
+
+	/**
+	 * Writes every project in the database to a snapshot file. The file is written next to the
+	 * target and moved into place when complete, so a reader never sees half a snapshot. Projects are
+	 * read in chunks, so memory use does not grow with the catalog.
+	 *
+	 * @return The number of projects written.
+	 */
+	public static int export(ProjectDao projectDao, Path target) {
+
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+		try {
+			List<ProjectSummary> summaries = projectDao.fetchProjectSummaries();
+			int[][] index = new int[summaries.size()][];
+			int written = 0;
+
+			try(CountingOutputStream counter = new CountingOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temp)));
+					DataOutputStream out = new DataOutputStream(counter)){
+
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(System.currentTimeMillis());
+
+				for(int from = 0; from < summaries.size(); from += EXPORT_CHUNK) {
+					List<Integer> ids = summaries.subList(from, Math.min(from + EXPORT_CHUNK, summaries.size()))
+							.stream().map(ProjectSummary::projectId).toList();
+
+					//fetchProjectsByIds keeps the name order of the IDs; deleted ones are skipped
+					for(Project project : projectDao.fetchProjectsByIds(ids)) {
+						index[written++] = new int[] {project.getProjectId(), checkedOffset(counter.count)};
+						writeProject(out, project);
+					}
+				}
+
+				int indexStart = checkedOffset(counter.count);
+				int[][] byId = Arrays.copyOf(index, written);
+				Arrays.sort(byId, Comparator.comparingInt(entry -> entry[0]));
+
+				for(int[] entry : byId) {
+					out.writeInt(entry[0]);
+					out.writeInt(entry[1]);
+				}
+
+				out.writeInt(written);
+				out.writeInt(indexStart);
+				out.writeInt(MAGIC);
+
+				out.flush();
+				checkedOffset(counter.count);
+			}
+
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return written;
+
+		} catch (IOException e) {
+			throw new DbException("Unable to write catalog snapshot " + target, e);
+		} finally {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException e) {
+				//only a leftover temp file
+			}
+		}
+	}
+
+	private static int checkedOffset(long offset) {
+		if(offset > Integer.MAX_VALUE) {
+			throw new DbException("Catalog snapshot would exceed 2 GB, the most that can be mapped.");
+		}
+		return (int)offset;
+	}
+
+	private static void writeProject(DataOutputStream out, Project project) throws IOException {
+		out.writeInt(project.getProjectId());
+		writeString(out, project.getProjectName());
+		writeInt(out, project.getEstimatedHours());
+		writeInt(out, project.getActualHours());
+		writeInt(out, project.getDifficulty());
+		writeString(out, project.getNotes());
+
+		out.writeInt(project.getMaterials().size());
+
+		for(Material material : project.getMaterials()) {
+			writeInt(out, material.getMaterialId());
+			writeString(out, material.getMaterialName());
+			writeInt(out, material.getNumRequired());
+			writeString(out, Objects.isNull(material.getCost()) ? null : material.getCost().toPlainString());
+			writeInt(out, material.getMaterialOrder());
+		}
+
+		out.writeInt(project.getSteps().size());
+
+		for(Step step : project.getSteps()) {
+			writeInt(out, step.getStepId());
+			writeString(out, step.getStepText());
+			writeInt(out, step.getStepOrder());
+		}
+
+		out.writeInt(project.getCategories().size());
+
+		for(Category category : project.getCategories()) {
+			writeInt(out, category.getCategoryId());
+			writeString(out, category.getCategoryName());
+		}
+	}
+
+	private static void writeInt(DataOutputStream out, Integer value) throws IOException {
+		out.writeInt(Objects.isNull(value) ? NULL_INT : value);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if(Objects.isNull(value)) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	//--------- METHOD: Open ---------------------------------------------------
+
+	/**
+	 * Maps a snapshot file read-only. Only the header and footer are read here; records are decoded
+	 * when they are looked up.
+	 */
+	public static CatalogSnapshot open(Path file) {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			//the mapping stays valid after the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new CatalogSnapshot(file, buffer);
+		} catch (IOException e) {
+			throw new DbException("Unable to open catalog snapshot " + file, e);
+		}
+	}
+
+	//--------- METHOD: Lookups ------------------------------------------------
+
+	/**
+	 * The full project graph, or empty if the project is not in the snapshot or was deleted since.
+	 * Each call decodes a fresh copy, so callers can change what they get.
+	 */
+	public Optional<Project> findProject(Integer projectId) {
+
+		if(deleted.contains(projectId)) {
+			return Optional.empty();
+		}
+
+		Project changed = overlay.get(projectId);
+
+		if(Objects.nonNull(changed)) {
+			return Optional.of(ProjectCache.copyOf(changed));
+		}
+
+		int offset = recordOffset(projectId);
+		return offset < 0 ? Optional.empty() : Optional.of(new Reader(offset).readProject(true));
+	}
+
+	//true if lookups for this ID can be answered here, found or not
+	public boolean covers(Integer projectId) {
+		return deleted.contains(projectId) || overlay.containsKey(projectId) || recordOffset(projectId) >= 0;
+	}
+
+	/**
+	 * Every project without its children, ordered by name then ID, like ProjectDao.fetchAllProjects.
+	 * Only the leading fields of each record are decoded. Names are never compared here: file records
+	 * are in the order the database sorted them at export, and with an overlay the order is the one
+	 * the database gave at the last refresh, so both follow the column's collation.
+	 */
+	public List<Project> listProjects() {
+
+		List<Project> projects = new ArrayList<>(projectCount + overlay.size());
+
+		//records were written in name order, so ascending offsets are name order
+		int[] offsets = new int[projectCount];
+
+		for(int entry = 0; entry < projectCount; entry++) {
+			offsets[entry] = buffer.getInt(indexOffset + entry * 8 + 4);
+		}
+		Arrays.sort(offsets);
+
+		for(int offset : offsets) {
+			Integer projectId = buffer.getInt(offset);
+
+			if(!deleted.contains(projectId) && !overlay.containsKey(projectId)) {
+				projects.add(new Reader(offset).readProject(false));
+			}
+		}
+
+		if(!overlay.isEmpty()) {
+			for(Project changed : overlay.values()) {
+				Project project = ProjectCache.copyOf(changed);
+				project.getMaterials().clear();
+				project.getSteps().clear();
+				project.getCategories().clear();
+				projects.add(project);
+			}
+			Map<Integer, Integer> rank = nameRank;
+
+			projects.sort(Comparator.comparing((Project project) -> rank.getOrDefault(project.getProjectId(),
+					Integer.MAX_VALUE)).thenComparing(Project::getProjectId));
+		}
+		return projects;
+	}
+
+	//binary search of the ID index; -1 if absent
+	private int recordOffset(int projectId) {
+
+		int low = 0;
+		int high = projectCount - 1;
+
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			int id = buffer.getInt(indexOffset + middle * 8);
+
+			if(id < projectId) {
+				low = middle + 1;
+			} else if(id > projectId) {
+				high = middle - 1;
+			} else {
+				return buffer.getInt(indexOffset + middle * 8 + 4);
+			}
+		}
+		return -1;
+	}
+
+	//--------- METHOD: Refresh ------------------------------------------------
+
+	/**
+	 * Reloads the given projects from the database into the overlay; IDs no longer in the database
+	 * are marked deleted. Use it after projects were changed elsewhere. When any project is loaded,
+	 * the ID and name of every project are read too, for listProjects to order the overlay by.
+	 */
+	public void refresh(ProjectDao projectDao, Collection<Integer> projectIds) {
+
+		if(reload(projectDao, projectIds)) {
+			recordNameOrder(projectDao.fetchProjectSummaries());
+		}
+	}
+
+	//true if any of the projects is still in the database
+	private boolean reload(ProjectDao projectDao, Collection<Integer> projectIds) {
+
+		List<Integer> ids = new ArrayList<>(new HashSet<>(projectIds));
+		boolean loaded = false;
+
+		for(int from = 0; from < ids.size(); from += EXPORT_CHUNK) {
+			List<Integer> chunk = ids.subList(from, Math.min(from + EXPORT_CHUNK, ids.size()));
+			Set<Integer> missing = new HashSet<>(chunk);
+
+			for(Project project : projectDao.fetchProjectsByIds(chunk)) {
+				missing.remove(project.getProjectId());
+				deleted.remove(project.getProjectId());
+				overlay.put(project.getProjectId(), project);
+				loaded = true;
+			}
+
+			for(Integer id : missing) {
+				overlay.remove(id);
+				deleted.add(id);
+			}
+		}
+		return loaded;
+	}
+
+	//summaries come back ORDER BY project_name, sorted by the database rather than here
+	private void recordNameOrder(List<ProjectSummary> summaries) {
+
+		Map<Integer, Integer> rank = new HashMap<>();
+
+		for(ProjectSummary summary : summaries) {
+			rank.putIfAbsent(summary.projectId(), rank.size());
+		}
+		nameRank = rank;
+	}
+
+	/**
+	 * Picks up projects added or deleted since the export (or the last refresh) by comparing project
+	 * IDs with the database, which reads only the ID and name of each project. The schema records no
+	 * modification times, so projects edited in place are not detected; pass their IDs to
+	 * {@link #refresh(ProjectDao, Collection)}.
+	 *
+	 * @return The IDs that were added or deleted.
+	 */
+	public Set<Integer> refresh(ProjectDao projectDao) {
+
+		List<ProjectSummary> summaries = projectDao.fetchProjectSummaries();
+		Set<Integer> current = new HashSet<>();
+		summaries.forEach(summary -> current.add(summary.projectId()));
+
+		Set<Integer> known = new HashSet<>();
+
+		for(int entry = 0; entry < projectCount; entry++) {
+			known.add(buffer.getInt(indexOffset + entry * 8));
+		}
+		known.addAll(overlay.keySet());
+		known.removeAll(deleted);
+
+		//added: in the database but not here; deleted: here but not in the database
+		Set<Integer> changed = new HashSet<>(current);
+		changed.removeAll(known);
+
+		for(Integer id : known) {
+			if(!current.contains(id)) {
+				changed.add(id);
+			}
+		}
+
+		if(reload(projectDao, changed)) {
+			recordNameOrder(summaries);
+		}
+		return changed;
+	}
+
+	//--------- METHOD: Info ---------------------------------------------------
+
+	public Path getFile() {
+		return file;
+	}
+
+	public long getCreatedAtMillis() {
+		return createdAtMillis;
+	}
+
+	//projects in the file, not counting the overlay
+	public int getProjectCount() {
+		return projectCount;
+	}
+
+	@Override
+	public String toString() {
+		return "CatalogSnapshot[" + file + ", projects=" + projectCount + ", changed=" + overlay.size()
+				+ ", deleted=" + deleted.size() + "]";
+	}
+
+	//--------- CLASS: Reader --------------------------------------------------
+
+	//decodes one record with absolute reads, so any number of threads can read the buffer at once
+	private class Reader {
+		private int position;
+
+		Reader(int position) {
+			this.position = position;
+		}
+
+		Project readProject(boolean withChildren) {
+			Project project = new Project();
+			project.setProjectId(readInt());
+			project.setProjectName(readString());
+			project.setEstimatedHours(readInt());
+			project.setActualHours(readInt());
+			project.setDifficulty(readInt());
+			project.setNotes(readString());
+
+			//read back from saved data: nothing to update
+			if(!withChildren) {
+				project.clearChanges();
+				return project;
+			}
+
+			for(int count = buffer.getInt(advance(4)); count > 0; count--) {
+				Material material = new Material();
+				material.setMaterialId(readInt());
+				material.setProjectId(project.getProjectId());
+				material.setMaterialName(readString());
+				material.setNumRequired(readInt());
+
+				String cost = readString();
+				material.setCost(Objects.isNull(cost) ? null : new BigDecimal(cost));
+				material.setMaterialOrder(readInt());
+				project.getMaterials().add(material);
+			}
+
+			for(int count = buffer.getInt(advance(4)); count > 0; count--) {
+				Step step = new Step();
+				step.setStepId(readInt());
+				step.setProjectId(project.getProjectId());
+				step.setStepText(readString());
+				step.setStepOrder(readInt());
+				project.getSteps().add(step);
+			}
+
+			for(int count = buffer.getInt(advance(4)); count > 0; count--) {
+				Category category = new Category();
+				category.setCategoryId(readInt());
+				category.setCategoryName(readString());
+				project.getCategories().add(category);
+			}
+
+			project.clearAllChanges();
+			return project;
+		}
+
+		private Integer readInt() {
+			int value = buffer.getInt(advance(4));
+			return value == NULL_INT ? null : value;
+		}
+
+		private String readString() {
+			int length = buffer.getInt(advance(4));
+
+			if(length < 0) {
+				return null;
+			}
+
+			byte[] bytes = new byte[length];
+			buffer.get(advance(length), bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		private int advance(int bytes) {
+			int start = position;
+			position += bytes;
+			return start;
+		}
+	}
+
+	//--------- CLASS: Counting Output Stream ----------------------------------
+
+	//the byte offset of everything written so far; DataOutputStream.size() stops counting at 2 GB
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			out.write(bytes, offset, length);
+			count += length;
+		}
+	}
+}
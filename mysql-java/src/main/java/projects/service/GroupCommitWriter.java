@@ -0,0 +1,264 @@
+package projects.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import projects.entity.Project;
+
+/**
+ * Coalesces project inserts from many threads into shared transactions. Callers queue a project and
+ * get a future; one writer thread takes up to batchSize queued projects, waiting at most linger for
+ * more to arrive once it has the first, and inserts them with a single call to the batch insert
+ * (ProjectDao.insertProjects: one transaction, one multi-row INSERT per table). With many
+ * concurrent callers that is one commit, and one log flush, per batch instead of per project.
+ *
+ * If a batch fails, its projects are retried one at a time, so each caller gets its own project's
+ * result: the generated ID, or the error its project alone causes.
+ *
+ * The queue is bounded; when it is full, callers block until the writer catches up.
+ *
+ * An Error while writing (out of memory, say) fails that batch and stops the writer: it closes, and
+ * every project still queued fails rather than waiting for a thread that is gone.
+ */
+public class GroupCommitWriter implements AutoCloseable {
+
+	private static final Logger LOG = Logger.getLogger(GroupCommitWriter.class.getName());
+
+	//how often an idle writer checks whether it has been closed
+	private static final long IDLE_POLL_MILLIS = 100;
+
+	private final Function<List<Project>, List<Project>> insertBatch;
+	private final Consumer<List<Project>> afterCommit;
+	private final int batchSize;
+	private final long lingerNanos;
+	private final BlockingQueue<Pending> queue;
+	private final Thread writer;
+
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder projects = new LongAdder();
+
+	//submits hold the read lock while queuing, so once close has the write lock nothing more arrives
+	private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+	private volatile boolean closed;
+
+	private record Pending(Project project, CompletableFuture<Project> result) {
+	}
+
+	/**
+	 * @param insertBatch Inserts a list of projects in one transaction and returns them with IDs set. If
+	 *        it fails it must leave the projects as given, as ProjectDao.insertProjects does.
+	 * @param afterCommit Runs once a batch has committed, before its futures complete. If it throws, the
+	 *        error is logged and the futures still complete normally.
+	 * @param batchSize Most projects per transaction.
+	 * @param linger Longest the writer waits for a batch to fill once it holds one project.
+	 * @param capacity Most projects queued before callers block.
+	 */
+	public GroupCommitWriter(Function<List<Project>, List<Project>> insertBatch, Consumer<List<Project>> afterCommit,
+			int batchSize, Duration linger, int capacity) {
+
+		if(batchSize < 1 || capacity < 1 || linger.isNegative()) {
+			throw new IllegalArgumentException("batchSize and capacity must be positive and linger not negative");
+		}
+
+		this.insertBatch = insertBatch;
+		this.afterCommit = afterCommit;
+		this.batchSize = batchSize;
+		this.lingerNanos = linger.toNanos();
+		this.queue = new ArrayBlockingQueue<>(capacity);
+
+		this.writer = new Thread(this::run, "project-group-commit");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	//--------- METHOD: Submit -------------------------------------------------
+
+	/**
+	 * Queues a project for the next batch. The future completes with the project (ID set) once its
+	 * batch has committed, or with the error that kept it from being inserted.
+	 */
+	public CompletableFuture<Project> submit(Project project) {
+
+		CompletableFuture<Project> result = new CompletableFuture<>();
+
+		closeLock.readLock().lock();
+		try {
+			if(closed) {
+				result.completeExceptionally(new IllegalStateException("The group commit writer is closed."));
+			} else {
+				queue.put(new Pending(project, result));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.completeExceptionally(e);
+		} finally {
+			closeLock.readLock().unlock();
+		}
+		return result;
+	}
+
+	//--------- METHOD: Writer -------------------------------------------------
+
+	private void run() {
+
+		List<Pending> batch = new ArrayList<>(batchSize);
+
+		while(!closed || !queue.isEmpty()) {
+			try {
+				Pending first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+				if(Objects.isNull(first)) {
+					continue;
+				}
+
+				batch.add(first);
+				fill(batch);
+				write(batch);
+
+			} catch (InterruptedException e) {
+				//nothing else interrupts the writer; keep writing what is queued
+
+			} catch (RuntimeException | Error e) {
+				//whatever escapes write is this batch's failure; an Error also ends the writer
+				fail(batch, e);
+
+				if(e instanceof Error error) {
+					stop(error);
+					return;
+				}
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	//the writer is going away: nothing more is accepted and nothing queued is left waiting
+	private void stop(Error e) {
+		LOG.log(Level.SEVERE, "Group commit writer stopped", e);
+
+		closeLock.writeLock().lock();
+		try {
+			closed = true;
+		} finally {
+			closeLock.writeLock().unlock();
+		}
+
+		List<Pending> stranded = new ArrayList<>();
+		queue.drainTo(stranded);
+		fail(stranded, new IllegalStateException("The group commit writer stopped.", e));
+	}
+
+	//completes the futures not completed yet; the others keep their result
+	private static void fail(List<Pending> pending, Throwable e) {
+		pending.forEach(each -> each.result().completeExceptionally(e));
+	}
+
+	//takes whatever is already queued, then waits out the linger for the rest of the batch
+	private void fill(List<Pending> batch) {
+
+		queue.drainTo(batch, batchSize - batch.size());
+
+		long deadline = System.nanoTime() + lingerNanos;
+
+		while(batch.size() < batchSize) {
+			long remaining = deadline - System.nanoTime();
+
+			if(remaining <= 0) {
+				return;
+			}
+
+			Pending next;
+
+			try {
+				next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				//write what has been taken rather than drop it
+				return;
+			}
+
+			if(Objects.isNull(next)) {
+				return;
+			}
+
+			batch.add(next);
+			queue.drainTo(batch, batchSize - batch.size());
+		}
+	}
+
+	private void write(List<Pending> batch) {
+
+		List<Project> batchProjects = batch.stream().map(Pending::project).toList();
+
+		try {
+			insertBatch.apply(batchProjects);
+		} catch (RuntimeException e) {
+			if(batch.size() == 1) {
+				batch.get(0).result().completeExceptionally(e);
+				return;
+			}
+
+			//the batch rolled back, leaving the projects as they were; retry each alone so only the bad ones fail
+			for(Pending pending : batch) {
+				write(List.of(pending));
+			}
+			return;
+		}
+
+		batches.increment();
+		projects.add(batch.size());
+
+		//committed: every caller gets its project whatever the hook does, as a failure would invite a retry
+		try {
+			afterCommit.accept(batchProjects);
+		} catch (RuntimeException e) {
+			LOG.log(Level.WARNING, "After-commit hook failed for a committed batch of " + batch.size()
+					+ " projects", e);
+		} finally {
+			batch.forEach(pending -> pending.result().complete(pending.project()));
+		}
+	}
+
+	//--------- METHOD: Stats --------------------------------------------------
+
+	//transactions committed
+	public long getBatchCount() {
+		return batches.sum();
+	}
+
+	//projects inserted; divided by getBatchCount, the average batch size
+	public long getProjectCount() {
+		return projects.sum();
+	}
+
+	//--------- METHOD: Close --------------------------------------------------
+
+	//stops accepting projects and returns once every queued project has been written
+	@Override
+	public void close() {
+		closeLock.writeLock().lock();
+		try {
+			closed = true;
+		} finally {
+			closeLock.writeLock().unlock();
+		}
+
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
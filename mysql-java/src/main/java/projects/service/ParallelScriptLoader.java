@@ -0,0 +1,320 @@
+package projects.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import projects.dao.ProjectDao;
+import projects.exceptions.DbException;
+
+/**
+ * Loads a data script over several connections at once. The foreign keys in the schema script put
+ * the tables into levels: a table's level is one more than the highest level of any table it
+ * references. With the project schema that is project and category first, then material, step and
+ * project_category. Levels load one after another; within a level, INSERT statements are grouped by
+ * table into chunks and the chunks run concurrently.
+ *
+ * The data script is streamed once per level (plus once for any statements that are not INSERTs,
+ * which run first, in order, on one connection), so memory is bounded by the chunks in flight rather
+ * than by the script.
+ *
+ * A failed chunk stops the load; the exception says which chunk failed and from which statement of
+ * the script to resume.
+ */
+public class ParallelScriptLoader {
+
+	private static final Pattern CREATE_TABLE = Pattern.compile(
+			"^CREATE\\s+TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?`?(\\w+)`?", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern REFERENCES = Pattern.compile(
+			"REFERENCES\\s+`?(\\w+)`?", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern INSERT_INTO = Pattern.compile(
+			"^(?:INSERT|REPLACE)\\s+(?:(?:LOW_PRIORITY|DELAYED|HIGH_PRIORITY|IGNORE)\\s+)*(?:INTO\\s+)?`?(\\w+)`?",
+			Pattern.CASE_INSENSITIVE);
+
+	//statements that are not INSERTs, or INSERTs into tables the schema does not define
+	private static final String OTHER = "";
+
+	private final ProjectDao projectDao;
+	private final int threads;
+	private final int chunkSize;
+	private final boolean relaxChecks;
+
+	/**
+	 * @param threads How many chunks load at once; each holds a pooled connection.
+	 * @param chunkSize Statements per chunk, committed as one transaction.
+	 * @param relaxChecks Turn off foreign key and unique checks on the loading connections.
+	 */
+	public ParallelScriptLoader(ProjectDao projectDao, int threads, int chunkSize, boolean relaxChecks) {
+		if(threads < 1 || chunkSize < 1) {
+			throw new IllegalArgumentException("threads and chunkSize must be positive");
+		}
+
+		this.projectDao = projectDao;
+		this.threads = threads;
+		this.chunkSize = chunkSize;
+		this.relaxChecks = relaxChecks;
+	}
+
+	//--------- METHOD: Load ---------------------------------------------------
+
+	/**
+	 * Loads the data script, using the schema script only to work out the table levels.
+	 *
+	 * @return The number of statements executed.
+	 */
+	public long load(String schemaFile, String dataFile) {
+
+		Map<String, Integer> levels = tableLevels(schemaFile);
+		long executed = loadTables(dataFile, Set.of(OTHER), levels, 1);
+
+		for(Set<String> level : groupByLevel(levels).values()) {
+			executed += loadTables(dataFile, level, levels, threads);
+		}
+		return executed;
+	}
+
+	//--------- METHOD: Table Levels -------------------------------------------
+
+	//the schema's tables grouped by level, parents first; also used to order bulk imports
+	static List<Set<String>> tablesInLoadOrder(String schemaFile) {
+		return new ArrayList<>(groupByLevel(tableLevels(schemaFile)).values());
+	}
+
+	private static Map<String, Integer> tableLevels(String schemaFile) {
+
+		Map<String, Set<String>> references = new HashMap<>();
+
+		try(SqlScriptReader reader = open(schemaFile)){
+			String sql;
+
+			while(Objects.nonNull(sql = reader.nextStatement())) {
+				Matcher create = CREATE_TABLE.matcher(sql);
+
+				if(create.find()) {
+					Set<String> parents = new TreeSet<>();
+					Matcher ref = REFERENCES.matcher(sql);
+
+					while(ref.find()) {
+						parents.add(ref.group(1).toLowerCase(Locale.ROOT));
+					}
+					references.put(create.group(1).toLowerCase(Locale.ROOT), parents);
+				}
+			}
+		} catch (IOException e) {
+			throw new DbException(e);
+		}
+
+		Map<String, Integer> levels = new HashMap<>();
+
+		for(String table : references.keySet()) {
+			levelOf(table, references, levels, new TreeSet<>());
+		}
+		return levels;
+	}
+
+	private static int levelOf(String table, Map<String, Set<String>> references, Map<String, Integer> levels,
+			Set<String> visiting) {
+
+		Integer known = levels.get(table);
+
+		if(Objects.nonNull(known)) {
+			return known;
+		}
+
+		if(!visiting.add(table)) {
+			throw new DbException("Foreign keys form a cycle through table " + table);
+		}
+
+		int level = 0;
+
+		for(String parent : references.getOrDefault(table, Set.of())) {
+			//a self reference does not order the table against anything else
+			if(!parent.equals(table) && references.containsKey(parent)) {
+				level = Math.max(level, levelOf(parent, references, levels, visiting) + 1);
+			}
+		}
+
+		visiting.remove(table);
+		levels.put(table, level);
+		return level;
+	}
+
+	private static Map<Integer, Set<String>> groupByLevel(Map<String, Integer> levels) {
+		Map<Integer, Set<String>> byLevel = new TreeMap<>();
+
+		levels.forEach((table, level) -> byLevel.computeIfAbsent(level, l -> new TreeSet<>()).add(table));
+		return byLevel;
+	}
+
+	//--------- METHOD: Load Tables --------------------------------------------
+
+	/*
+	 * Streams the data script and loads the statements that target the given tables, with up to
+	 * parallelism chunks in flight. Returns once every chunk has committed.
+	 *
+	 * The first chunk to fail stops the load: nothing more is read or submitted, chunks already
+	 * running finish, and chunks still queued are skipped. The DbException then names the failed
+	 * chunk and the checkpoint, the first statement of the script that is not known to be committed.
+	 * Every statement of these tables before it is committed; chunks after it may have committed too,
+	 * as chunks run concurrently.
+	 */
+	private long loadTables(String dataFile, Set<String> tables, Map<String, Integer> levels, int parallelism) {
+
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		Semaphore inFlight = new Semaphore(parallelism * 2);
+		AtomicReference<Failure> failure = new AtomicReference<>();
+
+		//chunks submitted and not committed yet, and chunks still being filled
+		Set<Chunk> pending = ConcurrentHashMap.newKeySet();
+		Map<String, Chunk> filling = new HashMap<>();
+
+		long position = 0;
+		long count = 0;
+
+		try(SqlScriptReader reader = open(dataFile)){
+			String sql;
+
+			while(Objects.isNull(failure.get()) && Objects.nonNull(sql = reader.nextStatement())) {
+				position++;
+				String table = targetTable(sql, levels);
+
+				if(!tables.contains(table)) {
+					continue;
+				}
+
+				count++;
+				Chunk chunk = filling.get(table);
+
+				if(Objects.isNull(chunk)) {
+					chunk = new Chunk(table, position, chunkSize);
+					filling.put(table, chunk);
+				}
+				chunk.add(sql, position);
+
+				if(chunk.statements.size() == chunkSize) {
+					submit(executor, inFlight, chunk, pending, failure);
+					filling.remove(table);
+				}
+			}
+
+			if(Objects.isNull(failure.get())) {
+				for(Chunk chunk : filling.values()) {
+					submit(executor, inFlight, chunk, pending, failure);
+				}
+				filling.clear();
+			}
+
+			//after a failure too: the checkpoint is only known once running chunks have finished
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+		} catch (IOException e) {
+			throw new DbException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrupted while loading " + dataFile, e);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Failure failed = failure.get();
+
+		if(Objects.nonNull(failed)) {
+			long checkpoint = Stream.concat(pending.stream(), filling.values().stream()).mapToLong(chunk -> chunk.first)
+					.min().orElse(failed.chunk.first);
+
+			// @formatter:off
+			throw new DbException("Loading " + dataFile + " failed in a chunk of " + failed.chunk.statements.size()
+					+ " " + failed.chunk.table + " statements (statements " + failed.chunk.first + " to "
+					+ failed.chunk.last + " of the script). Resume tables " + tables + " from statement "
+					+ checkpoint + "; every statement of theirs before it is committed, and earlier tables are "
+					+ "loaded.", failed.cause);
+			// @formatter:on
+		}
+		return count;
+	}
+
+	//blocks while too many chunks are queued, so reading never runs far ahead of loading
+	private void submit(ExecutorService executor, Semaphore inFlight, Chunk chunk, Set<Chunk> pending,
+			AtomicReference<Failure> failure) throws InterruptedException {
+
+		inFlight.acquire();
+		pending.add(chunk);
+
+		executor.execute(() -> {
+			try {
+				//a chunk queued behind a failure is skipped and left for the resume
+				if(Objects.isNull(failure.get())) {
+					projectDao.executeBatch(chunk.statements, relaxChecks);
+					pending.remove(chunk);
+				}
+			} catch (RuntimeException | Error e) {
+				failure.compareAndSet(null, new Failure(chunk, e));
+			} finally {
+				inFlight.release();
+			}
+		});
+	}
+
+	//statements for one table, committed together; first and last are positions in the script, from 1
+	private static class Chunk {
+		private final String table;
+		private final long first;
+		private final List<String> statements;
+		private long last;
+
+		Chunk(String table, long first, int capacity) {
+			this.table = table;
+			this.first = first;
+			this.statements = new ArrayList<>(capacity);
+		}
+
+		void add(String sql, long position) {
+			statements.add(sql);
+			last = position;
+		}
+	}
+
+	private record Failure(Chunk chunk, Throwable cause) {
+	}
+
+	private String targetTable(String sql, Map<String, Integer> levels) {
+		Matcher insert = INSERT_INTO.matcher(sql);
+
+		if(insert.find()) {
+			String table = insert.group(1).toLowerCase(Locale.ROOT);
+			return levels.containsKey(table) ? table : OTHER;
+		}
+		return OTHER;
+	}
+
+	private static SqlScriptReader open(String fileName) {
+		InputStream in = ParallelScriptLoader.class.getClassLoader().getResourceAsStream(fileName);
+
+		if(Objects.isNull(in)) {
+			throw new DbException("SQL script not found on the classpath: " + fileName);
+		}
+		return new SqlScriptReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,275 @@
+package projects.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/**
+ * An in-process, read-through cache of project graphs keyed by project ID.
+ *
+ * The cache holds at most maxEntries graphs. When it is full, the entry read the fewest times is
+ * evicted, with the least recently used one going first among equals. Read counts are halved every
+ * 10 x maxEntries cache hits so that projects that were popular a while ago do not stay forever.
+ * Entries also expire ttl after they were loaded.
+ *
+ * Project entities are mutable, so the cache stores its own copy of each graph and hands every
+ * caller a fresh copy. Callers can change what they get without affecting the cache or each other.
+ */
+public class ProjectCache {
+
+	private final int maxEntries;
+	private final long ttlNanos;
+
+	private final Map<Integer, Entry> entries = new HashMap<>();
+
+	//read count -> keys with that count, least recently used first
+	private final TreeMap<Integer, LinkedHashSet<Integer>> byFrequency = new TreeMap<>();
+
+	private long readsSinceAging;
+
+	/*
+	 * Bumped by every invalidation. A load that started before an invalidation may have read the old
+	 * row, so its result is returned but not cached.
+	 */
+	private long generation;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+
+	public ProjectCache(int maxEntries, Duration ttl) {
+		if(maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+		}
+		this.maxEntries = maxEntries;
+		this.ttlNanos = ttl.toNanos();
+	}
+
+	//--------- METHOD: Get ----------------------------------------------------
+
+	/**
+	 * Returns a copy of the cached graph, or loads, caches and returns it on a miss. Nothing is
+	 * cached when the loader finds no project.
+	 */
+	public Optional<Project> get(Integer projectId, Function<Integer, Optional<Project>> loader) {
+
+		long loadGeneration;
+
+		synchronized(this) {
+			Entry entry = entries.get(projectId);
+
+			if(Objects.nonNull(entry)) {
+				if(System.nanoTime() - entry.loadedAt < ttlNanos) {
+					hits.increment();
+					touch(entry);
+					return Optional.of(copyOf(entry.project));
+				}
+
+				expirations.increment();
+				remove(entry);
+			}
+
+			misses.increment();
+			loadGeneration = generation;
+		}
+
+		//load outside the lock so a slow query does not block other readers
+		Optional<Project> loaded = loader.apply(projectId);
+
+		loaded.ifPresent(project -> put(projectId, copyOf(project), loadGeneration));
+		return loaded;
+	}
+
+	//--------- METHOD: Invalidate ---------------------------------------------
+
+	public synchronized void invalidate(Integer projectId) {
+		generation++;
+
+		Entry entry = entries.get(projectId);
+
+		if(Objects.nonNull(entry)) {
+			remove(entry);
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		generation++;
+		entries.clear();
+		byFrequency.clear();
+	}
+
+	//--------- METHOD: Stats --------------------------------------------------
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public long getExpirationCount() {
+		return expirations.sum();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	@Override
+	public String toString() {
+		return "ProjectCache[size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+				+ ", evictions=" + getEvictionCount() + ", expirations=" + getExpirationCount() + "]";
+	}
+
+	//--------- METHOD: Bookkeeping --------------------------------------------
+
+	private synchronized void put(Integer projectId, Project project, long loadGeneration) {
+
+		if(loadGeneration != generation) {
+			return;
+		}
+
+		Entry existing = entries.get(projectId);
+
+		if(Objects.nonNull(existing)) {
+			remove(existing);
+		}
+
+		while(entries.size() >= maxEntries) {
+			evictOne();
+		}
+
+		Entry entry = new Entry(projectId, project);
+		entries.put(projectId, entry);
+		bucket(entry.frequency).add(projectId);
+	}
+
+	private void touch(Entry entry) {
+		unbucket(entry);
+		entry.frequency++;
+		bucket(entry.frequency).add(entry.projectId);
+
+		if(++readsSinceAging >= 10L * maxEntries) {
+			age();
+		}
+	}
+
+	private void evictOne() {
+		Map.Entry<Integer, LinkedHashSet<Integer>> lowest = byFrequency.firstEntry();
+		Iterator<Integer> keys = lowest.getValue().iterator();
+		Integer victim = keys.next();
+
+		remove(entries.get(victim));
+		evictions.increment();
+	}
+
+	private void remove(Entry entry) {
+		unbucket(entry);
+		entries.remove(entry.projectId);
+	}
+
+	//halve every read count, keeping the recency order within each new count
+	private void age() {
+		readsSinceAging = 0;
+
+		TreeMap<Integer, LinkedHashSet<Integer>> old = new TreeMap<>(byFrequency);
+		byFrequency.clear();
+
+		for(LinkedHashSet<Integer> keys : old.values()) {
+			for(Integer key : keys) {
+				Entry entry = entries.get(key);
+				entry.frequency = Math.max(1, entry.frequency / 2);
+				bucket(entry.frequency).add(key);
+			}
+		}
+	}
+
+	private LinkedHashSet<Integer> bucket(int frequency) {
+		return byFrequency.computeIfAbsent(frequency, f -> new LinkedHashSet<>());
+	}
+
+	private void unbucket(Entry entry) {
+		LinkedHashSet<Integer> keys = byFrequency.get(entry.frequency);
+		keys.remove(entry.projectId);
+
+		if(keys.isEmpty()) {
+			byFrequency.remove(entry.frequency);
+		}
+	}
+
+	//--------- METHOD: Copy ---------------------------------------------------
+
+	static Project copyOf(Project source) {
+
+		Project project = new Project();
+		project.setProjectId(source.getProjectId());
+		project.setProjectName(source.getProjectName());
+		project.setEstimatedHours(source.getEstimatedHours());
+		project.setActualHours(source.getActualHours());
+		project.setDifficulty(source.getDifficulty());
+		project.setNotes(source.getNotes());
+
+		for(Material from : source.getMaterials()) {
+			Material material = new Material();
+			material.setMaterialId(from.getMaterialId());
+			material.setProjectId(from.getProjectId());
+			material.setMaterialName(from.getMaterialName());
+			material.setNumRequired(from.getNumRequired());
+			material.setCost(from.getCost());
+			material.setMaterialOrder(from.getMaterialOrder());
+			project.getMaterials().add(material);
+		}
+
+		for(Step from : source.getSteps()) {
+			Step step = new Step();
+			step.setStepId(from.getStepId());
+			step.setProjectId(from.getProjectId());
+			step.setStepText(from.getStepText());
+			step.setStepOrder(from.getStepOrder());
+			project.getSteps().add(step);
+		}
+
+		for(Category from : source.getCategories()) {
+			Category category = new Category();
+			category.setCategoryId(from.getCategoryId());
+			category.setCategoryName(from.getCategoryName());
+			project.getCategories().add(category);
+		}
+
+		//the copies are of saved data, so the setters above have changed nothing
+		project.clearAllChanges();
+		return project;
+	}
+
+	//--------- CLASS: Entry ---------------------------------------------------
+
+	private static class Entry {
+		private final Integer projectId;
+		private final Project project;
+		private final long loadedAt = System.nanoTime();
+		private int frequency = 1;
+
+		Entry(Integer projectId, Project project) {
+			this.projectId = projectId;
+			this.project = project;
+		}
+	}
+}
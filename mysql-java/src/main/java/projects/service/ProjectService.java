@@ -0,0 +1,727 @@
+package projects.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import projects.dao.AnalyticsDao;
+import projects.dao.BulkDao;
+import projects.dao.DbConnection;
+import projects.dao.MigrationDao;
+import projects.dao.ProjectDao;
+import projects.entity.CategoryRollup;
+import projects.entity.Project;
+import projects.entity.ProjectRollup;
+import projects.entity.ProjectSummary;
+import projects.exceptions.DbException;
+
+public class ProjectService {
+	
+	//read the SQL file & set a constant
+		private static final String SCHEMA_FILE = "projects-schema.sql";
+		private static final String DATA_FILE = "projects_data.sql";
+		
+		//statements sent per executeBatch call when running a script
+		private static final int SCRIPT_BATCH_SIZE = 1000;
+		
+		//file name ending for tables written by exportTables
+		private static final String TABLE_FILE_SUFFIX = ".tsv";
+		
+		private static final int CACHE_MAX_ENTRIES = 1000;
+		private static final Duration CACHE_TTL = Duration.ofMinutes(10);
+		
+		//instance variable for the ProjectsDao
+		private ProjectDao projectDao = new ProjectDao();
+		
+		private final BulkDao bulkDao = new BulkDao();
+		
+		private final AnalyticsDao analyticsDao = new AnalyticsDao();
+		
+		private final SchemaMigrator schemaMigrator = new SchemaMigrator(new MigrationDao());
+		
+		
+		//read-through cache of project graphs; every write path below must invalidate it
+		private final ProjectCache projectCache = new ProjectCache(CACHE_MAX_ENTRIES, CACHE_TTL);
+		
+		
+		//when set, reads are answered from this memory-mapped catalog instead of the database
+		private volatile CatalogSnapshot catalogSnapshot;
+		
+		
+		//built on the first search, then kept current by the write paths below
+		private volatile SearchIndex searchIndex;
+		
+		//one build or load at a time; a lock of its own, so a slow build does not hold up group commit
+		private final Object searchIndexBuildLock = new Object();
+		
+		//guards publishing the index against writes made while it was being built
+		private final Object searchIndexLock = new Object();
+		
+		//IDs written while there is no index yet but one is being built; null when none is
+		private Set<Integer> writtenDuringBuild;
+		
+		
+		//when set, addProject queues inserts to be committed in batches
+		private volatile GroupCommitWriter groupCommitWriter = createGroupCommitWriter();
+		
+		
+		public Project fetchProjectById(Integer projectId) {
+			return projectCache.get(projectId, this::loadProject).orElseThrow(() -> new NoSuchElementException(
+					"Project ID: " + projectId + " does not exist."));
+		}
+		
+		//the snapshot answers for every ID it knows about, found or deleted; anything newer is read from the database
+		private Optional<Project> loadProject(Integer projectId) {
+			CatalogSnapshot snapshot = catalogSnapshot;
+			
+			if(Objects.nonNull(snapshot) && snapshot.covers(projectId)) {
+				return snapshot.findProject(projectId);
+			}
+			return projectDao.fecthProjectById(projectId);
+		}
+		
+		private GroupCommitWriter createGroupCommitWriter() {
+			if(!Boolean.parseBoolean(DbConnection.getProperty("groupCommit.enabled", "false"))) {
+				return null;
+			}
+			
+			// @formatter:off
+			return new GroupCommitWriter(projectDao::insertProjects, this::afterGroupCommit,
+					DbConnection.getInt("groupCommit.batchSize", 100),
+					Duration.ofMillis(DbConnection.getLong("groupCommit.lingerMillis", 2)),
+					DbConnection.getInt("groupCommit.queueCapacity", 10000));
+			// @formatter:on
+		}
+		
+		//exposes hit, miss, eviction and expiration counts
+		public ProjectCache getProjectCache() {
+			return projectCache;
+		}
+		
+		//--------- METHOD: Fetch Projects By IDs ---------------------------------
+		
+		//unknown IDs are skipped rather than thrown, so callers can pass IDs from a stale list
+		public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+			return projectDao.fetchProjectsByIds(projectIds);
+		}
+		
+		//--------- METHOD: Create & Populate Tables -----------------------------
+		
+		public void createAndPopulateTables() {
+			//every row is replaced, so a loaded snapshot or search index no longer describes the database
+			catalogSnapshot = null;
+			searchIndex = null;
+			
+			try {
+				recreateSchema();
+				loadFromFile(DATA_FILE);
+				rebuildSummaries();
+			} finally {
+				projectCache.invalidateAll();
+			}
+		}
+
+
+		/**
+		 * Recreates the tables, then loads the data script over several connections at once in
+		 * foreign key order (see ParallelScriptLoader). threads is capped at the connection pool size.
+		 */
+		public void createAndPopulateTablesInParallel(int threads, boolean relaxChecks) {
+			catalogSnapshot = null;
+			searchIndex = null;
+			
+			try {
+				recreateSchema();
+				
+				int connections = Math.min(threads, DbConnection.getPool().getMaxSize());
+				long statements = new ParallelScriptLoader(projectDao, connections, SCRIPT_BATCH_SIZE, relaxChecks)
+						.load(SCHEMA_FILE, DATA_FILE);
+				
+				System.out.println(DATA_FILE + ": " + statements + " statements executed on " + connections + " connections");
+				rebuildSummaries();
+			} finally {
+				projectCache.invalidateAll();
+			}
+		}
+
+
+		//--------- METHOD: Migrate Schema --------------------------------------
+		
+		/**
+		 * Applies any schema migrations the database has not had yet (see SchemaMigrator). Unlike
+		 * createAndPopulateTables this keeps the data, so it is the way to update a live database.
+		 * 
+		 * @return The versions applied; empty if the schema was already current.
+		 */
+		public List<Integer> migrateSchema() {
+			
+			List<Integer> versions = schemaMigrator.migrate();
+			
+			//a migration can create or reshape project_summary, so it is rebuilt before reads rely on it
+			if(!versions.isEmpty()) {
+				rebuildSummaries();
+			}
+			
+			System.out.println(versions.isEmpty() ? "Schema is up to date" : "Applied schema migrations " + versions);
+			return versions;
+		}
+		
+		//queries that do not use the indexes the migrations added; empty when all is well
+		public List<String> verifySchemaIndexes() {
+			
+			return schemaMigrator.verifyIndexes();
+		}
+		
+		//projects-schema.sql drops and recreates the tables and the version table, then every migration runs
+		private void recreateSchema() {
+			loadFromFile(SCHEMA_FILE);
+			migrateSchema();
+		}
+
+
+		//--------- METHOD: Export & Import Tables -------------------------------
+
+		/**
+		 * Writes every table in the schema to &lt;table&gt;.tsv in the directory, streaming each one from
+		 * the database (see BulkDao for the format).
+		 *
+		 * @return The total number of rows written.
+		 */
+		public long exportTables(Path directory) {
+
+			long total = 0;
+
+			try {
+				Files.createDirectories(directory);
+
+				for(Set<String> level : ParallelScriptLoader.tablesInLoadOrder(SCHEMA_FILE)) {
+					for(String table : level) {
+						try(OutputStream out = Files.newOutputStream(directory.resolve(table + TABLE_FILE_SUFFIX))){
+							long rows = bulkDao.exportTable(table, out);
+
+							System.out.println(table + ": " + rows + " rows exported");
+							total += rows;
+						}
+					}
+				}
+				return total;
+
+			} catch (IOException e) {
+				throw new DbException(e);
+			}
+		}
+
+		/**
+		 * Recreates the tables, then loads each &lt;table&gt;.tsv in the directory with LOAD DATA LOCAL
+		 * INFILE, parents before children. Tables without a file are left empty. The server must allow
+		 * LOAD DATA LOCAL (local_infile=ON).
+		 *
+		 * @return The total number of rows loaded.
+		 */
+		public long importTables(Path directory, boolean relaxChecks) {
+			catalogSnapshot = null;
+			searchIndex = null;
+
+			long total = 0;
+
+			try {
+				recreateSchema();
+
+				for(Set<String> level : ParallelScriptLoader.tablesInLoadOrder(SCHEMA_FILE)) {
+					for(String table : level) {
+						Path file = directory.resolve(table + TABLE_FILE_SUFFIX);
+
+						if(Files.notExists(file)) {
+							continue;
+						}
+
+						try(InputStream in = Files.newInputStream(file)){
+							long rows = bulkDao.importTable(table, in, relaxChecks);
+
+							System.out.println(table + ": " + rows + " rows imported");
+							total += rows;
+						}
+					}
+				}
+				rebuildSummaries();
+				return total;
+
+			} catch (IOException e) {
+				throw new DbException(e);
+			} finally {
+				projectDao.getCategoryDictionary().markStale();
+				projectCache.invalidateAll();
+			}
+		}
+
+
+		//--------- METHOD: Load From File ---------------------------------------
+		
+		private void loadFromFile(String fileName) {
+			
+			loadFromFile(fileName, 0, statements -> System.out.println(fileName + ": " + statements + " statements executed"));
+		}
+		
+		/**
+		 * Runs a SQL script from the classpath while reading it, in batches of SCRIPT_BATCH_SIZE
+		 * statements, so memory use does not grow with the size of the script. Each batch is committed
+		 * on its own and onCheckpoint is told how many statements have been committed so far. To resume
+		 * an interrupted load, pass the last checkpoint as resumeAfter: that many statements are read
+		 * and skipped.
+		 * 
+		 * @return The total number of statements in the script.
+		 */
+		public long loadFromFile(String fileName, long resumeAfter, LongConsumer onCheckpoint) {
+			
+			InputStream in = getClass().getClassLoader().getResourceAsStream(fileName);
+			
+			if(Objects.isNull(in)) {
+				throw new DbException("SQL script not found on the classpath: " + fileName);
+			}
+			
+			try(SqlScriptReader reader = new SqlScriptReader(new InputStreamReader(in, StandardCharsets.UTF_8))){
+				
+				List<String> batch = new ArrayList<>(SCRIPT_BATCH_SIZE);
+				String sql;
+				
+				while(Objects.nonNull(sql = reader.nextStatement())) {
+					if(reader.getStatementCount() <= resumeAfter) {
+						continue;
+					}
+					
+					batch.add(sql);
+					
+					if(batch.size() == SCRIPT_BATCH_SIZE) {
+						projectDao.executeBatch(batch);
+						onCheckpoint.accept(reader.getStatementCount());
+						batch.clear();
+					}
+				}
+				
+				if(!batch.isEmpty()) {
+					projectDao.executeBatch(batch);
+					onCheckpoint.accept(reader.getStatementCount());
+				}
+				
+				return reader.getStatementCount();
+				
+			} catch (IOException e) {
+				throw new DbException(e);
+			}
+		}
+
+		
+		//--------- METHOD: Convert to SQL Statement -----------------------------
+
+		//splits a script held in memory, using the same rules as loadFromFile
+		List<String> convertContentToSqlStatements(String content) {
+			
+			List<String> lines = new LinkedList<>();
+			
+			try(SqlScriptReader reader = new SqlScriptReader(new StringReader(content))){
+				String sql;
+				
+				while(Objects.nonNull(sql = reader.nextStatement())) {
+					lines.add(sql);
+				}
+				return lines;
+				
+			} catch (IOException e) {
+				throw new DbException(e);
+			}
+		}
+		
+		
+		public static void main(String[] args) {
+			new ProjectService().createAndPopulateTables();
+		}
+
+		//--------- METHOD: Add Project ----------------------------------------
+
+		/**
+		 * Inserts the project. With group commit on, the insert is queued and shares a transaction
+		 * with other threads' inserts; this call still returns only once the project has committed.
+		 */
+		public Project addProject(Project project) {
+			
+			GroupCommitWriter writer = groupCommitWriter;
+			
+			if(Objects.nonNull(writer)) {
+				try {
+					Project dbProject = writer.submit(project).join();
+					
+					//the writer thread did the insert; this thread's next reads must still see it
+					DbConnection.markWrite();
+					return dbProject;
+				} catch (CompletionException e) {
+					throw e.getCause() instanceof RuntimeException cause ? cause : new DbException(e.getCause());
+				}
+			}
+			
+			Project dbProject = projectDao.insertProject(project);
+			afterWrite(List.of(dbProject));
+			return dbProject;
+		}
+		
+		/**
+		 * Like addProject but returns at once. With group commit on, the future completes when the
+		 * project's batch commits; otherwise the insert runs on the calling thread.
+		 */
+		public CompletableFuture<Project> submitProject(Project project) {
+			
+			GroupCommitWriter writer = groupCommitWriter;
+			
+			if(Objects.nonNull(writer)) {
+				//reads from this thread go to the primary from now, so they see the project once it commits
+				DbConnection.markWrite();
+				return writer.submit(project);
+			}
+			
+			try {
+				return CompletableFuture.completedFuture(addProject(project));
+			} catch (RuntimeException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+
+		//--------- METHOD: Add Projects -----------------------------------------
+
+		public List<Project> addProjects(List<Project> projects) {
+			
+			List<Project> dbProjects = projectDao.insertProjects(projects);
+			afterWrite(dbProjects);
+			return dbProjects;
+		}
+		
+		//brings the snapshot, search index and cache up to date once written projects have committed
+		private void afterWrite(List<Project> projects) {
+			refreshSnapshot(projects.stream().map(Project::getProjectId).toList());
+			updateSearchIndex(projects);
+			projects.forEach(project -> projectCache.invalidate(project.getProjectId()));
+		}
+
+		/*
+		 * The group commit writer's hook. Its batch has committed, so a failure here must not fail the
+		 * inserts: whatever could not be brought up to date is dropped instead, and the writer logs the
+		 * error.
+		 */
+		private void afterGroupCommit(List<Project> projects) {
+			try {
+				afterWrite(projects);
+			} catch (RuntimeException e) {
+				catalogSnapshot = null;
+				searchIndex = null;
+				projectCache.invalidateAll();
+				throw e;
+			}
+		}
+
+		//--------- METHOD: Update Project ---------------------------------------
+		
+		/**
+		 * Writes the project's changed fields and nothing else; its materials, steps and categories are
+		 * not saved (use saveProject). The project may be one built with just an ID and the new values.
+		 */
+		public Project updateProject(Project project) {
+			
+			Set<String> changed = project.getChangedFields();
+			
+			if(projectDao.updateProject(project)) {
+				Integer projectId = project.getProjectId();
+				refreshSnapshot(List.of(projectId));
+				projectCache.invalidate(projectId);
+				
+				//the index reads names and notes; the project passed in may not hold the steps it also needs
+				if(changed.contains("projectName") || changed.contains("notes")) {
+					refreshSearchIndex(List.of(projectId));
+				}
+			}
+			return project;
+		}
+		
+		//saves the project with its children, writing only what differs from the database
+		public Project saveProject(Project project) {
+			
+			Project dbProject = projectDao.saveProject(project);
+			afterWrite(List.of(dbProject));
+			return dbProject;
+		}
+
+		//--------- METHOD: Group Commit -----------------------------------------
+		
+		/**
+		 * Routes addProject through a GroupCommitWriter: inserts from concurrent callers are batched, up
+		 * to batchSize per transaction, waiting at most linger for a batch to fill. Replaces any writer
+		 * already running, after it has written what it has queued.
+		 */
+		public synchronized void enableGroupCommit(int batchSize, Duration linger, int queueCapacity) {
+			
+			disableGroupCommit();
+			groupCommitWriter = new GroupCommitWriter(projectDao::insertProjects, this::afterGroupCommit, batchSize, linger,
+					queueCapacity);
+		}
+		
+		//back to one transaction per addProject, once the queued inserts are written
+		public synchronized void disableGroupCommit() {
+			
+			GroupCommitWriter writer = groupCommitWriter;
+			groupCommitWriter = null;
+			
+			if(Objects.nonNull(writer)) {
+				writer.close();
+			}
+		}
+		
+		//null unless group commit is on
+		public GroupCommitWriter getGroupCommitWriter() {
+			return groupCommitWriter;
+		}
+
+		//--------- METHOD: Catalog Snapshot -------------------------------------
+		
+		//writes every project to a snapshot file that read nodes can load instead of querying
+		public int exportCatalogSnapshot(Path file) {
+			
+			return CatalogSnapshot.export(projectDao, file);
+		}
+		
+		/**
+		 * Serves fetchProjectById and fetchProjects from the snapshot file from now on, then picks up
+		 * projects added or deleted since it was exported.
+		 */
+		public CatalogSnapshot loadCatalogSnapshot(Path file) {
+			
+			CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+			snapshot.refresh(projectDao);
+			
+			catalogSnapshot = snapshot;
+			projectCache.invalidateAll();
+			return snapshot;
+		}
+		
+		/**
+		 * Brings the loaded snapshot up to date: projects added or deleted in the database since the
+		 * last refresh, plus the given IDs (projects known to have been edited) are reloaded.
+		 */
+		public void refreshCatalogSnapshot(Collection<Integer> editedProjectIds) {
+			
+			CatalogSnapshot snapshot = catalogSnapshot;
+			
+			if(Objects.nonNull(snapshot)) {
+				Set<Integer> changed = new HashSet<>(snapshot.refresh(projectDao));
+				snapshot.refresh(projectDao, editedProjectIds);
+				changed.addAll(editedProjectIds);
+				
+				changed.forEach(projectCache::invalidate);
+			}
+		}
+		
+		public void unloadCatalogSnapshot() {
+			catalogSnapshot = null;
+			projectCache.invalidateAll();
+		}
+		
+		private void refreshSnapshot(Collection<Integer> projectIds) {
+			CatalogSnapshot snapshot = catalogSnapshot;
+			
+			if(Objects.nonNull(snapshot)) {
+				snapshot.refresh(projectDao, projectIds);
+			}
+		}
+
+		//--------- METHOD: Search Projects -------------------------------------
+		
+		/**
+		 * Projects whose name, notes or steps contain every word of the query, best match first. A word
+		 * ending in * matches as a prefix. The index is built from the database on the first search
+		 * unless one was loaded with loadSearchIndex.
+		 */
+		public List<SearchIndex.Hit> searchProjects(String query, int limit) {
+			
+			return getSearchIndex().search(query, limit);
+		}
+		
+		public void saveSearchIndex(Path file) {
+			
+			getSearchIndex().save(file);
+		}
+		
+		//uses a saved index instead of a full rebuild, catching up on projects added or deleted since
+		public SearchIndex loadSearchIndex(Path file) {
+			
+			synchronized(searchIndexBuildLock) {
+				return publishSearchIndex(() -> {
+					SearchIndex index = SearchIndex.load(file);
+					index.refresh(projectDao);
+					return index;
+				});
+			}
+		}
+		
+		private SearchIndex getSearchIndex() {
+			SearchIndex index = searchIndex;
+			
+			if(Objects.isNull(index)) {
+				synchronized(searchIndexBuildLock) {
+					index = searchIndex;
+					
+					if(Objects.isNull(index)) {
+						index = publishSearchIndex(() -> SearchIndex.build(projectDao));
+					}
+				}
+			}
+			return index;
+		}
+		
+		/*
+		 * Builds an index and publishes it with every write made meanwhile applied. Writes that find no
+		 * index record their IDs instead; those are refreshed from the database, and the index is only
+		 * published once a pass ends with nothing new recorded. Callers hold searchIndexBuildLock.
+		 */
+		private SearchIndex publishSearchIndex(Supplier<SearchIndex> builder) {
+			
+			synchronized(searchIndexLock) {
+				writtenDuringBuild = new HashSet<>();
+			}
+			
+			try {
+				SearchIndex index = builder.get();
+				
+				while(true) {
+					Set<Integer> written;
+					
+					synchronized(searchIndexLock) {
+						written = writtenDuringBuild;
+						
+						if(written.isEmpty()) {
+							searchIndex = index;
+							return index;
+						}
+						writtenDuringBuild = new HashSet<>();
+					}
+					index.refresh(projectDao, written);
+				}
+			} finally {
+				synchronized(searchIndexLock) {
+					writtenDuringBuild = null;
+				}
+			}
+		}
+		
+		//called once the write has committed; without an index there is nothing to keep current
+		private void refreshSearchIndex(Collection<Integer> projectIds) {
+			withSearchIndex(projectIds, index -> index.refresh(projectDao, projectIds));
+		}
+		
+		private void updateSearchIndex(List<Project> projects) {
+			withSearchIndex(projects.stream().map(Project::getProjectId).toList(), index -> projects.forEach(index::index));
+		}
+		
+		//applies a write to the index, or leaves its IDs for the build in progress to catch up on
+		private void withSearchIndex(Collection<Integer> projectIds, Consumer<SearchIndex> update) {
+			SearchIndex index = searchIndex;
+			
+			if(Objects.isNull(index)) {
+				synchronized(searchIndexLock) {
+					index = searchIndex;
+					
+					if(Objects.isNull(index)) {
+						if(Objects.nonNull(writtenDuringBuild)) {
+							writtenDuringBuild.addAll(projectIds);
+						}
+						return;
+					}
+				}
+			}
+			update.accept(index);
+		}
+
+		//--------- METHOD: Analytics -------------------------------------------
+		
+		//totals for every project, computed in the database (see AnalyticsDao)
+		public List<ProjectRollup> fetchProjectRollups() {
+			
+			return analyticsDao.fetchProjectRollups();
+		}
+		
+		public ProjectRollup fetchProjectRollup(Integer projectId) {
+			return analyticsDao.fetchProjectRollup(projectId).orElseThrow(() -> new NoSuchElementException(
+					"Project ID: " + projectId + " does not exist."));
+		}
+		
+		public List<CategoryRollup> fetchCategoryRollups() {
+			
+			return analyticsDao.fetchCategoryRollups();
+		}
+		
+		//rebuilds the project_summary table and serves rollups from it from now on
+		public void enableSummaryTable() {
+			
+			analyticsDao.enableSummaryTable();
+		}
+		
+		public void disableSummaryTable() {
+			
+			analyticsDao.disableSummaryTable();
+		}
+		
+		//scripts and bulk imports write the tables directly, so the summary table is rebuilt after them
+		private void rebuildSummaries() {
+			if(AnalyticsDao.isSummaryTableEnabled()) {
+				analyticsDao.rebuildSummaries();
+			}
+		}
+
+		//--------- METHOD: Fetch Projects ----------------------------------------
+
+		public List<Project> fetchProjects() {
+			
+			CatalogSnapshot snapshot = catalogSnapshot;
+			return Objects.nonNull(snapshot) ? snapshot.listProjects() : projectDao.fetchAllProjects();
+		}
+
+		//--------- METHOD: Fetch Project Summaries -------------------------------
+		
+		//IDs and names only; what list views need
+		public List<ProjectSummary> fetchProjectSummaries() {
+			
+			return projectDao.fetchProjectSummaries();
+		}
+
+		//--------- METHOD: Stream Projects ----------------------------------------
+		
+		//the stream holds a database connection; close it (try-with-resources) if not read to the end
+		public Stream<Project> streamProjects() {
+			
+			return projectDao.streamAllProjects();
+		}
+		
+		//--------- METHOD: Fetch Project Page -------------------------------------
+		
+		public List<Project> fetchProjectPage(Project after, int pageSize) {
+			
+			return projectDao.fetchProjectPage(after, pageSize);
+		}
+
+}
@@ -0,0 +1,127 @@
+package projects.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import projects.dao.MigrationDao;
+import projects.dao.MigrationDao.Migration;
+import projects.exceptions.DbException;
+
+/**
+ * Brings the schema up to date by applying the migration scripts under migrations/ on the classpath
+ * that the database has not seen yet (see MigrationDao).
+ *
+ * Scripts are named V&lt;version&gt;__&lt;description&gt;.sql and listed in MIGRATIONS in the order
+ * they apply. A script's checksum is taken over its statements as SqlScriptReader splits them, so
+ * editing comments or whitespace does not count as changing it.
+ */
+public class SchemaMigrator {
+
+	private static final String MIGRATION_DIR = "migrations/";
+
+	// @formatter:off
+	private static final List<String> MIGRATIONS = List.of(
+			"V1__baseline.sql",
+			"V2__child_access_indexes.sql",
+			"V3__material_order.sql",
+			"V4__project_summary.sql");
+	// @formatter:on
+
+	private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+	/*
+	 * Queries the DAOs run, each with the table and index it should be read through. The IDs are
+	 * literals because EXPLAIN needs a complete statement.
+	 */
+	// @formatter:off
+	private static final List<String[]> INDEX_CHECKS = List.of(
+			new String[] {"SELECT project_id FROM project_category WHERE category_id = 1",
+					"project_category", "idx_project_category_category"},
+			new String[] {"SELECT step_id, step_text FROM step WHERE project_id IN (1, 2) ORDER BY project_id, step_order, step_id",
+					"step", "idx_step_project_order"},
+			new String[] {"SELECT material_id, material_name FROM material WHERE project_id = 1 ORDER BY material_order, material_id",
+					"material", "idx_material_project_order"});
+	// @formatter:on
+
+	private final MigrationDao migrationDao;
+
+	public SchemaMigrator(MigrationDao migrationDao) {
+		this.migrationDao = migrationDao;
+	}
+
+	//--------- METHOD: Migrate ------------------------------------------------
+
+	/**
+	 * @return The versions applied; empty if the schema was already current.
+	 */
+	public List<Integer> migrate() {
+
+		List<Migration> migrations = new ArrayList<>();
+
+		for(String fileName : MIGRATIONS) {
+			migrations.add(readMigration(fileName));
+		}
+		return migrationDao.migrate(migrations);
+	}
+
+	private Migration readMigration(String fileName) {
+
+		Matcher name = FILE_NAME.matcher(fileName);
+
+		if(!name.matches()) {
+			throw new DbException("Migration file names look like V1__description.sql: " + fileName);
+		}
+
+		InputStream in = getClass().getClassLoader().getResourceAsStream(MIGRATION_DIR + fileName);
+
+		if(Objects.isNull(in)) {
+			throw new DbException("Migration not found on the classpath: " + MIGRATION_DIR + fileName);
+		}
+
+		try(SqlScriptReader reader = new SqlScriptReader(new InputStreamReader(in, StandardCharsets.UTF_8))){
+			List<String> statements = new ArrayList<>();
+			CRC32 checksum = new CRC32();
+			String sql;
+
+			while(Objects.nonNull(sql = reader.nextStatement())) {
+				statements.add(sql);
+				checksum.update((sql + ";").getBytes(StandardCharsets.UTF_8));
+			}
+
+			String description = name.group(2).replace('_', ' ');
+			return new Migration(Integer.parseInt(name.group(1)), description, checksum.getValue(), statements);
+
+		} catch (IOException e) {
+			throw new DbException(e);
+		}
+	}
+
+	//--------- METHOD: Verify Indexes -----------------------------------------
+
+	/**
+	 * EXPLAINs the queries the migrations added indexes for and reports any that do not use them.
+	 * Run it against a database with representative data; on near-empty tables the optimizer may
+	 * reasonably prefer a scan.
+	 *
+	 * @return One line per problem; empty if every query uses its index.
+	 */
+	public List<String> verifyIndexes() {
+
+		List<String> problems = new ArrayList<>();
+
+		for(String[] check : INDEX_CHECKS) {
+			Optional<String> problem = migrationDao.checkIndexUse(check[0], check[1], check[2]);
+			problem.ifPresent(problems::add);
+		}
+		return problems;
+	}
+}
@@ -0,0 +1,500 @@
+package projects.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+import projects.entity.ProjectSummary;
+import projects.entity.Step;
+import projects.exceptions.DbException;
+
+/**
+ * An in-memory inverted index over project names, notes and step text, so searching does not scan
+ * the tables with LIKE '%x%'.
+ *
+ * Text is split into words of letters and digits, lower-cased, with accents removed; single letters
+ * and a few common English words are dropped. Each term maps to the projects containing it and how
+ * often, with a word in the name counting NAME_WEIGHT times. Results are ranked by BM25.
+ *
+ * Every word of a query must match. A word ending in * matches any term starting with it, so
+ * "paint* deck" finds projects with "deck" and any of "paint", "painted", "painting" and so on.
+ *
+ * The index is kept current by calling {@link #index(Project)} and {@link #remove(Integer)} after
+ * writes commit. It can be saved to a file and loaded back, after which {@link #refresh(ProjectDao)}
+ * picks up projects added or deleted in the meantime.
+ */
+public class SearchIndex {
+
+	private static final int MAGIC = 0x50524A49;
+	private static final int VERSION = 1;
+
+	//a word in the project name counts this many times as often as one in the notes or steps
+	private static final int NAME_WEIGHT = 3;
+
+	//BM25 term frequency saturation and length normalization
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	//projects fetched from the database per fetchProjectsByIds call while building or refreshing
+	private static final int BUILD_CHUNK = 500;
+
+	private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	// @formatter:off
+	private static final Set<String> STOP_WORDS = Set.of(
+			"an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it", "of",
+			"on", "or", "the", "then", "this", "to", "with");
+	// @formatter:on
+
+	/**
+	 * One search result. A higher score is a better match; scores are only comparable within one
+	 * search.
+	 */
+	public record Hit(Integer projectId, String projectName, double score) {
+	}
+
+	//one indexed project: its name for results, weighted term counts and their total
+	private record Document(String projectName, Map<String, Integer> terms, int length) {
+	}
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	//term -> project ID -> weighted count; sorted so prefix queries are a range scan
+	private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+	private final Map<Integer, Document> documents = new HashMap<>();
+	private long totalLength;
+
+	//--------- METHOD: Build --------------------------------------------------
+
+	/**
+	 * Indexes every project in the database, reading full graphs in chunks so memory is bounded by
+	 * the index rather than by the catalog.
+	 */
+	public static SearchIndex build(ProjectDao projectDao) {
+
+		SearchIndex index = new SearchIndex();
+		List<Integer> ids = projectDao.fetchProjectSummaries().stream().map(ProjectSummary::projectId).toList();
+
+		index.reload(projectDao, ids);
+		return index;
+	}
+
+	//--------- METHOD: Update -------------------------------------------------
+
+	//adds the project, or replaces what was indexed for it
+	public void index(Project project) {
+
+		Document document = toDocument(project);
+
+		lock.writeLock().lock();
+		try {
+			removeLocked(project.getProjectId());
+			addLocked(project.getProjectId(), document);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Integer projectId) {
+
+		lock.writeLock().lock();
+		try {
+			removeLocked(projectId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void addLocked(Integer projectId, Document document) {
+		documents.put(projectId, document);
+		totalLength += document.length();
+
+		document.terms().forEach((term, count) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(projectId, count));
+	}
+
+	private void removeLocked(Integer projectId) {
+
+		Document document = documents.remove(projectId);
+
+		if(Objects.isNull(document)) {
+			return;
+		}
+
+		totalLength -= document.length();
+
+		for(String term : document.terms().keySet()) {
+			Map<Integer, Integer> projects = postings.get(term);
+			projects.remove(projectId);
+
+			if(projects.isEmpty()) {
+				postings.remove(term);
+			}
+		}
+	}
+
+	private static Document toDocument(Project project) {
+
+		Map<String, Integer> terms = new HashMap<>();
+
+		addTerms(terms, project.getProjectName(), NAME_WEIGHT);
+		addTerms(terms, project.getNotes(), 1);
+
+		for(Step step : project.getSteps()) {
+			addTerms(terms, step.getStepText(), 1);
+		}
+
+		int length = terms.values().stream().mapToInt(Integer::intValue).sum();
+		return new Document(project.getProjectName(), terms, length);
+	}
+
+	private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+		for(String term : tokenize(text)) {
+			if(!STOP_WORDS.contains(term)) {
+				terms.merge(term, weight, Integer::sum);
+			}
+		}
+	}
+
+	//words of two or more letters or digits, lower-cased and without accents
+	static List<String> tokenize(String text) {
+
+		List<String> tokens = new ArrayList<>();
+
+		if(Objects.isNull(text) || text.isBlank()) {
+			return tokens;
+		}
+
+		String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+
+		for(String token : NON_WORD.split(folded.toLowerCase(Locale.ROOT))) {
+			if(token.length() > 1) {
+				tokens.add(token);
+			}
+		}
+		return tokens;
+	}
+
+	//--------- METHOD: Search -------------------------------------------------
+
+	/**
+	 * The best matches for the query, best first, at most limit of them. Projects must match every
+	 * word of the query; a query with no searchable words matches nothing.
+	 */
+	public List<Hit> search(String query, int limit) {
+
+		List<QueryTerm> queryTerms = parse(query);
+
+		if(queryTerms.isEmpty() || limit < 1) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+		try {
+			int count = documents.size();
+
+			if(count == 0) {
+				return List.of();
+			}
+
+			double averageLength = (double)totalLength / count;
+			Map<Integer, Double> scores = null;
+
+			for(QueryTerm queryTerm : queryTerms) {
+				Map<Integer, Double> termScores = score(queryTerm, count, averageLength);
+
+				if(Objects.isNull(scores)) {
+					scores = termScores;
+				} else {
+					//every word must match, so keep only projects matched by all of them so far
+					scores.keySet().retainAll(termScores.keySet());
+					scores.replaceAll((id, score) -> score + termScores.get(id));
+				}
+
+				if(scores.isEmpty()) {
+					return List.of();
+				}
+			}
+
+			return topHits(scores, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * BM25 score of each project matching one query word. For a prefix word each project scores its
+	 * best matching term, so a project is not favored just for containing many forms of the word.
+	 */
+	private Map<Integer, Double> score(QueryTerm queryTerm, int count, double averageLength) {
+
+		Map<Integer, Double> scores = new HashMap<>();
+
+		Map<String, Map<Integer, Integer>> matches = queryTerm.prefix()
+				? postings.subMap(queryTerm.text(), true, queryTerm.text() + Character.MAX_VALUE, false)
+				: postings.containsKey(queryTerm.text())
+						? Map.of(queryTerm.text(), postings.get(queryTerm.text()))
+						: Map.of();
+
+		for(Map<Integer, Integer> projects : matches.values()) {
+			int frequency = projects.size();
+			double idf = Math.log(1 + (count - frequency + 0.5) / (frequency + 0.5));
+
+			projects.forEach((projectId, termCount) -> {
+				double norm = 1 - B + B * documents.get(projectId).length() / averageLength;
+				double score = idf * termCount * (K1 + 1) / (termCount + K1 * norm);
+
+				scores.merge(projectId, score, Math::max);
+			});
+		}
+		return scores;
+	}
+
+	private List<Hit> topHits(Map<Integer, Double> scores, int limit) {
+
+		//ties go to the lower project ID so results are stable
+		Comparator<Hit> order = Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::projectId);
+		PriorityQueue<Hit> best = new PriorityQueue<>(order.reversed());
+
+		scores.forEach((projectId, score) -> {
+			best.add(new Hit(projectId, documents.get(projectId).projectName(), score));
+
+			if(best.size() > limit) {
+				best.poll();
+			}
+		});
+
+		List<Hit> hits = new ArrayList<>(best);
+		hits.sort(order);
+		return hits;
+	}
+
+	private record QueryTerm(String text, boolean prefix) {
+	}
+
+	//a trailing * makes the word a prefix; stop words are ignored unless they are prefixes
+	private static List<QueryTerm> parse(String query) {
+
+		List<QueryTerm> terms = new ArrayList<>();
+
+		if(Objects.isNull(query)) {
+			return terms;
+		}
+
+		for(String word : query.trim().split("\\s+")) {
+			boolean prefix = word.endsWith("*");
+			List<String> tokens = tokenize(prefix ? word.substring(0, word.length() - 1) : word);
+
+			for(int index = 0; index < tokens.size(); index++) {
+				String token = tokens.get(index);
+				boolean isPrefix = prefix && index == tokens.size() - 1;
+
+				if(isPrefix || !STOP_WORDS.contains(token)) {
+					terms.add(new QueryTerm(token, isPrefix));
+				}
+			}
+		}
+		return terms;
+	}
+
+	//--------- METHOD: Refresh ------------------------------------------------
+
+	/**
+	 * Reindexes the given projects from the database; IDs no longer in the database are removed. Use
+	 * it after projects were changed elsewhere.
+	 */
+	public void refresh(ProjectDao projectDao, Collection<Integer> projectIds) {
+		reload(projectDao, new ArrayList<>(new HashSet<>(projectIds)));
+	}
+
+	/**
+	 * Picks up projects added or deleted since the index was built or loaded, by comparing project
+	 * IDs with the database. Projects edited in place are not detected; pass their IDs to
+	 * {@link #refresh(ProjectDao, Collection)}.
+	 *
+	 * @return The IDs that were added or deleted.
+	 */
+	public Set<Integer> refresh(ProjectDao projectDao) {
+
+		Set<Integer> current = new HashSet<>();
+		projectDao.fetchProjectSummaries().forEach(summary -> current.add(summary.projectId()));
+
+		Set<Integer> known;
+
+		lock.readLock().lock();
+		try {
+			known = new HashSet<>(documents.keySet());
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		//added: in the database but not here; deleted: here but not in the database
+		Set<Integer> changed = new HashSet<>(current);
+		changed.removeAll(known);
+
+		for(Integer id : known) {
+			if(!current.contains(id)) {
+				changed.add(id);
+			}
+		}
+
+		refresh(projectDao, changed);
+		return changed;
+	}
+
+	private void reload(ProjectDao projectDao, List<Integer> ids) {
+
+		for(int from = 0; from < ids.size(); from += BUILD_CHUNK) {
+			List<Integer> chunk = ids.subList(from, Math.min(from + BUILD_CHUNK, ids.size()));
+			Set<Integer> missing = new HashSet<>(chunk);
+
+			for(Project project : projectDao.fetchProjectsByIds(chunk)) {
+				missing.remove(project.getProjectId());
+				index(project);
+			}
+
+			missing.forEach(this::remove);
+		}
+	}
+
+	//--------- METHOD: Save & Load --------------------------------------------
+
+	/**
+	 * Writes the index to a file, next to the target first and then moved into place, so a reader
+	 * never sees half a file. Only the terms of each project are written; the postings are rebuilt
+	 * from them on load, which is much cheaper than reading the projects from the database.
+	 *
+	 * File layout: int magic "PRJI", int version, int projects, then for each project int projectId,
+	 * UTF name, int terms and (UTF term, int count) per term.
+	 */
+	public void save(Path target) {
+
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+		lock.readLock().lock();
+		try {
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))){
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(documents.size());
+
+				for(Map.Entry<Integer, Document> entry : documents.entrySet()) {
+					Document document = entry.getValue();
+
+					out.writeInt(entry.getKey());
+					out.writeUTF(document.projectName());
+					out.writeInt(document.terms().size());
+
+					for(Map.Entry<String, Integer> term : document.terms().entrySet()) {
+						out.writeUTF(term.getKey());
+						out.writeInt(term.getValue());
+					}
+				}
+			}
+
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		} catch (IOException e) {
+			throw new DbException("Unable to write search index " + target, e);
+		} finally {
+			lock.readLock().unlock();
+
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException e) {
+				//only a leftover temp file
+			}
+		}
+	}
+
+	public static SearchIndex load(Path file) {
+
+		SearchIndex index = new SearchIndex();
+
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))){
+			if(in.readInt() != MAGIC) {
+				throw new DbException(file + " is not a search index.");
+			}
+
+			int version = in.readInt();
+
+			if(version != VERSION) {
+				throw new DbException(file + " is a version " + version + " search index; version " + VERSION + " is supported.");
+			}
+
+			int projects = in.readInt();
+
+			for(int project = 0; project < projects; project++) {
+				int projectId = in.readInt();
+				String projectName = in.readUTF();
+				int termCount = in.readInt();
+
+				Map<String, Integer> terms = new HashMap<>();
+				int length = 0;
+
+				for(int term = 0; term < termCount; term++) {
+					String text = in.readUTF();
+					int count = in.readInt();
+
+					terms.put(text, count);
+					length += count;
+				}
+
+				index.addLocked(projectId, new Document(projectName, terms, length));
+			}
+			return index;
+
+		} catch (IOException e) {
+			throw new DbException("Unable to read search index " + file, e);
+		}
+	}
+
+	//--------- METHOD: Info ---------------------------------------------------
+
+	public int getProjectCount() {
+		lock.readLock().lock();
+		try {
+			return documents.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int getTermCount() {
+		lock.readLock().lock();
+		try {
+			return postings.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SearchIndex[projects=" + getProjectCount() + ", terms=" + getTermCount() + "]";
+	}
+}
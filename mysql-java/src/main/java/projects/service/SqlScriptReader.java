@@ -0,0 +1,235 @@
+package projects.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a SQL script into statements while reading it, so the whole script is never held in
+ * memory. Statements end at a semicolon that is not inside a quoted string, identifier or comment.
+ *
+ * Outside quotes, comments ("-- ", "#" and block comments) are dropped and runs of whitespace become
+ * a single space, as the old whole-file cleanup did. Quoted text is copied exactly, including
+ * backslash escapes and doubled quotes. MySQL executable comments (block comments that start with
+ * "/*!") are kept since they change what the script does.
+ */
+public class SqlScriptReader implements Closeable {
+
+	private final Reader reader;
+	private final char[] buffer = new char[8192];
+	private int position;
+	private int limit;
+
+	private long charsRead;
+	private long statementCount;
+
+	public SqlScriptReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	//--------- METHOD: Next Statement ----------------------------------------
+
+	/**
+	 * Returns the next statement without its trailing semicolon, or null at the end of the script.
+	 * Empty statements are skipped.
+	 */
+	public String nextStatement() throws IOException {
+
+		StringBuilder sql = new StringBuilder();
+		boolean pendingSpace = false;
+		int ch;
+
+		while((ch = read()) != -1) {
+
+			if(ch == ';') {
+				if(sql.length() > 0) {
+					statementCount++;
+					return sql.toString();
+				}
+				pendingSpace = false;
+				continue;
+			}
+
+			if(Character.isWhitespace(ch)) {
+				pendingSpace = true;
+				continue;
+			}
+
+			if(ch == '#' || (ch == '-' && peek() == '-' && isCommentDash())) {
+				skipLine();
+				pendingSpace = true;
+				continue;
+			}
+
+			if(ch == '/' && peek() == '*') {
+				read();
+
+				if(peek() != '!') {
+					skipBlockComment();
+					pendingSpace = true;
+					continue;
+				}
+
+				appendSpace(sql, pendingSpace);
+				pendingSpace = false;
+				sql.append("/*");
+				copyBlockComment(sql);
+				continue;
+			}
+
+			appendSpace(sql, pendingSpace);
+			pendingSpace = false;
+			sql.append((char)ch);
+
+			if(ch == '\'' || ch == '"' || ch == '`') {
+				copyQuoted(sql, (char)ch);
+			}
+		}
+
+		//the last statement may have no semicolon
+		if(sql.length() > 0) {
+			statementCount++;
+			return sql.toString();
+		}
+		return null;
+	}
+
+	//--------- METHOD: Progress ----------------------------------------------
+
+	//characters consumed so far, for progress reporting
+	public long getCharsRead() {
+		return charsRead;
+	}
+
+	//statements returned so far; a resumed load skips this many
+	public long getStatementCount() {
+		return statementCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	//--------- METHOD: Scanning Helpers --------------------------------------
+
+	private void appendSpace(StringBuilder sql, boolean pendingSpace) {
+		if(pendingSpace && sql.length() > 0) {
+			sql.append(' ');
+		}
+	}
+
+	/*
+	 * Copies a quoted string or identifier through its closing quote. A doubled quote is an escaped
+	 * quote in all three forms; backslash escapes apply to strings but not to backtick identifiers.
+	 */
+	private void copyQuoted(StringBuilder sql, char quote) throws IOException {
+		int ch;
+
+		while((ch = read()) != -1) {
+			sql.append((char)ch);
+
+			if(ch == '\\' && quote != '`') {
+				int escaped = read();
+
+				if(escaped != -1) {
+					sql.append((char)escaped);
+				}
+			} else if(ch == quote) {
+				if(peek() != quote) {
+					return;
+				}
+				sql.append((char)read());
+			}
+		}
+	}
+
+	//"--" only starts a comment when followed by whitespace or the end of the script
+	private boolean isCommentDash() throws IOException {
+		read();
+		int next = peek();
+
+		if(next == -1 || Character.isWhitespace(next)) {
+			return true;
+		}
+
+		//not a comment: put the second dash back
+		position--;
+		charsRead--;
+		return false;
+	}
+
+	private void skipLine() throws IOException {
+		int ch;
+
+		while((ch = read()) != -1 && ch != '\n') {
+			//skip
+		}
+	}
+
+	private void skipBlockComment() throws IOException {
+		int ch;
+
+		while((ch = read()) != -1) {
+			if(ch == '*' && peek() == '/') {
+				read();
+				return;
+			}
+		}
+	}
+
+	private void copyBlockComment(StringBuilder sql) throws IOException {
+		int ch;
+
+		while((ch = read()) != -1) {
+			sql.append((char)ch);
+
+			if(ch == '*' && peek() == '/') {
+				sql.append((char)read());
+				return;
+			}
+		}
+	}
+
+	//--------- METHOD: Buffered Read -----------------------------------------
+
+	private int read() throws IOException {
+		if(position == limit && !fill()) {
+			return -1;
+		}
+		charsRead++;
+		return buffer[position++];
+	}
+
+	private int peek() throws IOException {
+		if(position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position];
+	}
+
+	/*
+	 * Refills the buffer, keeping the last character so that one read can always be undone (see
+	 * isCommentDash).
+	 */
+	private boolean fill() throws IOException {
+		int keep = 0;
+
+		if(limit > 0) {
+			buffer[0] = buffer[limit - 1];
+			keep = 1;
+		}
+
+		int count = reader.read(buffer, keep, buffer.length - keep);
+
+		if(count <= 0) {
+			position = keep;
+			limit = keep;
+			return false;
+		}
+
+		position = keep;
+		limit = keep + count;
+		return true;
+	}
+}
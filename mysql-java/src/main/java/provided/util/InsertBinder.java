@@ -0,0 +1,35 @@
+/**
+ * 
+ */
+package provided.util;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds the insertable columns of an entity (every mapped column except the generated primary key)
+ * to a prepared statement. Implementations are generated at build time alongside the
+ * {@link RowMapper} for each entity. The parameters are bound in the order given by the generated
+ * {@code INSERT_COLUMNS} constant.
+ * 
+ * @author Promineo
+ *
+ * @param <T> The entity type.
+ */
+public interface InsertBinder<T> {
+  /**
+   * Binds the entity's values. Null values are bound as SQL NULL of the column's type.
+   * 
+   * @param stmt The statement on which to set the parameters.
+   * @param offset The one-based index of the first parameter to set.
+   * @param entity The entity whose values are bound.
+   * @return The index of the next unbound parameter.
+   * @throws SQLException Thrown if a parameter cannot be set.
+   */
+  int bind(PreparedStatement stmt, int offset, T entity) throws SQLException;
+
+  /**
+   * @return The number of parameters this binder sets.
+   */
+  int parameterCount();
+}
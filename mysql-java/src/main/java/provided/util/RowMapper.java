@@ -0,0 +1,46 @@
+/**
+ * 
+ */
+package provided.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to an entity. Implementations are generated at build time
+ * for each class in the entity package (see the row-mapper-processor module). A generated mapper
+ * reads its columns by position, starting at a caller-supplied offset, in the order given by its
+ * {@code COLUMNS} constant. So the query must select those columns, in that order, starting at the
+ * offset.
+ * 
+ * @author Promineo
+ *
+ * @param <T> The entity type.
+ */
+public interface RowMapper<T> {
+  /**
+   * Creates an entity from the current row.
+   * 
+   * @param rs The result set, positioned on the row to map.
+   * @param offset The one-based index of the entity's first column.
+   * @return The populated entity.
+   * @throws SQLException Thrown if a column cannot be read.
+   */
+  T map(ResultSet rs, int offset) throws SQLException;
+
+  /**
+   * Creates an entity from a row whose first column is the entity's first column.
+   * 
+   * @param rs The result set, positioned on the row to map.
+   * @return The populated entity.
+   * @throws SQLException Thrown if a column cannot be read.
+   */
+  default T map(ResultSet rs) throws SQLException {
+    return map(rs, 1);
+  }
+
+  /**
+   * @return The number of columns this mapper reads.
+   */
+  int columnCount();
+}
@@ -0,0 +1,244 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import provided.util.DaoBase.DaoException;
+
+/**
+ * A precomputed plan for turning the current row of a result set into an object. A plan is built
+ * once per class and result set shape (the ordered list of column labels) and cached. Building the
+ * plan does the reflective work that {@link DaoBase#extract(ResultSet, Class)} used to do per row:
+ * finding the constructor, listing the fields, converting names to snake case and resolving each
+ * column to an index. Mapping a row is then a constructor call plus one indexed
+ * {@link ResultSet#getObject(int)} and one setter call per mapped field.
+ *
+ * @author Promineo
+ *
+ * @param <T> The type of object created by this plan.
+ */
+final class RowMapping<T> {
+  private static final Map<Key, RowMapping<?>> CACHE = new ConcurrentHashMap<>();
+
+  /*
+   * The plan used for the last result set seen on this thread. Rows of one result set are almost
+   * always extracted back to back, so this skips reading the metadata on every row after the first.
+   */
+  private static final ThreadLocal<LastUsed> LAST_USED = new ThreadLocal<>();
+
+  private final Class<T> type;
+  private final MethodHandle constructor;
+  private final ColumnSetter[] setters;
+
+  private RowMapping(Class<T> type, MethodHandle constructor, ColumnSetter[] setters) {
+    this.type = type;
+    this.constructor = constructor;
+    this.setters = setters;
+  }
+
+  /**
+   * Returns the plan for the given class and the shape of the given result set.
+   *
+   * @param <T> The type of object to create.
+   * @param rs The result set whose metadata describes the columns.
+   * @param classType The class to create.
+   * @return The cached or newly built plan.
+   * @throws SQLException Thrown if the result set metadata cannot be read.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> RowMapping<T> forResultSet(ResultSet rs, Class<T> classType) throws SQLException {
+    LastUsed last = LAST_USED.get();
+
+    if(Objects.nonNull(last) && last.resultSet.get() == rs && last.plan.type == classType) {
+      return (RowMapping<T>)last.plan;
+    }
+
+    Key key = new Key(classType, columnLabels(rs.getMetaData()));
+    RowMapping<T> plan = (RowMapping<T>)CACHE.computeIfAbsent(key, k -> build(classType, k.labels));
+
+    LAST_USED.set(new LastUsed(rs, plan));
+    return plan;
+  }
+
+  /**
+   * Creates an object and populates it from the current row. Null column values leave the field at
+   * its initial value.
+   *
+   * @param rs The result set, positioned on the row to map.
+   * @return The populated object.
+   * @throws Exception Thrown if the object cannot be created or a value cannot be assigned. Errors
+   *         are not wrapped.
+   */
+  T map(ResultSet rs) throws Exception {
+    try {
+      T obj = type.cast(constructor.invoke());
+
+      for(ColumnSetter setter : setters) {
+        Object value = rs.getObject(setter.columnIndex);
+
+        if(Objects.nonNull(value)) {
+          setter.setter.invoke(obj, setter.convert(value));
+        }
+      }
+
+      return obj;
+    }
+    catch(Exception | Error e) {
+      throw e;
+    }
+    catch(Throwable e) {
+      /* MethodHandle.invoke declares Throwable; only a direct Throwable subclass gets here. */
+      throw new DaoException("Unable to create object of type " + type.getName(), e);
+    }
+  }
+
+  /**
+   * Builds a plan. Fields with no column of the same (snake case) name are left out of the plan.
+   */
+  private static <T> RowMapping<T> build(Class<T> classType, String[] labels) {
+    try {
+      MethodHandles.Lookup lookup =
+          MethodHandles.privateLookupIn(classType, MethodHandles.lookup());
+
+      MethodHandle constructor = lookup.findConstructor(classType, MethodType.methodType(void.class))
+          .asType(MethodType.methodType(Object.class));
+
+      /* The first column with a given label wins, matching ResultSet.findColumn(). */
+      Map<String, Integer> indexByLabel = new HashMap<>();
+
+      for(int index = 0; index < labels.length; index++) {
+        indexByLabel.putIfAbsent(labels[index], index + 1);
+      }
+
+      List<ColumnSetter> setters = new ArrayList<>();
+
+      for(Field field : classType.getDeclaredFields()) {
+        if(Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+          continue;
+        }
+
+        String colName = DaoBase.camelCaseToSnakeCase(field.getName()).toLowerCase(Locale.ROOT);
+        Integer columnIndex = indexByLabel.get(colName);
+
+        if(Objects.nonNull(columnIndex)) {
+          MethodHandle setter = lookup.unreflectSetter(field)
+              .asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+          setters.add(new ColumnSetter(columnIndex, setter, field.getType()));
+        }
+      }
+
+      return new RowMapping<>(classType, constructor, setters.toArray(new ColumnSetter[0]));
+    }
+    catch(ReflectiveOperationException e) {
+      throw new DaoException("Unable to create object of type " + classType.getName(), e);
+    }
+  }
+
+  private static String[] columnLabels(ResultSetMetaData meta) throws SQLException {
+    String[] labels = new String[meta.getColumnCount()];
+
+    for(int index = 0; index < labels.length; index++) {
+      labels[index] = meta.getColumnLabel(index + 1).toLowerCase(Locale.ROOT);
+    }
+
+    return labels;
+  }
+
+  /**
+   * One mapped field: the column it reads and a setter adapted to (Object, Object)void.
+   */
+  private static final class ColumnSetter {
+    private final int columnIndex;
+    private final MethodHandle setter;
+    private final boolean toLocalTime;
+    private final boolean toLocalDateTime;
+
+    ColumnSetter(int columnIndex, MethodHandle setter, Class<?> fieldType) {
+      this.columnIndex = columnIndex;
+      this.setter = setter;
+      this.toLocalTime = LocalTime.class.equals(fieldType);
+      this.toLocalDateTime = LocalDateTime.class.equals(fieldType);
+    }
+
+    /**
+     * Converts the following types: Time -> LocalTime, and Timestamp -> LocalDateTime.
+     */
+    Object convert(Object value) {
+      if(toLocalTime && value instanceof Time) {
+        return ((Time)value).toLocalTime();
+      }
+
+      if(toLocalDateTime && value instanceof Timestamp) {
+        return ((Timestamp)value).toLocalDateTime();
+      }
+
+      return value;
+    }
+  }
+
+  /**
+   * Cache key: the class plus the lower-cased column labels in result set order.
+   */
+  private static final class Key {
+    private final Class<?> type;
+    private final String[] labels;
+    private final int hash;
+
+    Key(Class<?> type, String[] labels) {
+      this.type = type;
+      this.labels = labels;
+      this.hash = 31 * type.hashCode() + Arrays.hashCode(labels);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if(!(obj instanceof Key)) {
+        return false;
+      }
+
+      Key other = (Key)obj;
+      return type == other.type && Arrays.equals(labels, other.labels);
+    }
+  }
+
+  /**
+   * Weakly holds the last result set so the thread local never keeps a closed result set alive.
+   */
+  private static final class LastUsed {
+    private final WeakReference<ResultSet> resultSet;
+    private final RowMapping<?> plan;
+
+    LastUsed(ResultSet resultSet, RowMapping<?> plan) {
+      this.resultSet = new WeakReference<>(resultSet);
+      this.plan = plan;
+    }
+  }
+}
@@ -0,0 +1,12 @@
+-- Materials are listed in material_order, which the table never had.
+ALTER TABLE material ADD COLUMN material_order INT NOT NULL DEFAULT 0;
+
+-- Existing materials keep the order they were added in.
+UPDATE material m
+JOIN (
+    SELECT material_id, ROW_NUMBER() OVER (PARTITION BY project_id ORDER BY material_id) AS list_position
+    FROM material
+) numbered USING (material_id)
+SET m.material_order = numbered.list_position;
+
+CREATE INDEX idx_material_project_order ON material (project_id, material_order);
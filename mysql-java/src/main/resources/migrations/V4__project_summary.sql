@@ -0,0 +1,10 @@
+-- Per-project totals kept current by the DAO writes when analytics.summaryTable is on,
+-- so rollups read one row per project instead of aggregating the child tables.
+CREATE TABLE project_summary(
+	project_id INT NOT NULL,
+    material_cost DECIMAL(14,2) NOT NULL DEFAULT 0,
+    material_count INT NOT NULL DEFAULT 0,
+    step_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (project_id),
+    FOREIGN KEY (project_id) REFERENCES project(project_id) ON DELETE CASCADE
+);
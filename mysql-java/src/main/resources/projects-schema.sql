@@ -1,3 +1,5 @@
+DROP TABLE IF EXISTS schema_version;
+DROP TABLE IF EXISTS project_summary;
 DROP TABLE IF EXISTS project_category;
 DROP TABLE IF EXISTS category;
 DROP TABLE IF EXISTS step;
@@ -0,0 +1,112 @@
+package projects.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import projects.entity.Category;
+
+class CategoryDictionaryTest {
+
+	private final CategoryDictionary dictionary = new CategoryDictionary();
+
+	//SQL the fake connection was asked to prepare
+	private final List<String> statements = new ArrayList<>();
+
+	//--------- Resolve ---------------------------------------------------------
+
+	@Test
+	void keepsTheOrderTheDatabaseSortedTheNamesIn() throws Exception {
+		//utf8mb4_0900_ai_ci puts an accented É with the Es; a case-insensitive Java sort puts it after Z
+		Connection conn = connection(row(3, "Éclairage"), row(1, "Framing"), row(2, "zinc work"));
+
+		List<Category> categories = dictionary.resolve(conn, List.of(2, 1, 3));
+
+		assertEquals(List.of("Éclairage", "Framing", "zinc work"), names(categories));
+		assertTrue(statements.get(0).endsWith("ORDER BY category_name, category_id"), statements.get(0));
+	}
+
+	@Test
+	void skipsUnknownIdsAfterOneReload() throws Exception {
+		Connection conn = connection(row(1, "Framing"));
+
+		assertEquals(List.of("Framing"), names(dictionary.resolve(conn, List.of(1, 9))));
+		assertEquals(2, statements.size());
+	}
+
+	@Test
+	void handsOutNewCategoriesEachTime() throws Exception {
+		Connection conn = connection(row(1, "Framing"));
+
+		Category first = dictionary.resolve(conn, List.of(1)).get(0);
+		first.setCategoryName("Changed");
+		Category second = dictionary.resolve(conn, List.of(1)).get(0);
+
+		assertNotSame(first, second);
+		assertEquals("Framing", second.getCategoryName());
+		assertEquals(1, statements.size());
+	}
+
+	@Test
+	void resolvesIdsByNameIgnoringCase() throws Exception {
+		Connection conn = connection(row(1, "Framing"), row(2, "Painting"));
+
+		assertEquals(Map.of("framing", 1, "PAINTING", 2), dictionary.resolveIds(conn, List.of("framing", "PAINTING")));
+	}
+
+	//--------- Helpers ---------------------------------------------------------
+
+	private static Object[] row(int id, String name) {
+		return new Object[] {id, name};
+	}
+
+	private static List<String> names(List<Category> categories) {
+		return categories.stream().map(Category::getCategoryName).toList();
+	}
+
+	//every query answers with the given category rows, in the given order
+	private Connection connection(Object[]... rows) {
+		return proxy(Connection.class, (proxy, method, args) -> switch(method.getName()) {
+		case "prepareStatement" -> {
+			statements.add((String)args[0]);
+			yield statement(rows);
+		}
+		default -> throw new UnsupportedOperationException(method.getName());
+		});
+	}
+
+	private static PreparedStatement statement(Object[][] rows) {
+		return proxy(PreparedStatement.class, (proxy, method, args) -> switch(method.getName()) {
+		case "executeQuery" -> resultSet(rows);
+		case "close" -> null;
+		default -> throw new UnsupportedOperationException(method.getName());
+		});
+	}
+
+	private static ResultSet resultSet(Object[][] rows) {
+		int[] current = {-1};
+
+		return proxy(ResultSet.class, (proxy, method, args) -> switch(method.getName()) {
+		case "next" -> ++current[0] < rows.length;
+		case "getObject" -> rows[current[0]][(Integer)args[0] - 1];
+		case "getString" -> (String)rows[current[0]][(Integer)args[0] - 1];
+		case "close" -> null;
+		default -> throw new UnsupportedOperationException(method.getName());
+		});
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+	}
+}
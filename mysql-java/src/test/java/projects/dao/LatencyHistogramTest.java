@@ -0,0 +1,155 @@
+package projects.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+	//--------- Buckets ---------------------------------------------------------
+
+	@Test
+	void valuesBelow64HaveABucketEach() {
+		for(long value = 0; value < 64; value++) {
+			assertEquals(value, LatencyHistogram.indexOf(value));
+			assertEquals(value, LatencyHistogram.highestValueIn((int)value));
+		}
+	}
+
+	@Test
+	void aboveThatEachPowerOfTwoSplitsInto32Buckets() {
+		//[64, 128) has buckets of 2, [128, 256) of 4
+		assertEquals(64, LatencyHistogram.indexOf(64));
+		assertEquals(64, LatencyHistogram.indexOf(65));
+		assertEquals(65, LatencyHistogram.indexOf(66));
+		assertEquals(65, LatencyHistogram.highestValueIn(64));
+		assertEquals(127, LatencyHistogram.highestValueIn(LatencyHistogram.indexOf(127)));
+
+		assertEquals(LatencyHistogram.indexOf(127) + 1, LatencyHistogram.indexOf(128));
+		assertEquals(LatencyHistogram.indexOf(128), LatencyHistogram.indexOf(131));
+		assertEquals(131, LatencyHistogram.highestValueIn(LatencyHistogram.indexOf(128)));
+	}
+
+	//every bucket starts one past where the previous one ends, with no gaps and no overlaps
+	@Test
+	void bucketsAreContiguous() {
+		for(int index = 0; index < LatencyHistogram.BUCKET_COUNT - 1; index++) {
+			long next = LatencyHistogram.highestValueIn(index) + 1;
+			assertEquals(index + 1, LatencyHistogram.indexOf(next), "first value after bucket " + index);
+		}
+		assertEquals(LatencyHistogram.MAX_VALUE, LatencyHistogram.highestValueIn(LatencyHistogram.BUCKET_COUNT - 1));
+	}
+
+	@Test
+	void bucketTopsAreWithinAbout3PercentOfTheValue() {
+		for(long value = 1; value <= LatencyHistogram.MAX_VALUE; value = value * 3 / 2 + 1) {
+			long top = LatencyHistogram.highestValueIn(LatencyHistogram.indexOf(value));
+
+			assertTrue(top >= value, "bucket of " + value + " ends at " + top);
+			assertTrue(top - value <= value / 32, "bucket of " + value + " ends at " + top);
+		}
+	}
+
+	//--------- Recording -------------------------------------------------------
+
+	@Test
+	void recordsCountTotalMaxAndMean() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		histogram.record(10);
+		histogram.record(30);
+		histogram.record(1_000_000);
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(3, snapshot.getCount());
+		assertEquals(1_000_040, snapshot.getTotalNanos());
+		assertEquals(1_000_000, snapshot.getMaxNanos());
+		assertEquals(1_000_040 / 3.0, snapshot.getMeanNanos(), 1e-9);
+	}
+
+	@Test
+	void clampsValuesOutsideTheRange() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE);
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(0, snapshot.getValueAtPercentile(50));
+		assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getValueAtPercentile(100));
+		assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getMaxNanos());
+	}
+
+	@Test
+	void resetForgetsEverything() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(100);
+
+		histogram.reset();
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getMaxNanos());
+		assertEquals(0, snapshot.getValueAtPercentile(99));
+	}
+
+	//--------- Percentiles -----------------------------------------------------
+
+	@Test
+	void percentilesOfAnEmptyHistogramAreZero() {
+		LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+		assertEquals(0, snapshot.getValueAtPercentile(50));
+		assertEquals(0, snapshot.getMeanNanos());
+	}
+
+	@Test
+	void percentilesOfSmallValuesAreExact() {
+		LatencyHistogram histogram = recordRange(1, 60);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+		assertEquals(1, snapshot.getValueAtPercentile(0));
+		assertEquals(30, snapshot.getValueAtPercentile(50));
+		assertEquals(54, snapshot.getValueAtPercentile(90));
+		assertEquals(60, snapshot.getValueAtPercentile(100));
+	}
+
+	@Test
+	void percentilesReportTheTopOfTheBucketButNeverAboveTheMax() {
+		LatencyHistogram histogram = recordRange(1, 100);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+		//99 is the top of its bucket; 100 shares a bucket with 101, which was never recorded
+		assertEquals(99, snapshot.getValueAtPercentile(99));
+		assertEquals(100, snapshot.getValueAtPercentile(100));
+
+		//65 shares a bucket with 64
+		assertEquals(65, snapshot.getValueAtPercentile(64));
+	}
+
+	@Test
+	void largePercentilesStayWithinTheBucketError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for(int sample = 0; sample < 99; sample++) {
+			histogram.record(2_000_000);
+		}
+		histogram.record(50_000_000);
+
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		long p50 = snapshot.getValueAtPercentile(50);
+
+		assertTrue(p50 >= 2_000_000 && p50 <= 2_000_000 * 33 / 32, "p50 " + p50);
+		assertEquals(50_000_000, snapshot.getValueAtPercentile(100));
+	}
+
+	private static LatencyHistogram recordRange(long from, long to) {
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for(long value = from; value <= to; value++) {
+			histogram.record(value);
+		}
+		return histogram;
+	}
+}
@@ -0,0 +1,220 @@
+package projects.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import projects.dao.ProjectDao.ChildDiff;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exceptions.DbException;
+
+class ProjectDaoTest {
+
+	//--------- Diff Children ---------------------------------------------------
+
+	@Test
+	void sortsChildrenIntoInsertsUpdatesDeletesAndUntouched() {
+		Material untouched = material(11, "Screws", 1);
+		Material changed = material(12, "Glue", 2);
+		changed.setMaterialName("Wood Glue");
+		Material added = new Material();
+		added.setMaterialName("Dowels");
+
+		ChildDiff<Material> diff = diffMaterials(List.of(untouched, changed, added), Set.of(11, 12, 13, 14));
+
+		assertEquals(List.of(added), diff.inserts());
+		assertEquals(List.of(changed), diff.updates());
+		assertEquals(Set.of(13, 14), diff.deletes());
+		assertFalse(untouched.hasChanges());
+		assertTrue(diff.hasChanges());
+	}
+
+	@Test
+	void anUnchangedListHasNothingToDo() {
+		ChildDiff<Material> diff = diffMaterials(List.of(material(11, "Screws", 1), material(12, "Glue", 2)),
+				Set.of(11, 12));
+
+		assertFalse(diff.hasChanges());
+	}
+
+	@Test
+	void numbersChildrenInListOrderAndSetsTheProject() {
+		Material added = new Material();
+		List<Material> materials = List.of(material(12, "Glue", 2), added, material(11, "Screws", 1));
+
+		diffMaterials(materials, Set.of(11, 12));
+
+		assertEquals(List.of(1, 2, 3), materials.stream().map(Material::getMaterialOrder).toList());
+		assertTrue(materials.stream().allMatch(material -> material.getProjectId() == 5));
+	}
+
+	//moving a child updates the order of the children whose position changed, and no others
+	@Test
+	void reorderingUpdatesOnlyTheMovedChildren() {
+		Step first = step(21, 1);
+		Step second = step(22, 2);
+		Step third = step(23, 3);
+
+		ChildDiff<Step> diff = ProjectDao.diffChildren(5, new ArrayList<>(List.of(second, first, third)),
+				Set.of(21, 22, 23), ProjectDao.STEP_TABLE, Step::getStepId, Step::setProjectId, Step::setStepOrder);
+
+		assertEquals(List.of(second, first), diff.updates());
+		assertEquals(Set.of("stepOrder"), first.getChangedFields());
+		assertFalse(third.hasChanges());
+	}
+
+	@Test
+	void removingAChildRenumbersTheOnesAfterIt() {
+		Material first = material(11, "Screws", 1);
+		Material third = material(13, "Paint", 3);
+
+		ChildDiff<Material> diff = diffMaterials(List.of(first, third), Set.of(11, 12, 13));
+
+		assertEquals(List.of(third), diff.updates());
+		assertEquals(2, third.getMaterialOrder());
+		assertEquals(Set.of(12), diff.deletes());
+	}
+
+	@Test
+	void anEmptyListDeletesEveryExistingChild() {
+		ChildDiff<Material> diff = diffMaterials(List.of(), Set.of(11, 12));
+
+		assertEquals(Set.of(11, 12), diff.deletes());
+		assertEquals(List.of(), diff.inserts());
+	}
+
+	@Test
+	void leavesTheExistingIdsAlone() {
+		Set<Integer> existing = Set.of(11, 12);
+
+		ChildDiff<Material> diff = diffMaterials(List.of(material(11, "Screws", 1)), existing);
+
+		assertEquals(Set.of(12), diff.deletes());
+		assertEquals(Set.of(11, 12), existing);
+	}
+
+	@Test
+	void rejectsAChildOfAnotherProject() {
+		DbException e = assertThrows(DbException.class,
+				() -> diffMaterials(List.of(material(99, "Screws", 1)), Set.of(11)));
+
+		assertTrue(e.getMessage().contains("material ID 99 is not part of project 5"), e.getMessage());
+	}
+
+	@Test
+	void rejectsAChildListedTwice() {
+		Material screws = material(11, "Screws", 1);
+
+		assertThrows(DbException.class, () -> diffMaterials(List.of(screws, screws), Set.of(11)));
+	}
+
+	@Test
+	void insertsKeepTheirListOrder() {
+		Material a = new Material();
+		Material b = new Material();
+
+		ChildDiff<Material> diff = diffMaterials(List.of(a, b), Set.of());
+
+		assertSame(a, diff.inserts().get(0));
+		assertSame(b, diff.inserts().get(1));
+		assertEquals(List.of(), diff.updates());
+	}
+
+	//--------- Insert Projects -------------------------------------------------
+
+	@Test
+	void insertStatePutsBackWhatARolledBackInsertSet() {
+		Project project = new Project();
+		Material given = new Material();
+		given.setMaterialOrder(4);
+		Material numbered = new Material();
+		Step step = new Step();
+		Category named = new Category();
+		named.setCategoryName("Painting");
+		project.getMaterials().addAll(List.of(given, numbered));
+		project.getSteps().add(step);
+		project.getCategories().add(named);
+
+		Runnable restore = ProjectDao.insertState(List.of(project));
+
+		//what insertProjects sets before a later statement fails
+		project.setProjectId(8);
+		given.setMaterialId(80);
+		given.setProjectId(8);
+		numbered.setMaterialId(81);
+		numbered.setProjectId(8);
+		numbered.setMaterialOrder(2);
+		step.setStepId(90);
+		step.setProjectId(8);
+		step.setStepOrder(1);
+		named.setCategoryId(3);
+
+		restore.run();
+
+		assertNull(project.getProjectId());
+		assertNull(given.getMaterialId());
+		assertNull(given.getProjectId());
+		assertEquals(4, given.getMaterialOrder());
+		assertNull(numbered.getMaterialId());
+		assertNull(numbered.getMaterialOrder());
+		assertNull(step.getStepId());
+		assertNull(step.getProjectId());
+		assertNull(step.getStepOrder());
+		assertNull(named.getCategoryId());
+		assertEquals("Painting", named.getCategoryName());
+	}
+
+	//--------- Fetch Project Page ----------------------------------------------
+
+	@Test
+	void rejectsAPageSizeOutOfRangeBeforeConnecting() {
+		ProjectDao dao = new ProjectDao();
+
+		for(int pageSize : new int[] {0, -1, ProjectDao.MAX_PAGE_SIZE + 1, Integer.MAX_VALUE}) {
+			IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+					() -> dao.fetchProjectPage(null, pageSize));
+
+			assertTrue(e.getMessage().endsWith(": " + pageSize), e.getMessage());
+		}
+	}
+
+	//--------- Helpers ---------------------------------------------------------
+
+	private static ChildDiff<Material> diffMaterials(List<Material> materials, Set<Integer> existingIds) {
+		return ProjectDao.diffChildren(5, materials, existingIds, ProjectDao.MATERIAL_TABLE, Material::getMaterialId,
+				Material::setProjectId, Material::setMaterialOrder);
+	}
+
+	//a saved material of project 5
+	private static Material material(int id, String name, int order) {
+		Material material = new Material();
+		material.setMaterialId(id);
+		material.setProjectId(5);
+		material.setMaterialName(name);
+		material.setMaterialOrder(order);
+		material.clearChanges();
+		return material;
+	}
+
+	private static Step step(int id, int order) {
+		Step step = new Step();
+		step.setStepId(id);
+		step.setProjectId(5);
+		step.setStepText("Step " + id);
+		step.setStepOrder(order);
+		step.clearChanges();
+		return step;
+	}
+}
@@ -0,0 +1,241 @@
+package projects.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SlowQueryLogTest {
+
+	private static final Logger LOG = Logger.getLogger(SlowQueryLog.class.getName());
+
+	private final List<String> messages = new ArrayList<>();
+	private final Handler capture = new Handler() {
+
+		@Override
+		public void publish(LogRecord record) {
+			if(record.getLevel() == Level.WARNING) {
+				messages.add(record.getMessage());
+			}
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	private long thresholdMillis;
+
+	@BeforeEach
+	void captureLog() {
+		thresholdMillis = SlowQueryLog.getThresholdMillis();
+		//every statement counts as slow, and no EXPLAIN needs a database
+		SlowQueryLog.setThresholdMillis(0);
+		SlowQueryLog.setExplain(false);
+		LOG.addHandler(capture);
+		LOG.setUseParentHandlers(false);
+	}
+
+	@AfterEach
+	void restore() {
+		LOG.removeHandler(capture);
+		LOG.setUseParentHandlers(true);
+		SlowQueryLog.setThresholdMillis(thresholdMillis);
+		SlowQueryLog.setExplain(true);
+	}
+
+	//--------- Normalize -------------------------------------------------------
+
+	@Test
+	void normalizeReplacesLiterals() {
+		assertEquals("SELECT * FROM project WHERE project_name = ? AND difficulty > ?",
+				SlowQueryLog.normalize("SELECT * FROM project WHERE project_name = 'Shelf' AND difficulty > 3"));
+	}
+
+	@Test
+	void normalizeHandlesEscapedQuotesAndDecimals() {
+		assertEquals("UPDATE material SET material_name = ?, cost = ? WHERE material_id = ?",
+				SlowQueryLog.normalize("UPDATE material SET material_name = 'It''s \\'2x4\\'', cost = 12.50 WHERE material_id = 7"));
+	}
+
+	@Test
+	void normalizeLeavesDigitsInsideIdentifiersAlone() {
+		assertEquals("SELECT col1 FROM t2 WHERE x = ?", SlowQueryLog.normalize("SELECT col1 FROM t2 WHERE x = 5"));
+	}
+
+	@Test
+	void normalizeCollapsesWhitespace() {
+		assertEquals("SELECT ? FROM project", SlowQueryLog.normalize("  SELECT\n\t1\n   FROM   project "));
+	}
+
+	@Test
+	void normalizeFoldsPlaceholderAndTupleLists() {
+		assertEquals("SELECT * FROM project WHERE project_id IN (?, ...)",
+				SlowQueryLog.normalize("SELECT * FROM project WHERE project_id IN (?, ?, ?,?)"));
+
+		assertEquals("INSERT INTO step (project_id, step_text) VALUES (?, ...), ...",
+				SlowQueryLog.normalize("INSERT INTO step (project_id, step_text) VALUES (?, ?), (?, ?), (?,?)"));
+	}
+
+	@Test
+	void normalizeGivesTheSameTextForTheSameShape() {
+		assertEquals(SlowQueryLog.normalize("SELECT * FROM t WHERE id IN (1, 2, 3)"),
+				SlowQueryLog.normalize("SELECT * FROM t WHERE id IN (4, 5)"));
+	}
+
+	//--------- Parameters ------------------------------------------------------
+
+	@Test
+	void logsTheBoundParametersInIndexOrder() throws SQLException {
+		try(PreparedStatement stmt = SlowQueryLog.wrap(fakeConnection())
+				.prepareStatement("UPDATE project SET notes = ?, difficulty = ? WHERE project_id = ?")){
+			stmt.setInt(3, 42);
+			stmt.setString(1, "Sand first");
+			stmt.setNull(2, Types.INTEGER);
+			stmt.executeUpdate();
+		}
+
+		assertEquals(1, messages.size());
+		assertTrue(messages.get(0).contains("): UPDATE project SET notes = ?, difficulty = ? WHERE project_id = ?"),
+				messages.get(0));
+		assertTrue(messages.get(0).contains("parameters: {1=Sand first, 2=null, 3=42}"), messages.get(0));
+	}
+
+	@Test
+	void clearParametersForgetsThem() throws SQLException {
+		try(PreparedStatement stmt = SlowQueryLog.wrap(fakeConnection()).prepareStatement("SELECT ?")){
+			stmt.setInt(1, 1);
+			stmt.clearParameters();
+			stmt.executeQuery();
+		}
+
+		assertFalse(messages.get(0).contains("parameters"), messages.get(0));
+	}
+
+	@Test
+	void plainStatementsLogTheirOwnSql() throws SQLException {
+		try(Statement stmt = SlowQueryLog.wrap(fakeConnection()).createStatement()){
+			stmt.execute("DELETE FROM project WHERE project_id = 9");
+		}
+
+		assertTrue(messages.get(0).endsWith("): DELETE FROM project WHERE project_id = ?"), messages.get(0));
+	}
+
+	//--------- Batches ---------------------------------------------------------
+
+	@Test
+	void logsThePreparedBatchSizeAndResetsItAfterExecuting() throws SQLException {
+		try(PreparedStatement stmt = SlowQueryLog.wrap(fakeConnection())
+				.prepareStatement("INSERT INTO category (category_name) VALUES (?)")){
+			for(String name : List.of("Doors", "Windows", "Floors")) {
+				stmt.setString(1, name);
+				stmt.addBatch();
+			}
+			stmt.executeBatch();
+
+			stmt.setString(1, "Roofs");
+			stmt.addBatch();
+			stmt.setString(1, "Walls");
+			stmt.addBatch();
+			stmt.executeBatch();
+		}
+
+		assertEquals(2, messages.size());
+		assertTrue(messages.get(0).contains(", batch of 3)"), messages.get(0));
+		assertTrue(messages.get(1).contains(", batch of 2)"), messages.get(1));
+	}
+
+	@Test
+	void plainStatementBatchesLogTheFirstStatementAndTheCount() throws SQLException {
+		try(Statement stmt = SlowQueryLog.wrap(fakeConnection()).createStatement()){
+			stmt.addBatch("DELETE FROM step WHERE step_id = 1");
+			stmt.addBatch("DELETE FROM step WHERE step_id = 2");
+			stmt.clearBatch();
+			stmt.addBatch("DELETE FROM material WHERE material_id = 3");
+			stmt.addBatch("DELETE FROM material WHERE material_id = 4");
+			stmt.executeBatch();
+		}
+
+		assertTrue(messages.get(0).endsWith(", batch of 2): DELETE FROM material WHERE material_id = ?"),
+				messages.get(0));
+	}
+
+	@Test
+	void aSingleExecuteIsNotReportedAsABatch() throws SQLException {
+		try(PreparedStatement stmt = SlowQueryLog.wrap(fakeConnection()).prepareStatement("SELECT 1")){
+			stmt.executeQuery();
+		}
+
+		assertFalse(messages.get(0).contains("batch"), messages.get(0));
+	}
+
+	//--------- Threshold -------------------------------------------------------
+
+	@Test
+	void statementsUnderTheThresholdAreNotLogged() throws SQLException {
+		SlowQueryLog.setThresholdMillis(60_000);
+
+		try(PreparedStatement stmt = SlowQueryLog.wrap(fakeConnection()).prepareStatement("SELECT 1")){
+			stmt.executeQuery();
+		}
+
+		assertEquals(List.of(), messages);
+	}
+
+	@Test
+	void rejectsANegativeThreshold() {
+		assertThrows(IllegalArgumentException.class, () -> SlowQueryLog.setThresholdMillis(-1));
+	}
+
+	//--------- Helpers ---------------------------------------------------------
+
+	//a connection whose statements do nothing and return empty results
+	private static Connection fakeConnection() {
+		return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+				(proxy, method, args) -> switch(method.getName()) {
+				case "prepareStatement" -> fake(PreparedStatement.class);
+				case "createStatement" -> fake(Statement.class);
+				default -> defaultValue(method.getReturnType());
+				});
+	}
+
+	private static Object fake(Class<?> type) {
+		return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+				(proxy, method, args) -> method.getName().equals("executeBatch") ? new int[0]
+						: defaultValue(method.getReturnType()));
+	}
+
+	private static Object defaultValue(Class<?> type) {
+		if(type == boolean.class) {
+			return false;
+		}
+		if(type == int.class) {
+			return 0;
+		}
+		if(type == long.class) {
+			return 0L;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,142 @@
+package projects.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TrackedEntityTest {
+
+	@Test
+	void aNewEntityReportsEveryFieldItWasGiven() {
+		Project project = new Project();
+		project.setNotes("Oak");
+		project.setProjectName("Shelf");
+		project.setProjectId(1);
+
+		//declaration order, not the order they were set; the ID is not an updatable column
+		assertEquals(List.of("projectName", "notes"), List.copyOf(project.getChangedFields()));
+		assertTrue(project.hasChanges());
+	}
+
+	@Test
+	void settingTheSameValueIsNotAChange() {
+		Project project = saved();
+
+		project.setProjectName("Shelf");
+		project.setEstimatedHours(4);
+		project.setNotes(null);
+
+		assertFalse(project.hasChanges());
+		assertEquals(Set.of(), project.getChangedFields());
+	}
+
+	@Test
+	void eachFieldHasItsOwnBit() {
+		Project project = saved();
+
+		project.setEstimatedHours(5);
+		project.setDifficulty(1);
+
+		assertEquals(List.of("estimatedHours", "difficulty"), List.copyOf(project.getChangedFields()));
+
+		project.setActualHours(2);
+		project.setNotes("Sand");
+		project.setProjectName("Tall Shelf");
+
+		assertEquals(List.of("projectName", "estimatedHours", "actualHours", "difficulty", "notes"),
+				List.copyOf(project.getChangedFields()));
+	}
+
+	@Test
+	void changingAFieldBackStillCountsAsAChange() {
+		Project project = saved();
+
+		project.setDifficulty(5);
+		project.setDifficulty(3);
+
+		assertEquals(Set.of("difficulty"), project.getChangedFields());
+	}
+
+	@Test
+	void settingAFieldToNullIsAChange() {
+		Project project = saved();
+
+		project.setEstimatedHours(null);
+
+		assertEquals(Set.of("estimatedHours"), project.getChangedFields());
+	}
+
+	@Test
+	void materialsAndStepsTrackTheirOwnFields() {
+		Material material = new Material();
+		material.setMaterialId(1);
+		material.setProjectId(2);
+		material.setCost(new BigDecimal("2.50"));
+		material.setMaterialOrder(1);
+
+		Step step = new Step();
+		step.setStepId(1);
+		step.setStepOrder(3);
+		step.setStepText("Cut");
+
+		assertEquals(List.of("cost", "materialOrder"), List.copyOf(material.getChangedFields()));
+		assertEquals(List.of("stepText", "stepOrder"), List.copyOf(step.getChangedFields()));
+	}
+
+	@Test
+	void clearChangesForgetsOnlyTheProjectsOwnChanges() {
+		Project project = saved();
+		Material material = new Material();
+		material.setMaterialName("Screws");
+		Step step = new Step();
+		step.setStepText("Drill");
+		project.getMaterials().add(material);
+		project.getSteps().add(step);
+		project.setNotes("Changed");
+
+		project.clearChanges();
+
+		assertFalse(project.hasChanges());
+		assertTrue(material.hasChanges());
+		assertTrue(step.hasChanges());
+	}
+
+	@Test
+	void clearAllChangesCascadesToMaterialsAndSteps() {
+		Project project = saved();
+		Material material = new Material();
+		material.setMaterialName("Screws");
+		Step step = new Step();
+		step.setStepText("Drill");
+		project.getMaterials().add(material);
+		project.getSteps().add(step);
+		project.setNotes("Changed");
+
+		project.clearAllChanges();
+
+		assertFalse(project.hasChanges());
+		assertFalse(material.hasChanges());
+		assertFalse(step.hasChanges());
+
+		material.setNumRequired(4);
+		assertEquals(Set.of("numRequired"), material.getChangedFields(), "tracking goes on after a clear");
+	}
+
+	//a project as read back from the database: values set, nothing changed
+	private static Project saved() {
+		Project project = new Project();
+		project.setProjectId(1);
+		project.setProjectName("Shelf");
+		project.setEstimatedHours(4);
+		project.setActualHours(6);
+		project.setDifficulty(3);
+		project.clearChanges();
+		return project;
+	}
+}
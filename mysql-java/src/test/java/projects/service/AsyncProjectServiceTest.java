@@ -0,0 +1,93 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import projects.dao.DbConnection;
+import projects.entity.Project;
+
+class AsyncProjectServiceTest {
+
+	//reports the read-your-writes window of the thread each call runs on, instead of reading
+	private static class WindowReportingService extends ProjectService {
+
+		@Override
+		public Project fetchProjectById(Integer projectId) {
+			Project project = new Project();
+			project.setProjectId(projectId);
+			project.setEstimatedHours((int)TimeUnit.NANOSECONDS
+					.toMillis(DbConnection.getPrimaryReadsUntil() - System.nanoTime()));
+			return project;
+		}
+
+		@Override
+		public List<Project> addProjects(List<Project> projects) {
+			return projects;
+		}
+	}
+
+	@Test
+	void theCallersWindowGoesWithTheRead() throws Exception {
+		try(AsyncProjectService service = new AsyncProjectService(new WindowReportingService(), 4)){
+			DbConnection.markWrite();
+
+			Project read = service.fetchProjectById(1).get(5, TimeUnit.SECONDS);
+
+			assertTrue(read.getEstimatedHours() > 0, "the read ran inside the caller's window");
+		}
+	}
+
+	@Test
+	void aSubmittedWriteOpensTheWindowOnTheCallingThread() throws Exception {
+		Thread caller = Thread.ofVirtual().unstarted(() -> {
+			try(AsyncProjectService service = new AsyncProjectService(new WindowReportingService(), 4)){
+				assertTrue(DbConnection.getPrimaryReadsUntil() - System.nanoTime() <= 0, "a fresh thread reads the replica");
+
+				service.addProjects(List.of(new Project())).get(5, TimeUnit.SECONDS);
+
+				assertTrue(DbConnection.getPrimaryReadsUntil() - System.nanoTime() > 0);
+				assertTrue(service.fetchProjectById(1).get(5, TimeUnit.SECONDS).getEstimatedHours() > 0);
+			} catch (Exception e) {
+				throw new AssertionError(e);
+			}
+		});
+
+		runAndRethrow(caller);
+	}
+
+	@Test
+	void keepReadsOnPrimaryUntilNeverShortensTheWindow() throws Exception {
+		Thread thread = Thread.ofVirtual().unstarted(() -> {
+			DbConnection.markWrite();
+			long window = DbConnection.getPrimaryReadsUntil();
+
+			DbConnection.keepReadsOnPrimaryUntil(window - 1_000_000);
+			assertEquals(window, DbConnection.getPrimaryReadsUntil());
+
+			DbConnection.keepReadsOnPrimaryUntil(window + 1_000_000);
+			assertEquals(window + 1_000_000, DbConnection.getPrimaryReadsUntil());
+		});
+
+		runAndRethrow(thread);
+	}
+
+	//runs the assertions on a thread of their own, so this thread's window is not involved
+	private static void runAndRethrow(Thread thread) throws InterruptedException {
+		Throwable[] failure = new Throwable[1];
+		thread.setUncaughtExceptionHandler((t, e) -> failure[0] = e);
+		thread.start();
+		thread.join();
+
+		if(failure[0] instanceof Error error) {
+			throw error;
+		}
+		if(failure[0] instanceof RuntimeException e) {
+			throw e;
+		}
+	}
+}
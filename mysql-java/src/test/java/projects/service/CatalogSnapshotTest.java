@@ -0,0 +1,324 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.ProjectSummary;
+import projects.entity.Step;
+import projects.exceptions.DbException;
+
+class CatalogSnapshotTest {
+
+	@TempDir
+	Path dir;
+
+	private final InMemoryProjectDao dao = new InMemoryProjectDao();
+
+	//--------- Export and Open -------------------------------------------------
+
+	@Test
+	void exportedProjectsReadBackWithTheirChildren() {
+		Project shelf = dao.add(project(7, "Shelf", 3, "Pine"));
+		Project bench = dao.add(project(3, "Bench", 1, null));
+		CatalogSnapshot snapshot = exportAndOpen();
+
+		assertEquals(2, snapshot.getProjectCount());
+		assertEquals(shelf.toString(), snapshot.findProject(7).orElseThrow().toString());
+		assertEquals(bench.toString(), snapshot.findProject(3).orElseThrow().toString());
+		assertTrue(snapshot.findProject(5).isEmpty());
+		assertFalse(snapshot.covers(5));
+	}
+
+	@Test
+	void nullsSurviveTheRoundTrip() {
+		Project project = new Project();
+		project.setProjectId(1);
+		project.setProjectName("Nulls");
+
+		Material material = new Material();
+		material.setMaterialId(10);
+		material.setProjectId(1);
+		material.setMaterialOrder(1);
+		project.getMaterials().add(material);
+
+		Step step = new Step();
+		step.setStepId(20);
+		step.setProjectId(1);
+		step.setStepOrder(1);
+		project.getSteps().add(step);
+
+		dao.add(project);
+		Project read = exportAndOpen().findProject(1).orElseThrow();
+
+		assertNull(read.getEstimatedHours());
+		assertNull(read.getNotes());
+		assertNull(read.getMaterials().get(0).getMaterialName());
+		assertNull(read.getMaterials().get(0).getCost());
+		assertNull(read.getMaterials().get(0).getNumRequired());
+		assertNull(read.getSteps().get(0).getStepText());
+		assertEquals(project.toString(), read.toString());
+	}
+
+	@Test
+	void textIsStoredAsUtf8() {
+		dao.add(project(1, "Régale ✓ 棚", 1, "naïve"));
+
+		assertEquals("Régale ✓ 棚", exportAndOpen().findProject(1).orElseThrow().getProjectName());
+	}
+
+	@Test
+	void readProjectsHaveNoPendingChanges() {
+		dao.add(project(1, "Shelf", 2, null));
+		Project read = exportAndOpen().findProject(1).orElseThrow();
+
+		assertFalse(read.hasChanges());
+		assertFalse(read.getMaterials().get(0).hasChanges());
+		assertFalse(read.getSteps().get(0).hasChanges());
+	}
+
+	@Test
+	void eachLookupDecodesAFreshCopy() {
+		dao.add(project(1, "Shelf", 1, null));
+		CatalogSnapshot snapshot = exportAndOpen();
+
+		snapshot.findProject(1).orElseThrow().setProjectName("Changed");
+
+		assertEquals("Shelf", snapshot.findProject(1).orElseThrow().getProjectName());
+	}
+
+	@Test
+	void anEmptyCatalogExports() {
+		CatalogSnapshot snapshot = exportAndOpen();
+
+		assertEquals(0, snapshot.getProjectCount());
+		assertEquals(List.of(), snapshot.listProjects());
+	}
+
+	@Test
+	void rejectsAFileThatIsNotASnapshot() throws IOException {
+		Path file = Files.write(dir.resolve("junk.bin"), new byte[64]);
+
+		assertThrows(DbException.class, () -> CatalogSnapshot.open(file));
+	}
+
+	@Test
+	void exportLeavesNoTempFileBehind() throws IOException {
+		dao.add(project(1, "Shelf", 1, null));
+		exportAndOpen();
+
+		try(var files = Files.list(dir)){
+			assertEquals(List.of(dir.resolve("catalog.bin")), files.toList());
+		}
+	}
+
+	//--------- List Projects ---------------------------------------------------
+
+	@Test
+	void listProjectsIsInNameOrderWithoutChildren() {
+		dao.add(project(1, "delta", 1, null));
+		dao.add(project(2, "Alpha", 1, null));
+		dao.add(project(3, "charlie", 1, null));
+		dao.add(project(4, "Bravo", 1, null));
+
+		List<Project> projects = exportAndOpen().listProjects();
+
+		assertEquals(List.of(2, 4, 3, 1), ids(projects));
+		assertTrue(projects.stream().allMatch(project -> project.getMaterials().isEmpty()
+				&& project.getSteps().isEmpty() && project.getCategories().isEmpty()));
+	}
+
+	@Test
+	void listProjectsMergesTheOverlayInNameOrder() {
+		dao.add(project(1, "Alpha", 1, null));
+		dao.add(project(2, "Charlie", 1, null));
+		dao.add(project(3, "Echo", 1, null));
+		CatalogSnapshot snapshot = exportAndOpen();
+
+		dao.add(project(4, "Delta", 2, null));
+		dao.add(project(1, "Foxtrot", 2, null));
+		dao.remove(2);
+		snapshot.refresh(dao, List.of(1, 2, 4));
+
+		List<Project> projects = snapshot.listProjects();
+
+		assertEquals(List.of(4, 3, 1), ids(projects));
+		assertTrue(projects.get(0).getMaterials().isEmpty());
+	}
+
+	@Test
+	void listProjectsOrdersTheOverlayAsTheDatabaseDoes() {
+		dao.add(project(1, "Framing", 1, null));
+		dao.add(project(2, "Zinc roof", 1, null));
+		CatalogSnapshot snapshot = exportAndOpen();
+
+		//the collation puts an accented E with the Es; comparing chars in Java would put it after Z
+		dao.add(project(3, "Étagère", 1, null));
+		snapshot.refresh(dao, List.of(3));
+
+		assertEquals(List.of(3, 1, 2), ids(snapshot.listProjects()));
+	}
+
+	//--------- Refresh ---------------------------------------------------------
+
+	@Test
+	void refreshOverlaysChangedProjectsAndHidesDeletedOnes() {
+		dao.add(project(1, "Shelf", 1, null));
+		dao.add(project(2, "Bench", 1, null));
+		CatalogSnapshot snapshot = exportAndOpen();
+
+		Project changed = dao.add(project(1, "Tall Shelf", 3, "Oak"));
+		dao.remove(2);
+		snapshot.refresh(dao, List.of(1, 2));
+
+		assertEquals(changed.toString(), snapshot.findProject(1).orElseThrow().toString());
+		assertTrue(snapshot.findProject(2).isEmpty());
+		assertTrue(snapshot.covers(2), "a deleted project is answered here, as absent");
+		assertEquals(2, snapshot.getProjectCount(), "the file itself is not rewritten");
+	}
+
+	@Test
+	void aProjectDeletedAndAddedBackIsVisibleAgain() {
+		dao.add(project(1, "Shelf", 1, null));
+		CatalogSnapshot snapshot = exportAndOpen();
+
+		dao.remove(1);
+		snapshot.refresh(dao, List.of(1));
+		dao.add(project(1, "Shelf Again", 1, null));
+		snapshot.refresh(dao, List.of(1));
+
+		assertEquals("Shelf Again", snapshot.findProject(1).orElseThrow().getProjectName());
+	}
+
+	@Test
+	void refreshWithoutIdsFindsAddedAndDeletedProjects() {
+		dao.add(project(1, "Shelf", 1, null));
+		dao.add(project(2, "Bench", 1, null));
+		CatalogSnapshot snapshot = exportAndOpen();
+
+		dao.remove(1);
+		dao.add(project(5, "Table", 1, null));
+		//edited in place: not detectable without modification times
+		dao.add(project(2, "Long Bench", 1, null));
+
+		assertEquals(Set.of(1, 5), snapshot.refresh(dao));
+		assertTrue(snapshot.findProject(1).isEmpty());
+		assertEquals("Table", snapshot.findProject(5).orElseThrow().getProjectName());
+		assertEquals("Bench", snapshot.findProject(2).orElseThrow().getProjectName());
+
+		assertEquals(Set.of(), snapshot.refresh(dao), "nothing changed since the last refresh");
+	}
+
+	//--------- Helpers ---------------------------------------------------------
+
+	private CatalogSnapshot exportAndOpen() {
+		Path file = dir.resolve("catalog.bin");
+		CatalogSnapshot.export(dao, file);
+		return CatalogSnapshot.open(file);
+	}
+
+	private static List<Integer> ids(List<Project> projects) {
+		return projects.stream().map(Project::getProjectId).toList();
+	}
+
+	//a project with the given number of materials and steps and one category
+	private static Project project(int id, String name, int children, String notes) {
+		Project project = new Project();
+		project.setProjectId(id);
+		project.setProjectName(name);
+		project.setEstimatedHours(id + 1);
+		project.setActualHours(id + 2);
+		project.setDifficulty(3);
+		project.setNotes(notes);
+
+		for(int order = 1; order <= children; order++) {
+			Material material = new Material();
+			material.setMaterialId(id * 100 + order);
+			material.setProjectId(id);
+			material.setMaterialName("Material " + order);
+			material.setNumRequired(order);
+			material.setCost(new BigDecimal("1.50").multiply(BigDecimal.valueOf(order)));
+			material.setMaterialOrder(order);
+			project.getMaterials().add(material);
+
+			Step step = new Step();
+			step.setStepId(id * 100 + order);
+			step.setProjectId(id);
+			step.setStepText("Step " + order);
+			step.setStepOrder(order);
+			project.getSteps().add(step);
+		}
+
+		Category category = new Category();
+		category.setCategoryId(id);
+		category.setCategoryName("Category " + id);
+		project.getCategories().add(category);
+
+		return project;
+	}
+
+	//--------- CLASS: In-Memory Project Dao ------------------------------------
+
+	//answers the two queries snapshots use from a map, never touching a database
+	private static class InMemoryProjectDao extends ProjectDao {
+		private final Map<Integer, Project> projects = new TreeMap<>();
+
+		Project add(Project project) {
+			projects.put(project.getProjectId(), project);
+			return project;
+		}
+
+		void remove(Integer projectId) {
+			projects.remove(projectId);
+		}
+
+		//an accent- and case-insensitive name order, like MySQL's default collation, then ID
+		@Override
+		public List<ProjectSummary> fetchProjectSummaries() {
+			Collator collation = Collator.getInstance(Locale.ROOT);
+			collation.setStrength(Collator.PRIMARY);
+
+			return projects.values().stream()
+					.sorted(Comparator.comparing(Project::getProjectName, collation).thenComparing(Project::getProjectId))
+					.map(project -> new ProjectSummary(project.getProjectId(), project.getProjectName())).toList();
+		}
+
+		@Override
+		public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+			List<Project> found = new ArrayList<>();
+
+			for(Integer id : projectIds) {
+				Project project = projects.get(id);
+
+				if(Objects.nonNull(project)) {
+					found.add(ProjectCache.copyOf(project));
+				}
+			}
+			return found;
+		}
+	}
+}
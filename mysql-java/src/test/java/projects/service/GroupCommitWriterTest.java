@@ -0,0 +1,181 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import projects.entity.Project;
+import projects.exceptions.DbException;
+
+class GroupCommitWriterTest {
+
+	private static final Logger LOG = Logger.getLogger(GroupCommitWriter.class.getName());
+
+	private final AtomicInteger nextId = new AtomicInteger(1);
+
+	//batch sizes passed to the insert, in order
+	private final List<Integer> batchSizes = new ArrayList<>();
+
+	@BeforeEach
+	void quiet() {
+		//the failures below are logged on purpose
+		LOG.setUseParentHandlers(false);
+	}
+
+	@AfterEach
+	void restore() {
+		LOG.setUseParentHandlers(true);
+	}
+
+	@Test
+	void writesQueuedProjectsInBatches() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+
+		//the first insert waits, so the next three queue up behind it and go as one batch
+		try(GroupCommitWriter writer = writer(projects -> {
+			await(release);
+			return assignIds(projects);
+		}, 10)){
+			List<CompletableFuture<Project>> results = new ArrayList<>();
+
+			results.add(writer.submit(project("A")));
+			Thread.sleep(50);
+
+			for(String name : List.of("B", "C", "D")) {
+				results.add(writer.submit(project(name)));
+			}
+			release.countDown();
+
+			for(CompletableFuture<Project> result : results) {
+				assertTrue(result.get(5, TimeUnit.SECONDS).getProjectId() > 0);
+			}
+			assertEquals(List.of(1, 3), batchSizes);
+			assertEquals(2, writer.getBatchCount());
+			assertEquals(4, writer.getProjectCount());
+		}
+	}
+
+	@Test
+	void aFailedBatchIsRetriedOneProjectAtATime() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+
+		try(GroupCommitWriter writer = writer(projects -> {
+			await(release);
+
+			if(projects.stream().anyMatch(project -> project.getProjectName().equals("bad"))) {
+				throw new DbException("bad project");
+			}
+			return assignIds(projects);
+		}, 10)){
+			CompletableFuture<Project> first = writer.submit(project("first"));
+			Thread.sleep(50);
+			CompletableFuture<Project> good = writer.submit(project("good"));
+			CompletableFuture<Project> bad = writer.submit(project("bad"));
+			release.countDown();
+
+			first.get(5, TimeUnit.SECONDS);
+			assertTrue(good.get(5, TimeUnit.SECONDS).getProjectId() > 0);
+
+			ExecutionException e = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+			assertInstanceOf(DbException.class, e.getCause());
+		}
+	}
+
+	@Test
+	void anAfterCommitFailureStillCompletesTheFutures() throws Exception {
+		try(GroupCommitWriter writer = new GroupCommitWriter(this::assignIds, projects -> {
+			throw new IllegalStateException("hook");
+		}, 10, Duration.ZERO, 100)){
+			assertTrue(writer.submit(project("A")).get(5, TimeUnit.SECONDS).getProjectId() > 0);
+		}
+	}
+
+	@Test
+	void anErrorFailsTheBatchAndStopsTheWriter() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Error error = new StackOverflowError();
+
+		GroupCommitWriter writer = writer(projects -> {
+			await(release);
+			throw error;
+		}, 1);
+
+		CompletableFuture<Project> failing = writer.submit(project("A"));
+		Thread.sleep(50);
+		CompletableFuture<Project> queued = writer.submit(project("B"));
+		release.countDown();
+
+		ExecutionException batchFailure = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+		assertSame(error, batchFailure.getCause());
+
+		ExecutionException queuedFailure = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, queuedFailure.getCause());
+		assertSame(error, queuedFailure.getCause().getCause());
+
+		ExecutionException late = assertThrows(ExecutionException.class,
+				() -> writer.submit(project("C")).get(5, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, late.getCause());
+
+		writer.close();
+	}
+
+	@Test
+	void closeWritesWhatIsQueuedThenRejectsMore() throws Exception {
+		GroupCommitWriter writer = writer(this::assignIds, 10);
+		CompletableFuture<Project> queued = writer.submit(project("A"));
+
+		writer.close();
+
+		assertTrue(queued.isDone());
+		assertTrue(queued.get().getProjectId() > 0);
+		assertTrue(writer.submit(project("B")).isCompletedExceptionally());
+	}
+
+	//--------- Helpers ---------------------------------------------------------
+
+	private GroupCommitWriter writer(Function<List<Project>, List<Project>> insert, int batchSize) {
+		return new GroupCommitWriter(projects -> {
+			synchronized(batchSizes) {
+				batchSizes.add(projects.size());
+			}
+			return insert.apply(projects);
+		}, projects -> {
+		}, batchSize, Duration.ZERO, 100);
+	}
+
+	private List<Project> assignIds(List<Project> projects) {
+		projects.forEach(project -> project.setProjectId(nextId.getAndIncrement()));
+		return projects;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Project project(String name) {
+		Project project = new Project();
+		project.setProjectName(name);
+		return project;
+	}
+}
@@ -0,0 +1,83 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import projects.dao.ProjectDao;
+import projects.exceptions.DbException;
+
+class ParallelScriptLoaderTest {
+
+	//six project INSERTs (statements 1 to 6), then four material INSERTs (7 to 10)
+	private static final String SCHEMA = "loader-schema.sql";
+	private static final String DATA = "loader-data.sql";
+
+	@Test
+	void ordersTablesByForeignKeys() {
+		assertEquals(List.of(Set.of("project"), Set.of("material")), ParallelScriptLoader.tablesInLoadOrder(SCHEMA));
+	}
+
+	@Test
+	void loadsParentsBeforeChildren() {
+		RecordingProjectDao dao = new RecordingProjectDao(null);
+
+		assertEquals(10, new ParallelScriptLoader(dao, 4, 2, false).load(SCHEMA, DATA));
+
+		List<String> statements = dao.executed();
+		assertEquals(10, statements.size());
+		assertTrue(statements.subList(0, 6).stream().allMatch(sql -> sql.startsWith("INSERT INTO project")), statements.toString());
+	}
+
+	@Test
+	void theFirstFailedChunkStopsTheLoad() {
+		RuntimeException failure = new DbException("duplicate key");
+		RecordingProjectDao dao = new RecordingProjectDao(failure);
+
+		DbException e = assertThrows(DbException.class, () -> new ParallelScriptLoader(dao, 1, 1, false).load(SCHEMA, DATA));
+
+		//nothing after the failed chunk ran, and the material level never started
+		assertEquals(List.of("INSERT INTO project (project_id) VALUES (1)", "INSERT INTO project (project_id) VALUES (2)",
+				"INSERT INTO project (project_id) VALUES (3)"), dao.executed());
+		assertSame(failure, e.getCause());
+		assertTrue(e.getMessage().contains("(statements 3 to 3 of the script)"), e.getMessage());
+		assertTrue(e.getMessage().contains("Resume tables [project] from statement 3;"), e.getMessage());
+	}
+
+	//--------- CLASS: Recording Project Dao ------------------------------------
+
+	//records each batch instead of running it; fails the batch holding project 3 when given a failure
+	private static class RecordingProjectDao extends ProjectDao {
+		private final RuntimeException failure;
+		private final List<String> executed = new ArrayList<>();
+
+		RecordingProjectDao(RuntimeException failure) {
+			this.failure = failure;
+		}
+
+		@Override
+		public void executeBatch(List<String> sqlBatch, boolean relaxChecks) {
+			synchronized(executed) {
+				executed.addAll(sqlBatch);
+			}
+
+			if(Objects.nonNull(failure) && sqlBatch.stream().anyMatch(sql -> sql.endsWith("VALUES (3)"))) {
+				throw failure;
+			}
+		}
+
+		List<String> executed() {
+			synchronized(executed) {
+				return List.copyOf(executed);
+			}
+		}
+	}
+}
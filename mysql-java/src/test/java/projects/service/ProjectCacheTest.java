@@ -0,0 +1,228 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import projects.entity.Material;
+import projects.entity.Project;
+
+class ProjectCacheTest {
+
+	private static final Duration LONG = Duration.ofHours(1);
+
+	//IDs passed to the loader, in order
+	private final List<Integer> loads = new ArrayList<>();
+
+	private final Function<Integer, Optional<Project>> loader = id -> {
+		loads.add(id);
+		return Optional.of(project(id));
+	};
+
+	//--------- Read Through ----------------------------------------------------
+
+	@Test
+	void loadsOnAMissAndServesTheCopyAfterwards() {
+		ProjectCache cache = new ProjectCache(10, LONG);
+
+		assertEquals("Project 1", cache.get(1, loader).orElseThrow().getProjectName());
+		assertEquals("Project 1", cache.get(1, loader).orElseThrow().getProjectName());
+
+		assertEquals(List.of(1), loads);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	void doesNotCacheAMissingProject() {
+		ProjectCache cache = new ProjectCache(10, LONG);
+
+		assertTrue(cache.get(1, id -> Optional.empty()).isEmpty());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void callersGetIndependentCopies() {
+		ProjectCache cache = new ProjectCache(10, LONG);
+		Project loaded = cache.get(1, loader).orElseThrow();
+
+		loaded.setProjectName("Changed by the loader's caller");
+		Project first = cache.get(1, loader).orElseThrow();
+		first.getMaterials().clear();
+
+		Project second = cache.get(1, loader).orElseThrow();
+		assertEquals("Project 1", second.getProjectName());
+		assertEquals(1, second.getMaterials().size());
+		assertFalse(second.hasChanges());
+	}
+
+	@Test
+	void rejectsANonPositiveSize() {
+		assertThrows(IllegalArgumentException.class, () -> new ProjectCache(0, LONG));
+	}
+
+	//--------- Eviction --------------------------------------------------------
+
+	@Test
+	void evictsTheLeastReadEntry() {
+		ProjectCache cache = new ProjectCache(2, LONG);
+
+		cache.get(1, loader);
+		cache.get(2, loader);
+		read(cache, 1, 3);
+
+		cache.get(3, loader);
+
+		assertEquals(1, cache.getEvictionCount());
+		assertCached(cache, 1, 3);
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedAmongEqualCounts() {
+		ProjectCache cache = new ProjectCache(2, LONG);
+
+		cache.get(1, loader);
+		cache.get(2, loader);
+		read(cache, 1, 1);
+		read(cache, 2, 1);
+
+		cache.get(3, loader);
+
+		assertCached(cache, 2, 3);
+	}
+
+	/*
+	 * Counts halve every 10 x maxEntries hits. Project 1 is read 19 times, then project 2 only 11
+	 * times; the aging on the 20th hit halves project 1 to 10 reads, so project 2 now counts for more
+	 * and project 1 is evicted. Without aging project 1 would stay.
+	 */
+	@Test
+	void agingLetsOnceHotEntriesBeEvicted() {
+		ProjectCache cache = new ProjectCache(2, LONG);
+
+		cache.get(1, loader);
+		read(cache, 1, 19);
+		cache.get(2, loader);
+		read(cache, 2, 11);
+
+		cache.get(3, loader);
+
+		assertCached(cache, 2, 3);
+	}
+
+	//--------- Expiry ----------------------------------------------------------
+
+	@Test
+	void expiredEntriesAreLoadedAgain() {
+		ProjectCache cache = new ProjectCache(10, Duration.ZERO);
+
+		cache.get(1, loader);
+		cache.get(1, loader);
+
+		assertEquals(List.of(1, 1), loads);
+		assertEquals(1, cache.getExpirationCount());
+		assertEquals(0, cache.getHitCount());
+	}
+
+	@Test
+	void entriesWithinTheirTtlAreNotExpired() {
+		ProjectCache cache = new ProjectCache(10, LONG);
+
+		cache.get(1, loader);
+		read(cache, 1, 5);
+
+		assertEquals(0, cache.getExpirationCount());
+	}
+
+	//--------- Invalidation ----------------------------------------------------
+
+	@Test
+	void invalidateDropsTheEntry() {
+		ProjectCache cache = new ProjectCache(10, LONG);
+
+		cache.get(1, loader);
+		cache.get(2, loader);
+		cache.invalidate(1);
+
+		assertEquals(1, cache.size());
+		cache.get(1, loader);
+		assertEquals(List.of(1, 2, 1), loads);
+	}
+
+	//the load may have read the row before the write that invalidated it, so it must not be cached
+	@Test
+	void aLoadOverlappingAnInvalidationIsReturnedButNotCached() {
+		ProjectCache cache = new ProjectCache(10, LONG);
+
+		Optional<Project> loaded = cache.get(1, id -> {
+			cache.invalidate(id);
+			return Optional.of(project(id));
+		});
+
+		assertTrue(loaded.isPresent());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void aLoadOverlappingInvalidateAllIsNotCached() {
+		ProjectCache cache = new ProjectCache(10, LONG);
+
+		cache.get(1, id -> {
+			cache.invalidateAll();
+			return Optional.of(project(id));
+		});
+
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void loadsStartedAfterAnInvalidationAreCached() {
+		ProjectCache cache = new ProjectCache(10, LONG);
+
+		cache.invalidate(1);
+		cache.get(1, loader);
+
+		assertEquals(1, cache.size());
+	}
+
+	//--------- Helpers ---------------------------------------------------------
+
+	private void read(ProjectCache cache, int projectId, int times) {
+		for(int count = 0; count < times; count++) {
+			cache.get(projectId, loader);
+		}
+	}
+
+	//exactly the given IDs are served without a load
+	private void assertCached(ProjectCache cache, Integer... projectIds) {
+		loads.clear();
+
+		for(Integer id : projectIds) {
+			cache.get(id, loader);
+		}
+		assertEquals(List.of(), loads);
+		assertEquals(projectIds.length, cache.size());
+	}
+
+	private static Project project(Integer id) {
+		Project project = new Project();
+		project.setProjectId(id);
+		project.setProjectName("Project " + id);
+
+		Material material = new Material();
+		material.setMaterialName("Screws");
+		project.getMaterials().add(material);
+
+		project.clearAllChanges();
+		return project;
+	}
+}
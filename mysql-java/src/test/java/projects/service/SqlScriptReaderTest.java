@@ -0,0 +1,228 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SqlScriptReaderTest {
+
+	//--------- Statements ------------------------------------------------------
+
+	@Test
+	void splitsOnSemicolonsAndCollapsesWhitespace() throws IOException {
+		assertEquals(List.of("SELECT 1", "SELECT 2 FROM t"), read("SELECT 1;\n\n  SELECT\t2\n  FROM   t ;"));
+	}
+
+	@Test
+	void returnsTheLastStatementWithoutASemicolon() throws IOException {
+		assertEquals(List.of("SELECT 1", "SELECT 2"), read("SELECT 1; SELECT 2"));
+	}
+
+	@Test
+	void skipsEmptyStatements() throws IOException {
+		assertEquals(List.of("SELECT 1"), read(";;  ;\nSELECT 1;;\n;"));
+	}
+
+	@Test
+	void emptyScriptHasNoStatements() throws IOException {
+		try(SqlScriptReader reader = new SqlScriptReader(new StringReader("  -- nothing\n"))){
+			assertNull(reader.nextStatement());
+			assertEquals(0, reader.getStatementCount());
+		}
+	}
+
+	//--------- Quotes ----------------------------------------------------------
+
+	@Test
+	void keepsSemicolonsAndWhitespaceInsideQuotes() throws IOException {
+		String script = "INSERT INTO t VALUES ('a;  b', \"c ; d\");INSERT INTO `odd;name` VALUES (1);";
+
+		assertEquals(List.of("INSERT INTO t VALUES ('a;  b', \"c ; d\")", "INSERT INTO `odd;name` VALUES (1)"),
+				read(script));
+	}
+
+	@Test
+	void keepsDoubledAndBackslashEscapedQuotes() throws IOException {
+		String script = "SELECT 'it''s; fine', 'back\\'slash; too', `a``b`; SELECT 2";
+
+		assertEquals(List.of("SELECT 'it''s; fine', 'back\\'slash; too', `a``b`", "SELECT 2"), read(script));
+	}
+
+	@Test
+	void backslashDoesNotEscapeInBacktickIdentifiers() throws IOException {
+		assertEquals(List.of("SELECT `a\\`", "SELECT 2"), read("SELECT `a\\`; SELECT 2;"));
+	}
+
+	@Test
+	void commentMarkersInsideQuotesAreText() throws IOException {
+		assertEquals(List.of("SELECT '-- not # a /* comment */'"), read("SELECT '-- not # a /* comment */';"));
+	}
+
+	//--------- Comments --------------------------------------------------------
+
+	@Test
+	void dropsLineAndBlockComments() throws IOException {
+		String script = "-- header\n# hash comment; with a semicolon\nSELECT /* inline; */ 1; -- trailing\n"
+				+ "/* multi\nline; */ SELECT 2;";
+
+		assertEquals(List.of("SELECT 1", "SELECT 2"), read(script));
+	}
+
+	@Test
+	void doubleDashWithoutWhitespaceIsNotAComment() throws IOException {
+		assertEquals(List.of("SELECT 5--1", "SELECT 2"), read("SELECT 5--1; SELECT 2;"));
+	}
+
+	@Test
+	void doubleDashAtTheEndOfTheScriptIsAComment() throws IOException {
+		assertEquals(List.of("SELECT 1"), read("SELECT 1; --"));
+	}
+
+	@Test
+	void keepsExecutableComments() throws IOException {
+		assertEquals(List.of("/*!40101 SET NAMES utf8mb4 */", "SELECT 1"), read("/*!40101 SET NAMES utf8mb4 */;SELECT 1;"));
+	}
+
+	//--------- Buffer Boundaries -----------------------------------------------
+
+	/*
+	 * The reader fills an 8K buffer; a source that hands out a few characters per read puts a refill
+	 * at every position of the script, including between the two dashes of a comment and between
+	 * doubled quotes.
+	 */
+	@Test
+	void tokensSplitAcrossReadsGiveTheSameStatements() throws IOException {
+		String script = "SELECT 'it''s; x' -- c;\n, `a``b`, 5--1 /* b; */ ; SELECT \"q\\\";\" # h;\n;";
+		List<String> expected = read(script);
+
+		for(int chunk = 1; chunk <= 4; chunk++) {
+			try(SqlScriptReader reader = new SqlScriptReader(new TrickleReader(script, chunk))){
+				assertEquals(expected, readAll(reader), "chunk size " + chunk);
+			}
+		}
+	}
+
+	@Test
+	void statementsLongerThanTheBufferAreKeptWhole() throws IOException {
+		String value = "x".repeat(20_000);
+		String script = "SELECT '" + value + "';\n-- " + "y".repeat(10_000) + "\nSELECT 2;";
+
+		assertEquals(List.of("SELECT '" + value + "'", "SELECT 2"), read(script));
+	}
+
+	@Test
+	void doubleDashAcrossABufferRefillIsStillRecognised() throws IOException {
+		//the second dash of each pair is the first character of a new 8K buffer
+		String padding = "x".repeat(8192 - "SELECT '".length() - "';-".length());
+		String script = "SELECT '" + padding + "';--\nSELECT 5--1;";
+
+		assertEquals(List.of("SELECT '" + padding + "'", "SELECT 5--1"), read(script));
+	}
+
+	//--------- Progress --------------------------------------------------------
+
+	@Test
+	void countsStatementsAndCharacters() throws IOException {
+		String script = "SELECT 1; SELECT 2; SELECT 3";
+
+		try(SqlScriptReader reader = new SqlScriptReader(new StringReader(script))){
+			reader.nextStatement();
+			assertEquals(1, reader.getStatementCount());
+
+			readAll(reader);
+			assertEquals(3, reader.getStatementCount());
+			assertEquals(script.length(), reader.getCharsRead());
+		}
+	}
+
+	//a load resumed after a checkpoint skips that many statements and sees exactly the rest
+	@Test
+	void resumingAfterACheckpointYieldsTheRemainingStatements() throws IOException {
+		String script = "INSERT INTO t VALUES (1);\n-- c\nINSERT INTO t VALUES ('2;');;INSERT INTO t VALUES (3);\nSELECT 4";
+		List<String> all = read(script);
+
+		for(long checkpoint = 0; checkpoint <= all.size(); checkpoint++) {
+			List<String> resumed = new ArrayList<>();
+
+			try(SqlScriptReader reader = new SqlScriptReader(new StringReader(script))){
+				String sql;
+
+				while((sql = reader.nextStatement()) != null) {
+					if(reader.getStatementCount() > checkpoint) {
+						resumed.add(sql);
+					}
+				}
+			}
+			assertEquals(all.subList((int)checkpoint, all.size()), resumed, "checkpoint " + checkpoint);
+		}
+	}
+
+	//--------- ProjectService --------------------------------------------------
+
+	@Test
+	void convertContentToSqlStatementsUsesTheSameRules() {
+		String script = "-- seed\nINSERT INTO category (category_name) VALUES ('Doors; and Windows');\n"
+				+ "INSERT INTO step (step_text) VALUES ('Don''t /* skip */ this');";
+
+		assertEquals(List.of("INSERT INTO category (category_name) VALUES ('Doors; and Windows')",
+				"INSERT INTO step (step_text) VALUES ('Don''t /* skip */ this')"),
+				new ProjectService().convertContentToSqlStatements(script));
+	}
+
+	@Test
+	void convertContentToSqlStatementsOfAnEmptyScriptIsEmpty() {
+		assertEquals(List.of(), new ProjectService().convertContentToSqlStatements("\n/* nothing */\n"));
+	}
+
+	//--------- Helpers ---------------------------------------------------------
+
+	private static List<String> read(String script) throws IOException {
+		try(SqlScriptReader reader = new SqlScriptReader(new StringReader(script))){
+			return readAll(reader);
+		}
+	}
+
+	private static List<String> readAll(SqlScriptReader reader) throws IOException {
+		List<String> statements = new ArrayList<>();
+		String sql;
+
+		while((sql = reader.nextStatement()) != null) {
+			statements.add(sql);
+		}
+		return statements;
+	}
+
+	//hands out at most chunk characters per read
+	private static class TrickleReader extends Reader {
+		private final String text;
+		private final int chunk;
+		private int position;
+
+		TrickleReader(String text, int chunk) {
+			this.text = text;
+			this.chunk = chunk;
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) {
+			if(position == text.length()) {
+				return -1;
+			}
+			int count = Math.min(Math.min(chunk, length), text.length() - position);
+			text.getChars(position, position + count, buffer, offset);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package provided.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+
+import provided.util.DaoBase.DaoException;
+
+class DaoBaseTest {
+
+	private final DaoBase dao = new DaoBase() {
+	};
+
+	public static class Widget {
+		private String widgetName;
+		private Integer partCount;
+	}
+
+	@Test
+	void extractMapsColumnsToFields() {
+		Widget widget = dao.extract(resultSet("Sprocket", 3), Widget.class);
+
+		assertEquals("Sprocket", widget.widgetName);
+		assertEquals(3, widget.partCount);
+	}
+
+	@Test
+	void extractWrapsExceptions() {
+		SQLException failure = new SQLException("connection lost");
+
+		DaoException e = assertThrows(DaoException.class, () -> dao.extract(resultSet(failure, 3), Widget.class));
+		assertSame(failure, e.getCause());
+	}
+
+	@Test
+	void extractWrapsAValueOfTheWrongType() {
+		DaoException e = assertThrows(DaoException.class, () -> dao.extract(resultSet("Sprocket", "three"), Widget.class));
+		assertInstanceOf(ClassCastException.class, e.getCause());
+	}
+
+	@Test
+	void extractLetsErrorsThrough() {
+		StackOverflowError error = new StackOverflowError();
+
+		assertSame(error, assertThrows(StackOverflowError.class, () -> dao.extract(resultSet(error, 3), Widget.class)));
+	}
+
+	//one row with widget_name and part_count; a Throwable as a value is thrown when that column is read
+	private static ResultSet resultSet(Object widgetName, Object partCount) {
+		Object[] values = {widgetName, partCount};
+
+		ResultSetMetaData meta = proxy(ResultSetMetaData.class, (proxy, method, args) -> switch(method.getName()) {
+		case "getColumnCount" -> 2;
+		case "getColumnLabel" -> (Integer)args[0] == 1 ? "widget_name" : "part_count";
+		default -> throw new UnsupportedOperationException(method.getName());
+		});
+
+		return proxy(ResultSet.class, (proxy, method, args) -> switch(method.getName()) {
+		case "getMetaData" -> meta;
+		case "getObject" -> {
+			Object value = values[(Integer)args[0] - 1];
+
+			if(value instanceof Throwable e) {
+				throw e;
+			}
+			yield value;
+		}
+		case "hashCode" -> System.identityHashCode(proxy);
+		case "equals" -> proxy == args[0];
+		default -> throw new UnsupportedOperationException(method.getName());
+		});
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+	}
+}
@@ -0,0 +1,10 @@
+INSERT INTO project (project_id) VALUES (1);
+INSERT INTO project (project_id) VALUES (2);
+INSERT INTO project (project_id) VALUES (3);
+INSERT INTO project (project_id) VALUES (4);
+INSERT INTO project (project_id) VALUES (5);
+INSERT INTO project (project_id) VALUES (6);
+INSERT INTO material (material_id, project_id) VALUES (1, 1);
+INSERT INTO material (material_id, project_id) VALUES (2, 2);
+INSERT INTO material (material_id, project_id) VALUES (3, 3);
+INSERT INTO material (material_id, project_id) VALUES (4, 4);
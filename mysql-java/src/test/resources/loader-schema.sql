@@ -0,0 +1,11 @@
+CREATE TABLE project(
+	project_id INT NOT NULL,
+	PRIMARY KEY (project_id)
+);
+
+CREATE TABLE material(
+	material_id INT NOT NULL,
+	project_id INT NOT NULL,
+	PRIMARY KEY (material_id),
+	FOREIGN KEY (project_id) REFERENCES project(project_id)
+);
@@ -0,0 +1,344 @@
+/**
+ *
+ */
+package provided.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Generated;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a {@code <Entity>RowMapper} and a {@code <Entity>InsertBinder} for every concrete
+ * class in the entity package. The entity package is set with the {@code rowmapper.package}
+ * processor option and defaults to {@code projects.entity}. No annotations are needed on the
+ * entities.
+ *
+ * The generated code mirrors what {@code DaoBase.extract()} does by reflection: each field of a
+ * supported scalar type is a column whose name is the snake case form of the field name. Fields of
+ * any other type (the child lists on Project, for example) are not columns and are left alone. The
+ * field named after the class plus "Id" (projectId on Project) is the generated primary key and is
+ * left out of the insert binder.
+ *
+ * @author Promineo
+ *
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(RowMapperProcessor.PACKAGE_OPTION)
+public class RowMapperProcessor extends AbstractProcessor {
+  static final String PACKAGE_OPTION = "rowmapper.package";
+  private static final String DEFAULT_PACKAGE = "projects.entity";
+
+  private final Set<String> generated = new HashSet<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    String entityPackage =
+        processingEnv.getOptions().getOrDefault(PACKAGE_OPTION, DEFAULT_PACKAGE);
+
+    for(Element element : roundEnv.getRootElements()) {
+      if(isEntity(element, entityPackage)) {
+        generate((TypeElement)element);
+      }
+    }
+
+    /* Never claim annotations; other processors still see everything. */
+    return false;
+  }
+
+  private boolean isEntity(Element element, String entityPackage) {
+    if(element.getKind() != ElementKind.CLASS
+        || element.getModifiers().contains(Modifier.ABSTRACT)
+        || Objects.nonNull(element.getAnnotation(Generated.class))
+        || generated.contains(element.toString())) {
+      return false;
+    }
+
+    PackageElement pkg = processingEnv.getElementUtils().getPackageOf(element);
+    return pkg.getQualifiedName().contentEquals(entityPackage);
+  }
+
+  private void generate(TypeElement entity) {
+    List<Column> columns = columnsOf(entity);
+
+    if(columns.isEmpty()) {
+      return;
+    }
+
+    String pkg = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+    String name = entity.getSimpleName().toString();
+    String idField = Character.toLowerCase(name.charAt(0)) + name.substring(1) + "Id";
+
+    List<Column> insertable = columns.stream().filter(column -> !column.field.equals(idField))
+        .collect(Collectors.toList());
+
+    write(pkg, name + "RowMapper", rowMapperSource(pkg, name, columns), entity);
+    write(pkg, name + "InsertBinder", insertBinderSource(pkg, name, insertable), entity);
+  }
+
+  /**
+   * Lists the mapped fields in declaration order, checking each has a public getter and setter.
+   */
+  private List<Column> columnsOf(TypeElement entity) {
+    Set<String> methods = ElementFilter.methodsIn(entity.getEnclosedElements()).stream()
+        .filter(method -> method.getModifiers().contains(Modifier.PUBLIC))
+        .map(ExecutableElement::getSimpleName).map(Object::toString).collect(Collectors.toSet());
+
+    List<Column> columns = new ArrayList<>();
+
+    for(VariableElement field : ElementFilter.fieldsIn(entity.getEnclosedElements())) {
+      if(field.getModifiers().contains(Modifier.STATIC)) {
+        continue;
+      }
+
+      ColumnType type = ColumnType.of(field.asType().toString());
+
+      if(Objects.isNull(type)) {
+        continue;
+      }
+
+      Column column = new Column(field.getSimpleName().toString(), type);
+
+      if(!methods.contains(column.getter()) || !methods.contains(column.setter())) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+            "Mapped field needs a public " + column.getter() + "() and " + column.setter() + "()",
+            field);
+        continue;
+      }
+
+      columns.add(column);
+    }
+
+    return columns;
+  }
+
+  // @formatter:off
+  private String rowMapperSource(String pkg, String name, List<Column> columns) {
+    StringBuilder src = header(pkg, name + "RowMapper", "RowMapper", name);
+
+    src.append("  public static final ").append(name).append("RowMapper INSTANCE = new ")
+        .append(name).append("RowMapper();\n\n");
+    src.append("  public static final String COLUMNS = \"")
+        .append(columnList(columns)).append("\";\n\n");
+
+    src.append("  private ").append(name).append("RowMapper() {\n  }\n\n");
+
+    src.append("  /**\n   * @return COLUMNS with each column qualified by the given table alias.\n   */\n");
+    src.append("  public static String columns(String alias) {\n");
+    src.append("    return ").append(aliasedColumnList(columns)).append(";\n  }\n\n");
+
+    src.append("  @Override\n");
+    src.append("  public ").append(name).append(" map(ResultSet rs, int offset) throws SQLException {\n");
+    src.append("    ").append(name).append(" entity = new ").append(name).append("();\n");
+
+    for(int index = 0; index < columns.size(); index++) {
+      Column column = columns.get(index);
+      String var = "v" + index;
+
+      src.append("\n    ").append(column.type.javaType).append(' ').append(var).append(" = ")
+          .append(String.format(column.type.readExpr, "offset + " + index)).append(";\n");
+      src.append("    if(").append(var).append(" != null) {\n");
+      src.append("      entity.").append(column.setter()).append('(').append(var).append(");\n");
+      src.append("    }\n");
+    }
+
+    src.append("\n    return entity;\n  }\n\n");
+
+    src.append("  @Override\n  public int columnCount() {\n    return ")
+        .append(columns.size()).append(";\n  }\n}\n");
+
+    return src.toString();
+  }
+
+  private String insertBinderSource(String pkg, String name, List<Column> columns) {
+    StringBuilder src = header(pkg, name + "InsertBinder", "InsertBinder", name);
+
+    src.append("  public static final ").append(name).append("InsertBinder INSTANCE = new ")
+        .append(name).append("InsertBinder();\n\n");
+    src.append("  public static final String INSERT_COLUMNS = \"")
+        .append(columnList(columns)).append("\";\n\n");
+    src.append("  public static final String PLACEHOLDERS = \"")
+        .append(columns.stream().map(column -> "?").collect(Collectors.joining(", ")))
+        .append("\";\n\n");
+
+    src.append("  private ").append(name).append("InsertBinder() {\n  }\n\n");
+
+    src.append("  @Override\n");
+    src.append("  public int bind(PreparedStatement stmt, int offset, ").append(name)
+        .append(" entity) throws SQLException {\n");
+
+    for(int index = 0; index < columns.size(); index++) {
+      Column column = columns.get(index);
+      String var = "v" + index;
+      String param = "offset + " + index;
+
+      src.append("\n    ").append(column.type.javaType).append(' ').append(var)
+          .append(" = entity.").append(column.getter()).append("();\n");
+      src.append("    if(").append(var).append(" == null) {\n");
+      src.append("      stmt.setNull(").append(param).append(", Types.").append(column.type.sqlType)
+          .append(");\n");
+      src.append("    } else {\n");
+      src.append("      ").append(String.format(column.type.writeExpr, param, var)).append(";\n");
+      src.append("    }\n");
+    }
+
+    src.append("\n    return offset + ").append(columns.size()).append(";\n  }\n\n");
+
+    src.append("  @Override\n  public int parameterCount() {\n    return ")
+        .append(columns.size()).append(";\n  }\n}\n");
+
+    return src.toString();
+  }
+
+  private StringBuilder header(String pkg, String className, String iface, String entity) {
+    StringBuilder src = new StringBuilder();
+
+    src.append("package ").append(pkg).append(";\n\n");
+    src.append("import java.sql.PreparedStatement;\n");
+    src.append("import java.sql.ResultSet;\n");
+    src.append("import java.sql.SQLException;\n");
+    src.append("import java.sql.Types;\n\n");
+    src.append("import javax.annotation.processing.Generated;\n\n");
+    src.append("import provided.util.").append(iface).append(";\n\n");
+    src.append("@Generated(\"").append(getClass().getName()).append("\")\n");
+    src.append("public final class ").append(className).append(" implements ").append(iface)
+        .append('<').append(entity).append("> {\n");
+
+    return src;
+  }
+  // @formatter:on
+
+  private String columnList(List<Column> columns) {
+    return columns.stream().map(column -> column.name).collect(Collectors.joining(", "));
+  }
+
+  private String aliasedColumnList(List<Column> columns) {
+    return columns.stream().map(column -> "alias + \"." + column.name)
+        .collect(Collectors.joining(", \" + ", "", "\""));
+  }
+
+  private void write(String pkg, String className, String source, TypeElement origin) {
+    String qualified = pkg + "." + className;
+    generated.add(qualified);
+
+    try {
+      JavaFileObject file = processingEnv.getFiler().createSourceFile(qualified, origin);
+
+      try(Writer writer = file.openWriter()) {
+        writer.write(source);
+      }
+    }
+    catch(IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Unable to write " + qualified + ": " + e.getMessage(), origin);
+    }
+  }
+
+  /**
+   * A mapped field and its snake case column name.
+   */
+  private static class Column {
+    private final String field;
+    private final String name;
+    private final ColumnType type;
+
+    Column(String field, ColumnType type) {
+      this.field = field;
+      this.name = camelCaseToSnakeCase(field);
+      this.type = type;
+    }
+
+    String getter() {
+      return "get" + Character.toUpperCase(field.charAt(0)) + field.substring(1);
+    }
+
+    String setter() {
+      return "set" + Character.toUpperCase(field.charAt(0)) + field.substring(1);
+    }
+  }
+
+  /**
+   * The field types that map to a single column, with the JDBC calls used to read and write them.
+   * The read expression takes the column index; the write expression takes the parameter index
+   * and the value.
+   */
+  // @formatter:off
+  private enum ColumnType {
+    INTEGER("java.lang.Integer", "INTEGER", "rs.getObject(%s, Integer.class)", "stmt.setInt(%s, %s)"),
+    LONG("java.lang.Long", "BIGINT", "rs.getObject(%s, Long.class)", "stmt.setLong(%s, %s)"),
+    DOUBLE("java.lang.Double", "DOUBLE", "rs.getObject(%s, Double.class)", "stmt.setDouble(%s, %s)"),
+    BOOLEAN("java.lang.Boolean", "BOOLEAN", "rs.getObject(%s, Boolean.class)", "stmt.setBoolean(%s, %s)"),
+    STRING("java.lang.String", "VARCHAR", "rs.getString(%s)", "stmt.setString(%s, %s)"),
+    DECIMAL("java.math.BigDecimal", "DECIMAL", "rs.getBigDecimal(%s)", "stmt.setBigDecimal(%s, %s)"),
+    DATE("java.time.LocalDate", "DATE", "rs.getObject(%s, java.time.LocalDate.class)", "stmt.setObject(%s, %s)"),
+    TIME("java.time.LocalTime", "TIME", "rs.getObject(%s, java.time.LocalTime.class)", "stmt.setObject(%s, %s)"),
+    TIMESTAMP("java.time.LocalDateTime", "TIMESTAMP", "rs.getObject(%s, java.time.LocalDateTime.class)", "stmt.setObject(%s, %s)");
+    // @formatter:on
+
+    private final String javaType;
+    private final String sqlType;
+    private final String readExpr;
+    private final String writeExpr;
+
+    ColumnType(String javaType, String sqlType, String readExpr, String writeExpr) {
+      this.javaType = javaType;
+      this.sqlType = sqlType;
+      this.readExpr = readExpr;
+      this.writeExpr = writeExpr;
+    }
+
+    static ColumnType of(String javaType) {
+      for(ColumnType type : values()) {
+        if(type.javaType.equals(javaType)) {
+          return type;
+        }
+      }
+
+      return null;
+    }
+  }
+
+  /**
+   * Same conversion as DaoBase: rowInsertTime becomes row_insert_time.
+   */
+  private static String camelCaseToSnakeCase(String identifier) {
+    StringBuilder nameBuilder = new StringBuilder();
+
+    for(char ch : identifier.toCharArray()) {
+      if(Character.isUpperCase(ch)) {
+        nameBuilder.append('_').append(Character.toLowerCase(ch));
+      }
+      else {
+        nameBuilder.append(ch);
+      }
+    }
+
+    return nameBuilder.toString();
+  }
+}